@@ -2,12 +2,15 @@ package ru.kata.spring.boot_security.demo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import ru.kata.spring.boot_security.demo.configs.NativeRuntimeHints;
 
 /**
  * Главный класс Spring Boot-приложения.
    Запуск приложение
  */
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class SpringBootSecurityDemoApplication {
 
 	public static void main(String[] args) {
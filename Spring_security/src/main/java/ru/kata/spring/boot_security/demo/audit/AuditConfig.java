@@ -0,0 +1,39 @@
+package ru.kata.spring.boot_security.demo.audit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.unit.DataSize;
+import ru.kata.common.audit.AuditLog;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Журнал аудита изменений пользователей; actor - текущий аутентифицированный пользователь.
+ */
+@Configuration
+public class AuditConfig {
+
+    @Bean
+    public AuditLog auditLog(MeterRegistry meterRegistry,
+                             @Value("${audit.dir:audit}") Path dir,
+                             @Value("${audit.segment-size:16MB}") DataSize segmentSize,
+                             @Value("${audit.queue-capacity:65536}") int queueCapacity,
+                             @Value("${audit.batch-size:512}") int batchSize,
+                             @Value("${audit.flush-interval:200ms}") Duration flushInterval,
+                             @Value("${audit.fsync-interval:1s}") Duration fsyncInterval,
+                             @Value("${audit.compaction-interval:1h}") Duration compactionInterval,
+                             @Value("${audit.retention:90d}") Duration retention) {
+        return new AuditLog(meterRegistry, dir, segmentSize, queueCapacity, batchSize,
+                flushInterval, fsyncInterval, compactionInterval, retention, AuditConfig::currentActor);
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+}
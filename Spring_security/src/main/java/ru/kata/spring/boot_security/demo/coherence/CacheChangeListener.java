@@ -0,0 +1,26 @@
+package ru.kata.spring.boot_security.demo.coherence;
+
+import ru.kata.spring.boot_security.demo.dto.UserSuggestionDto;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Получатель изменений, сделанных на других узлах. Бины с этим интерфейсом
+ * вызываются {@link CacheChangePoller} из его потока, без транзакции.
+ */
+public interface CacheChangeListener {
+
+    /**
+     * Пользователи изменены или удалены на другом узле.
+     *
+     * @param userIds id изменённых пользователей
+     * @param current их текущие данные из БД; удалённых пользователей в карте нет
+     */
+    default void usersChanged(Set<Long> userIds, Map<Long, UserSuggestionDto> current) {
+    }
+
+    /** Роли изменены на другом узле. */
+    default void rolesChanged() {
+    }
+}
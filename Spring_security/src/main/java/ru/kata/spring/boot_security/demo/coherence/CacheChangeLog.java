@@ -0,0 +1,59 @@
+package ru.kata.spring.boot_security.demo.coherence;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Запись изменений в cache_changes для сброса кэшей на остальных узлах (см. {@link CacheChangePoller}).
+ * <p>
+ * Строка пишется в транзакции изменения: другие узлы видят её вместе с самим изменением,
+ * а откат не оставляет ложной записи. Вставка идёт через JDBC, а не через EntityManager,
+ * чтобы её можно было делать и из JPA-колбэков во время flush. Каждое изменение - новая строка,
+ * а не счётчик версии: параллельные записи не ждут друг друга на одной горячей строке.
+ * При cache.coherence.enabled=false (один узел) журнал не пишется.
+ */
+@Component
+public class CacheChangeLog {
+
+    private static final String INSERT_SQL =
+            "insert into cache_changes (node_id, region, entity_id, created_at) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheChangeLog(JdbcTemplate jdbcTemplate,
+                          @Value("${cache.coherence.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    /** Идентификатор этого узла в журнале; новый при каждом запуске. */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /** Пользователь создан, изменён или удалён текущей транзакцией. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void userChanged(Long userId) {
+        append(CacheRegion.USERS, userId);
+    }
+
+    /** Изменена роль; вызывается из {@code RoleChangeListener}. */
+    public void rolesChanged() {
+        append(CacheRegion.ROLES, null);
+    }
+
+    private void append(CacheRegion region, Long entityId) {
+        if (enabled) {
+            jdbcTemplate.update(INSERT_SQL, nodeId, region.name(), entityId, Timestamp.from(Instant.now()));
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package ru.kata.spring.boot_security.demo.coherence;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kata.spring.boot_security.demo.dto.UserSuggestionDto;
+import ru.kata.spring.boot_security.demo.model.CacheChange;
+import ru.kata.spring.boot_security.demo.repository.CacheChangeRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Согласование кэшей между узлами: поток {@code cache-coherence} читает новые строки cache_changes
+ * и передаёт чужие изменения бинам {@link CacheChangeListener}.
+ * <p>
+ * Общая таблица в БД - простейший транспорт: отдельной шины не нужно, а задержка ограничена
+ * {@code cache.coherence.poll-interval}. Id выдаются при вставке, а видны строки после коммита,
+ * поэтому меньший id может появиться позже большего. Пропущенные id запоминаются и перечитываются,
+ * пока не появятся или не истечёт {@code cache.coherence.gap-timeout} (откат тоже оставляет пропуск).
+ * Сколько пропусков отслеживается, ограничивает {@code cache.coherence.max-gaps}, а не размер
+ * пачки: insert ... select импорта резервирует в MySQL больше id, чем вставляет строк.
+ * При старте чтение начинается с записей моложе gap-timeout: повторный сброс безвреден.
+ * Строки старше {@code cache.coherence.retention} удаляются.
+ * <p>
+ * Метрики - {@code cache.coherence.applied}, {@code cache.coherence.lag},
+ * {@code cache.coherence.gaps.skipped}, {@code cache.coherence.failures}.
+ */
+@Slf4j
+@Component
+public class CacheChangePoller implements SmartLifecycle {
+
+    private static final String SELECT_USERS_SQL =
+            "select id, first_name, last_name, username, email from users where id in (:ids)";
+
+    private final CacheChangeRepository cacheChangeRepository;
+    private final CacheChangeLog changeLog;
+    private final List<CacheChangeListener> listeners;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxGaps;
+    private final long pollIntervalNanos;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    private final Counter applied;
+    private final Counter gapsSkipped;
+    private final Counter failures;
+    private final Timer lag;
+
+    /** Последний прочитанный id; -1 - ещё не определён. Меняется только потоком опроса. */
+    private long lastId = -1;
+    /** Пропущенные id и когда пропуск замечен (System.nanoTime()). */
+    private final Map<Long, Long> gaps = new HashMap<>();
+    private long lastPurgeNanos;
+
+    private volatile boolean running;
+    private volatile Thread pollThread;
+
+    public CacheChangePoller(CacheChangeRepository cacheChangeRepository, CacheChangeLog changeLog,
+                             List<CacheChangeListener> listeners, JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                             @Value("${cache.coherence.enabled:true}") boolean enabled,
+                             @Value("${cache.coherence.batch-size:500}") int batchSize,
+                             @Value("${cache.coherence.max-gaps:10000}") int maxGaps,
+                             @Value("${cache.coherence.poll-interval:1s}") Duration pollInterval,
+                             @Value("${cache.coherence.gap-timeout:1m}") Duration gapTimeout,
+                             @Value("${cache.coherence.retention:1h}") Duration retention) {
+        this.cacheChangeRepository = cacheChangeRepository;
+        this.changeLog = changeLog;
+        this.listeners = listeners;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxGaps = maxGaps;
+        this.pollIntervalNanos = pollInterval.toNanos();
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+        this.applied = meterRegistry.counter("cache.coherence.applied");
+        this.gapsSkipped = meterRegistry.counter("cache.coherence.gaps.skipped");
+        this.failures = meterRegistry.counter("cache.coherence.failures");
+        this.lag = meterRegistry.timer("cache.coherence.lag");
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        lastPurgeNanos = System.nanoTime();
+        Thread thread = new Thread(this::pollLoop, "cache-coherence");
+        thread.setDaemon(true);
+        pollThread = thread;
+        thread.start();
+        log.info("Cache coherence poller started: node {}, {} listeners", changeLog.nodeId(), listeners.size());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = pollThread;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(Duration.ofSeconds(10).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pollThread = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return pollThread != null;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    private void pollLoop() {
+        while (running) {
+            int polled;
+            try {
+                polled = poll();
+                purgeIfDue();
+            } catch (Exception e) {
+                failures.increment();
+                log.warn("Cache change poll failed: {}", e.toString());
+                polled = 0;
+            }
+            if (polled < batchSize && running) {
+                LockSupport.parkNanos(this, pollIntervalNanos);
+            }
+        }
+    }
+
+    /** Один опрос; возвращает число новых строк (полная пачка - сразу следующий опрос). */
+    int poll() {
+        if (lastId < 0) {
+            Long start = cacheChangeRepository.findMaxIdCreatedBefore(Instant.now().minus(gapTimeout));
+            lastId = start != null ? start : 0;
+        }
+        long now = System.nanoTime();
+        List<CacheChange> batch = cacheChangeRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(batchSize));
+        for (CacheChange change : batch) {
+            long missing = change.getId() - lastId - 1;
+            if (gaps.size() + missing > maxGaps) {
+                gapsSkipped.increment(missing);
+            } else {
+                for (long id = lastId + 1; id < change.getId(); id++) {
+                    gaps.put(id, now);
+                }
+            }
+            lastId = change.getId();
+        }
+        List<CacheChange> changes = new ArrayList<>(batch);
+        if (!gaps.isEmpty()) {
+            List<Long> pending = new ArrayList<>(gaps.keySet());
+            for (int from = 0; from < pending.size(); from += batchSize) {
+                List<Long> chunk = pending.subList(from, Math.min(from + batchSize, pending.size()));
+                for (CacheChange late : cacheChangeRepository.findByIdIn(chunk)) {
+                    gaps.remove(late.getId());
+                    changes.add(late);
+                }
+            }
+            long timeoutNanos = gapTimeout.toNanos();
+            int before = gaps.size();
+            gaps.values().removeIf(seen -> now - seen > timeoutNanos);
+            gapsSkipped.increment(before - gaps.size());
+        }
+        dispatch(changes);
+        return batch.size();
+    }
+
+    private void dispatch(List<CacheChange> changes) {
+        Set<Long> userIds = new LinkedHashSet<>();
+        boolean roles = false;
+        Instant now = Instant.now();
+        for (CacheChange change : changes) {
+            if (changeLog.nodeId().equals(change.getNodeId())) {
+                continue;
+            }
+            switch (change.getRegion()) {
+                case USERS -> userIds.add(change.getEntityId());
+                case ROLES -> roles = true;
+            }
+            lag.record(Duration.between(change.getCreatedAt(), now).abs());
+            applied.increment();
+        }
+        if (!userIds.isEmpty()) {
+            Map<Long, UserSuggestionDto> current = loadUsers(userIds);
+            notifyListeners(listener -> listener.usersChanged(userIds, current));
+        }
+        if (roles) {
+            notifyListeners(CacheChangeListener::rolesChanged);
+        }
+    }
+
+    private Map<Long, UserSuggestionDto> loadUsers(Set<Long> ids) {
+        Map<Long, UserSuggestionDto> users = new HashMap<>();
+        namedJdbcTemplate.query(SELECT_USERS_SQL, Map.of("ids", ids), (RowCallbackHandler) rs -> {
+            UserSuggestionDto user = new UserSuggestionDto(rs.getLong(1), rs.getString(2), rs.getString(3),
+                    rs.getString(4), rs.getString(5));
+            users.put(user.getId(), user);
+        });
+        return users;
+    }
+
+    /** Ошибка одного получателя не мешает остальным. */
+    private void notifyListeners(Consumer<CacheChangeListener> call) {
+        for (CacheChangeListener listener : listeners) {
+            try {
+                call.accept(listener);
+            } catch (RuntimeException e) {
+                log.warn("Cache change listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private void purgeIfDue() {
+        long now = System.nanoTime();
+        if (now - lastPurgeNanos < Math.min(retention.toNanos(), Duration.ofMinutes(1).toNanos())) {
+            return;
+        }
+        lastPurgeNanos = now;
+        Instant before = Instant.now().minus(retention);
+        Integer deleted = transactionTemplate.execute(status -> cacheChangeRepository.deleteCreatedBefore(before));
+        log.debug("Cache changes purged: {}", deleted);
+    }
+}
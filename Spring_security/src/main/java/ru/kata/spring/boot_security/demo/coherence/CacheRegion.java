@@ -0,0 +1,9 @@
+package ru.kata.spring.boot_security.demo.coherence;
+
+/**
+ * Что изменилось: от этого зависит, какие кэши сбрасываются на других узлах.
+ */
+public enum CacheRegion {
+    USERS,
+    ROLES
+}
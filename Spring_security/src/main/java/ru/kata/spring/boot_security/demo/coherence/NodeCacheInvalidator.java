@@ -0,0 +1,51 @@
+package ru.kata.spring.boot_security.demo.coherence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.kata.common.view.RenderedFragmentCache;
+import ru.kata.spring.boot_security.demo.dto.UserSuggestionDto;
+import ru.kata.spring.boot_security.demo.search.UserSearchIndex;
+import ru.kata.spring.boot_security.demo.service.PrincipalCache;
+import ru.kata.spring.boot_security.demo.service.RoleCatalog;
+import ru.kata.spring.boot_security.demo.service.UserAvailabilityService;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Применяет чужие изменения к кэшам этого узла так же, как UserServiceImpl - к своим после коммита.
+ * Вне транзакции методы "...AfterCommit" кэшей выполняются сразу.
+ */
+@Component
+@RequiredArgsConstructor
+public class NodeCacheInvalidator implements CacheChangeListener {
+
+    private final PrincipalCache principalCache;
+    private final RenderedFragmentCache fragmentCache;
+    private final UserAvailabilityService availabilityService;
+    private final UserSearchIndex searchIndex;
+    private final RoleCatalog roleCatalog;
+
+    @Override
+    public void usersChanged(Set<Long> userIds, Map<Long, UserSuggestionDto> current) {
+        for (Long id : userIds) {
+            UserSuggestionDto user = current.get(id);
+            if (user != null) {
+                principalCache.evictAfterCommit(id, user.getUsername(), user.getEmail());
+                availabilityService.register(user.getUsername(), user.getEmail());
+                searchIndex.indexAfterCommit(user);
+            } else {
+                principalCache.evictAfterCommit(id, null, null);
+                searchIndex.removeAfterCommit(id);
+            }
+            availabilityService.registerRemoval();
+        }
+        fragmentCache.invalidate();
+    }
+
+    @Override
+    public void rolesChanged() {
+        roleCatalog.onRolesChanged(new RoleCatalog.RolesChangedEvent());
+        fragmentCache.invalidate();
+    }
+}
@@ -0,0 +1,56 @@
+package ru.kata.spring.boot_security.demo.configs;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.data.domain.PageImpl;
+import ru.kata.spring.boot_security.demo.dto.RoleDto;
+import ru.kata.spring.boot_security.demo.dto.UserDto;
+import ru.kata.spring.boot_security.demo.dto.UserPrincipal;
+import ru.kata.spring.boot_security.demo.dto.UserSuggestionDto;
+import ru.kata.spring.boot_security.demo.logging.DebugSamplingTurboFilter;
+import ru.kata.spring.boot_security.demo.mapper.UserMapper;
+import ru.kata.spring.boot_security.demo.model.CacheChange;
+import ru.kata.spring.boot_security.demo.model.OutboxEvent;
+import ru.kata.spring.boot_security.demo.model.ReplicaHeartbeat;
+import ru.kata.spring.boot_security.demo.model.Role;
+import ru.kata.spring.boot_security.demo.model.User;
+
+/**
+ * Подсказки для нативного образа (профиль Maven native), которые Spring AOT не выводит сам:
+ * - DTO с геттерами от Lombok - их читают шаблоны Thymeleaf и Jackson;
+ * - сущности и страница Spring Data - шаблоны обращаются к ним через SpEL;
+ * - реализация UserMapper от MapStruct - {@code UserMapper.INSTANCE} ищет её по имени класса;
+ * - turbo-фильтр Logback - создаётся по имени из logback-spring.xml.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingRegistrar.registerReflectionHints(hints.reflection(),
+                UserDto.class, RoleDto.class, UserSuggestionDto.class);
+
+        for (Class<?> type : new Class<?>[]{User.class, Role.class, OutboxEvent.class, CacheChange.class,
+                ReplicaHeartbeat.class}) {
+            hints.reflection().registerType(type,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS,
+                    MemberCategory.DECLARED_FIELDS);
+        }
+        hints.reflection().registerType(UserPrincipal.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(PageImpl.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        hints.reflection().registerTypeIfPresent(classLoader, UserMapper.class.getName() + "Impl",
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        hints.reflection().registerType(DebugSamplingTurboFilter.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        hints.resources().registerPattern("templates/**");
+    }
+}
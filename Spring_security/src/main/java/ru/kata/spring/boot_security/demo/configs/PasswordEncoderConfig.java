@@ -0,0 +1,40 @@
+package ru.kata.spring.boot_security.demo.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.kata.spring.boot_security.demo.security.BoundedPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Кодирование паролей: хэш с префиксом алгоритма ({@code {bcrypt}...}), считается в ограниченном пуле.
+ * <p>
+ * Хэши без префикса, записанные до перехода, проверяются как BCrypt. Если алгоритм хэша не текущий
+ * или его стоимость ниже {@code security.password.bcrypt-strength}, после успешного входа
+ * DaoAuthenticationProvider перехэширует пароль (UserDetailsServiceImpl#updatePassword).
+ * Стоимость под железо подбирает {@link ru.kata.spring.boot_security.demo.security.PasswordCostCalibrator}.
+ */
+@Configuration
+public class PasswordEncoderConfig {
+
+    private static final String BCRYPT = "bcrypt";
+
+    @Bean
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${security.password.bcrypt-strength:10}") int strength,
+                                           @Value("${security.password.hashing.threads:0}") int threads,
+                                           @Value("${security.password.hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${security.password.hashing.timeout:2s}") Duration timeout) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(encoder, poolSize, queueCapacity, timeout, meterRegistry);
+    }
+}
@@ -1,16 +1,36 @@
 package ru.kata.spring.boot_security.demo.configs;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.ExceptionMappingAuthenticationFailureHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.context.NullSecurityContextRepository;
+import org.springframework.security.web.savedrequest.NullRequestCache;
+import ru.kata.spring.boot_security.demo.dto.UserPrincipal;
+import ru.kata.spring.boot_security.demo.security.AuthTokenFilter;
+import ru.kata.spring.boot_security.demo.security.AuthTokenService;
+import ru.kata.spring.boot_security.demo.security.LoginThrottle;
+import ru.kata.spring.boot_security.demo.security.LoginThrottleFilter;
+import ru.kata.spring.boot_security.demo.security.PasswordHashingBusyException;
 import ru.kata.spring.boot_security.demo.service.SuccessUserHandler;
 import ru.kata.spring.boot_security.demo.service.UserDetailsServiceImpl;
 
+import java.util.Map;
+
 /**
  * Конфигурация Spring Security: настройка аутентификации, авторизации и поведения при логине/логауте.
  */
@@ -19,25 +39,38 @@ import ru.kata.spring.boot_security.demo.service.UserDetailsServiceImpl;
 @RequiredArgsConstructor
 public class WebSecurityConfig {
 
+    private static final String METRICS_ROLE = "METRICS";
 
     private final SuccessUserHandler successUserHandler;
     private final UserDetailsServiceImpl userDetailsService;
+    /** Из PasswordEncoderConfig: хэширование в ограниченном пуле. */
+    private final PasswordEncoder passwordEncoder;
+    /** Есть только при security.auth.mode=token. */
+    private final ObjectProvider<AuthTokenService> authTokenService;
+    /** Нет при security.login-throttle.enabled=false. */
+    private final ObjectProvider<LoginThrottle> loginThrottle;
 
-    /** Шифрование паролей. */
-    @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
-    /** DAO-провайдер с кастомным UserDetailsService и шифрованием паролей. */
+    /**
+     * DAO-провайдер с кастомным UserDetailsService и шифрованием паролей.
+     * После успешного входа устаревший хэш пароля перезаписывается через updatePassword.
+     */
     @Bean
     public DaoAuthenticationProvider authProvider() {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService); // 🔄 тут наш сервис из БД
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsPasswordService(userDetailsService);
         return provider;
     }
 
+    /** Неверный пароль - /login?error, перегруженный пул хэширования - /login?throttled. */
+    private static ExceptionMappingAuthenticationFailureHandler loginFailureHandler() {
+        ExceptionMappingAuthenticationFailureHandler handler = new ExceptionMappingAuthenticationFailureHandler();
+        handler.setDefaultFailureUrl("/login?error=true");
+        handler.setExceptionMappings(Map.of(PasswordHashingBusyException.class.getName(), "/login?throttled"));
+        return handler;
+    }
+
     /**
      * Делает AuthenticationManager доступным для других бинов.
      */
@@ -46,11 +79,85 @@ public class WebSecurityConfig {
         return new AuthenticationConfiguration();
     }
 
+    /**
+     * Цепочка для actuator: {@code /actuator/health} открыт для балансировщика, остальные
+     * эндпоинты (prometheus, info) - только по HTTP Basic для скрейпера с ролью METRICS.
+     * Учётка скрейпера задаётся security.metrics.username/password и не хранится в БД;
+     * пока пароль не задан, метрики закрыты для всех.
+     */
+    @Bean
+    @Order(0)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http,
+                                                   @Value("${security.metrics.username:prometheus}") String username,
+                                                   @Value("${security.metrics.password:}") String password)
+            throws Exception {
+        http
+                .securityMatcher("/actuator/**")
+                .authenticationProvider(metricsScraperProvider(username, password))
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .anyRequest().hasRole(METRICS_ROLE))
+                .httpBasic(Customizer.withDefaults())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .csrf(csrf -> csrf.disable());
+
+        LoginThrottle throttle = loginThrottle.getIfAvailable();
+        if (throttle != null) {
+            http.addFilterBefore(LoginThrottleFilter.httpBasic(throttle), BasicAuthenticationFilter.class);
+        }
+        return http.build();
+    }
+
+    private DaoAuthenticationProvider metricsScraperProvider(String username, String password) {
+        InMemoryUserDetailsManager scrapers = new InMemoryUserDetailsManager();
+        if (!password.isBlank()) {
+            scrapers.createUser(User.withUsername(username)
+                    .password(passwordEncoder.encode(password))
+                    .roles(METRICS_ROLE)
+                    .build());
+        }
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(scrapers);
+        provider.setPasswordEncoder(passwordEncoder);
+        return provider;
+    }
+
+    /**
+     * Цепочка для JSON API (/api/**): HTTP Basic без сессии, только ADMIN.
+     * Неаутентифицированный запрос получает 401, а не редирект на форму логина.
+     * Проверка Basic-пароля проходит через {@link LoginThrottle}: ведра IP и логина общие с формой
+     * логина, общее ведро узла - отдельное, чтобы перебор на /login не отнимал лимит у API.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain apiFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher("/api/**")
+                .authenticationProvider(authProvider())
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/api/v1/auth/token").authenticated()
+                        .anyRequest().hasRole("ADMIN"))
+                .httpBasic(Customizer.withDefaults())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .csrf(csrf -> csrf.disable());
+
+        LoginThrottle throttle = loginThrottle.getIfAvailable();
+        if (throttle != null) {
+            http.addFilterBefore(LoginThrottleFilter.httpBasic(throttle), BasicAuthenticationFilter.class);
+        }
+        AuthTokenService tokens = authTokenService.getIfAvailable();
+        if (tokens != null) {
+            http.addFilterBefore(new AuthTokenFilter(tokens, userDetailsService), BasicAuthenticationFilter.class);
+        }
+        return http.build();
+    }
+
     /**
      * Основная настройка фильтров безопасности:
      * 1) Регистрирует наш DaoAuthenticationProvider.
      * 2) Задаёт права доступа по URL.
      * 3) Настраивает кастомную форму логина и логаута.
+     * 4) Ограничивает частоту попыток входа до проверки пароля ({@link LoginThrottleFilter}).
      */
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -68,7 +175,7 @@ public class WebSecurityConfig {
                         .usernameParameter("emailOrUsername")
                         .passwordParameter("password")
                         .successHandler(successUserHandler)
-                        .failureUrl("/login?error=true")
+                        .failureHandler(loginFailureHandler())
                         .permitAll()
                 )
                 .logout(logout -> logout
@@ -78,6 +185,32 @@ public class WebSecurityConfig {
                 )
                 .csrf(csrf -> csrf.disable());
 
+        LoginThrottle throttle = loginThrottle.getIfAvailable();
+        if (throttle != null) {
+            http.addFilterBefore(LoginThrottleFilter.formLogin(throttle, "/login", "emailOrUsername", "/login?throttled"),
+                    UsernamePasswordAuthenticationFilter.class);
+        }
+        AuthTokenService tokens = authTokenService.getIfAvailable();
+        if (tokens != null) {
+            statelessTokenLogin(http, tokens);
+        }
         return http.build();
     }
+
+    /**
+     * Режим security.auth.mode=token: сессия не создаётся, после логина выдаётся
+     * подписанный токен в HttpOnly-cookie, каждый запрос аутентифицирует {@link AuthTokenFilter}.
+     */
+    private void statelessTokenLogin(HttpSecurity http, AuthTokenService tokens) throws Exception {
+        http
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .securityContext(context -> context.securityContextRepository(new NullSecurityContextRepository()))
+                .requestCache(cache -> cache.requestCache(new NullRequestCache()))
+                .addFilterBefore(new AuthTokenFilter(tokens, userDetailsService), UsernamePasswordAuthenticationFilter.class)
+                .formLogin(login -> login.successHandler((request, response, authentication) -> {
+                    tokens.writeCookie(response, tokens.issue((UserPrincipal) authentication.getPrincipal()));
+                    successUserHandler.onAuthenticationSuccess(request, response, authentication);
+                }))
+                .logout(logout -> logout.deleteCookies(tokens.getCookieName()));
+    }
 }
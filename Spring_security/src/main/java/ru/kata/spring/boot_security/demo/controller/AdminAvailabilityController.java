@@ -0,0 +1,43 @@
+package ru.kata.spring.boot_security.demo.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import ru.kata.spring.boot_security.demo.service.UserAvailabilityService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Живая проверка username и email для форм добавления и редактирования пользователя.
+ * Доступна по /admin/availability (роль ADMIN, сессия формы входа).
+ */
+@RestController
+@RequestMapping(path = "/admin/availability", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+public class AdminAvailabilityController {
+
+    private final UserAvailabilityService availabilityService;
+
+    /**
+     * Свободны ли значения: {"username": true, "email": false}. Обычно отвечает из фильтра
+     * в памяти, без запроса в БД.
+     */
+    @GetMapping
+    public Map<String, Boolean> checkAvailability(@RequestParam(required = false) String username,
+                                                  @RequestParam(required = false) String email) {
+        boolean hasUsername = username != null && !username.isBlank();
+        boolean hasEmail = email != null && !email.isBlank();
+        if (!hasUsername && !hasEmail) {
+            throw new IllegalArgumentException("username or email is required");
+        }
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        if (hasUsername) {
+            result.put("username", availabilityService.isUsernameAvailable(username));
+        }
+        if (hasEmail) {
+            result.put("email", availabilityService.isEmailAvailable(email));
+        }
+        return result;
+    }
+}
@@ -1,18 +1,27 @@
 package ru.kata.spring.boot_security.demo.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import ru.kata.spring.boot_security.demo.dto.RoleDto;
+import ru.kata.common.view.RenderedFragmentCache;
 import ru.kata.spring.boot_security.demo.dto.UserDto;
 import ru.kata.spring.boot_security.demo.mapper.UserMapper;
+import ru.kata.spring.boot_security.demo.service.RoleCatalog;
 import ru.kata.spring.boot_security.demo.service.UserService;
+import ru.kata.spring.boot_security.demo.view.FragmentRenderer;
+import ru.kata.spring.boot_security.demo.view.ViewEtags;
 
 import jakarta.validation.Valid;
-import java.util.stream.Collectors;
+import java.security.Principal;
+import java.util.Map;
 
 /**
  * Контроллер для управления пользователями.
@@ -25,16 +34,37 @@ import java.util.stream.Collectors;
 @Validated
 public class AdminController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final UserService userService;
     private final UserMapper userMapper;
+    private final RoleCatalog roleCatalog;
+    private final RenderedFragmentCache fragmentCache;
+    private final FragmentRenderer fragmentRenderer;
+    private final ViewEtags viewEtags;
 
-    /** Показывает список всех пользователей. */
+    /**
+     * Показывает страницу списка пользователей; таблица берётся из кэша отрендеренных фрагментов.
+     * Если данные не менялись, отдаёт {@code 304} по ETag. Пустая страница за концом списка
+     * не кэшируется: иначе перебор номеров страниц вытеснял бы полезные записи.
+     */
     @GetMapping
-    public String listUsers(Model model) {
-        model.addAttribute("users", userService.findAll()
-                .stream()
-                .map(userMapper::toDto)
-                .collect(Collectors.toList()));
+    public String listUsers(@RequestParam(defaultValue = "0") int page,
+                            @RequestParam(defaultValue = "20") int size,
+                            Model model, Principal principal,
+                            HttpServletRequest request, HttpServletResponse response) {
+        if (viewEtags.checkNotModified(viewEtags.listTag(principal), request, response)) {
+            return null;
+        }
+        Pageable pageable = PageRequest.of(Math.max(page, 0),
+                Math.min(Math.max(size, 1), MAX_PAGE_SIZE), Sort.by("id"));
+        String userTable = fragmentCache.get(
+                "user-table?page=" + pageable.getPageNumber() + "&size=" + pageable.getPageSize(),
+                () -> userService.findPage(pageable),
+                users -> users.getNumber() == 0 || users.hasContent(),
+                users -> fragmentRenderer.render("fragments/user-table",
+                        Map.of("users", users.getContent(), "page", users), request, response));
+        model.addAttribute("userTable", userTable);
         return "list";
     }
 
@@ -42,10 +72,7 @@ public class AdminController {
     @GetMapping("/add")
     public String addForm(Model model) {
         model.addAttribute("userDto", new UserDto());
-        model.addAttribute("roles", userService.findAllRoles()
-                .stream()
-                .map(role -> new RoleDto(role.getId(), role.getName()))
-                .collect(Collectors.toList()));
+        model.addAttribute("roles", roleCatalog.getRoleDtos());
         return "add";
     }
 
@@ -61,10 +88,7 @@ public class AdminController {
     public String editForm(@PathVariable Long id, Model model) {
         UserDto dto = userMapper.toDto(userService.findById(id));
         model.addAttribute("userDto", dto);
-        model.addAttribute("roles", userService.findAllRoles()
-                .stream()
-                .map(role -> new RoleDto(role.getId(), role.getName()))
-                .collect(Collectors.toList()));
+        model.addAttribute("roles", roleCatalog.getRoleDtos());
         return "edit";
     }
 
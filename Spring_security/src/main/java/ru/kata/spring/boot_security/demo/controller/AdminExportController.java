@@ -0,0 +1,48 @@
+package ru.kata.spring.boot_security.demo.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.kata.spring.boot_security.demo.service.DataFormat;
+import ru.kata.spring.boot_security.demo.service.UserExportService;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Потоковая выгрузка пользователей для администраторов.
+ * Доступна по /admin/export (роль ADMIN).
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/export")
+@RequiredArgsConstructor
+public class AdminExportController {
+
+    private final UserExportService userExportService;
+
+    /** Таймаут асинхронного ответа выгрузки; у остальных async-запросов остаётся общий. */
+    @Value("${users.export.timeout:30m}")
+    private Duration exportTimeout;
+
+    /** Выгрузить всех пользователей: format=csv (по умолчанию) или format=ndjson. */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "csv") String format,
+                                                             HttpServletRequest request) {
+        DataFormat dataFormat = DataFormat.parse(format);
+        log.info("Exporting users as {}", dataFormat);
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+        String fileName = "users." + dataFormat.name().toLowerCase(Locale.ROOT);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(dataFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(out -> userExportService.exportUsers(out, dataFormat));
+    }
+}
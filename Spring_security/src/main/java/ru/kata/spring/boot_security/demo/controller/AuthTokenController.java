@@ -0,0 +1,54 @@
+package ru.kata.spring.boot_security.demo.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.kata.spring.boot_security.demo.dto.UserPrincipal;
+import ru.kata.spring.boot_security.demo.security.AuthTokenService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Выдача токена для API-клиентов (security.auth.mode=token).
+ * POST /api/v1/auth/token с HTTP Basic выдаёт токен нового входа. С действующим Bearer-токеном
+ * токен продлевается: пользователь перечитывается, момент входа сохраняется, поэтому
+ * продление не выходит за security.token.max-session, а удалённый пользователь или
+ * пользователь с изменёнными ролями получает 401.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/auth")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "security.auth.mode", havingValue = "token")
+public class AuthTokenController {
+
+    private final AuthTokenService authTokenService;
+    private final UserDetailsService userDetailsService;
+
+    @PostMapping("/token")
+    public Map<String, Object> issueToken(Authentication authentication) {
+        String token;
+        if (authentication.getDetails() instanceof AuthTokenService.AuthToken verified) {
+            log.info("Renewing API token for {}", verified.principal().getUsername());
+            token = authTokenService.renew(verified, userDetailsService)
+                    .orElseThrow(() -> new CredentialsExpiredException("Token can no longer be renewed, log in again"));
+        } else {
+            UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+            log.info("Issuing API token for {}", principal.getUsername());
+            token = authTokenService.issue(principal);
+        }
+        Instant expiresAt = authTokenService.verify(token).orElseThrow().expiresAt();
+        return Map.of(
+                "token", token,
+                "tokenType", "Bearer",
+                "expiresIn", Duration.between(Instant.now(), expiresAt).toSeconds());
+    }
+}
@@ -0,0 +1,82 @@
+package ru.kata.spring.boot_security.demo.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.kata.spring.boot_security.demo.dto.UserSuggestionDto;
+import ru.kata.spring.boot_security.demo.search.UserSearchIndex;
+import ru.kata.spring.boot_security.demo.service.UserField;
+import ru.kata.spring.boot_security.demo.service.UserQueryService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JSON API пользователей для других сервисов (v1, роль ADMIN, HTTP Basic).
+ * <p>
+ * fields - поля через запятую (id,firstName,lastName,age,username,email,roles), по умолчанию все.
+ * <ul>
+ *     <li>GET /api/v1/users/{id} - один пользователь;</li>
+ *     <li>GET /api/v1/users?ids=1,2,3 или POST /api/v1/users/batch с массивом id -
+ *     пакетный запрос, ответ {"users": [...], "missing": [...]};</li>
+ *     <li>GET /api/v1/users - все пользователи потоковым JSON-массивом;</li>
+ *     <li>GET /api/v1/users/search?q=...&amp;limit=... - type-ahead поиск по имени, фамилии, username и email.</li>
+ * </ul>
+ */
+@Slf4j
+@RestController
+@RequestMapping(path = "/api/v1/users", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+public class UserApiController {
+
+    private final UserQueryService userQueryService;
+    private final UserSearchIndex searchIndex;
+
+    /** Подсказки по подстроке из индекса в памяти, лучшие совпадения первыми; без запроса в БД. */
+    @GetMapping("/search")
+    public List<UserSuggestionDto> search(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        return searchIndex.search(q, limit);
+    }
+
+    /** Один пользователь; 404, если его нет. */
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getUser(@PathVariable Long id,
+                                                       @RequestParam(required = false) String fields) {
+        log.debug("API get user id={}, fields={}", id, fields);
+        return ResponseEntity.of(userQueryService.findUser(id, UserField.parse(fields)));
+    }
+
+    /** Без ids - все пользователи потоком, иначе - пакетный запрос. */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> getUsers(@RequestParam(required = false) List<Long> ids,
+                                                          @RequestParam(required = false) String fields) {
+        Set<UserField> selected = UserField.parse(fields);
+        if (ids == null) {
+            log.debug("API streaming all users, fields={}", fields);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> userQueryService.writeAllUsers(selected, out));
+        }
+        return batch(ids, selected);
+    }
+
+    /** Пакетный запрос для длинных списков id: тело - JSON-массив id. */
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getUsersBatch(@RequestBody List<Long> ids,
+                                                               @RequestParam(required = false) String fields) {
+        return batch(ids, UserField.parse(fields));
+    }
+
+    /** Список id проверяется до начала ответа, чтобы ошибка пришла статусом 400. */
+    private ResponseEntity<StreamingResponseBody> batch(List<Long> ids, Set<UserField> fields) {
+        List<Long> normalized = userQueryService.normalizeIds(ids);
+        log.debug("API batch lookup of {} ids, fields={}", normalized.size(), fields);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> userQueryService.writeUsersByIds(normalized, fields, out));
+    }
+}
@@ -0,0 +1,52 @@
+package ru.kata.spring.boot_security.demo.controllers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import ru.kata.spring.boot_security.demo.controller.AdminAvailabilityController;
+import ru.kata.spring.boot_security.demo.controller.AdminExportController;
+import ru.kata.spring.boot_security.demo.controller.AuthTokenController;
+import ru.kata.spring.boot_security.demo.controller.UserApiController;
+
+/**
+ * Ошибки JSON API: вместо страниц {@link GlobalExceptionHandler} - ProblemDetail со статусом.
+ */
+@Slf4j
+@RestControllerAdvice(assignableTypes = {UserApiController.class, AuthTokenController.class,
+        AdminExportController.class, AdminAvailabilityController.class})
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ApiExceptionHandler {
+
+    /**
+     * Неизвестное поле или формат выгрузки, пустой или слишком длинный список id, проверка
+     * доступности без username и email, нечитаемые параметры.
+     */
+    @ExceptionHandler({IllegalArgumentException.class, MethodArgumentTypeMismatchException.class,
+            MissingServletRequestParameterException.class, HttpMessageNotReadableException.class})
+    public ProblemDetail onBadRequest(Exception ex) {
+        log.warn("API bad request: {}", ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    /** Токен больше нельзя продлить: пользователь удалён или его роли изменились. */
+    @ExceptionHandler(AuthenticationException.class)
+    public ProblemDetail onUnauthorized(AuthenticationException ex) {
+        log.info("API authentication rejected: {}", ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.UNAUTHORIZED, ex.getMessage());
+    }
+
+    /** Любые другие исключения. */
+    @ExceptionHandler(Exception.class)
+    public ProblemDetail onAnyException(Exception ex) {
+        log.error("Unhandled API exception", ex);
+        return ProblemDetail.forStatus(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
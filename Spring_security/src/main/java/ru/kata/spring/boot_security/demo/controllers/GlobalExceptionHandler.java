@@ -1,6 +1,9 @@
 package ru.kata.spring.boot_security.demo.controllers;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
+import ru.kata.spring.boot_security.demo.service.UserAlreadyExistsException;
 import org.springframework.validation.*;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
@@ -12,6 +15,7 @@ import java.util.stream.Collectors;
  * Глобальный обработчик ошибок:
  * – валидации (@Valid)
  * – доступа (403)
+ * – конфликта версий и занятых username/email (409)
  * – прочие (500)
  */
 @ControllerAdvice
@@ -35,6 +39,22 @@ public class GlobalExceptionHandler {
         return "403";
     }
 
+    /** Конфликт версий: пользователя изменили после открытия формы. */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String onOptimisticLock(OptimisticLockingFailureException ex, Model model) {
+        model.addAttribute("errorMessage", "Пользователь был изменён другим администратором, откройте форму заново");
+        return "error";
+    }
+
+    /** Занятые username/email при создании пользователя. */
+    @ExceptionHandler(UserAlreadyExistsException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String onUserAlreadyExists(UserAlreadyExistsException ex, Model model) {
+        model.addAttribute("errorMessage", "Пользователь с таким " + ex.getField() + " уже существует");
+        return "error";
+    }
+
     /** Любые другие исключения. */
     @ExceptionHandler(Exception.class)
     public String onAnyException(Exception ex, Model model) {
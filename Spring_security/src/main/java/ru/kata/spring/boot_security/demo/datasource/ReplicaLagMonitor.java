@@ -0,0 +1,127 @@
+package ru.kata.spring.boot_security.demo.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Отставание реплики по heartbeat: поток {@code replica-lag} пишет время в {@code replica_heartbeat}
+ * на primary и читает его с реплики. Реплика пригодна, пока отставание не больше
+ * {@code datasource.replica.max-lag}; до первого замера и при ошибке - нет. Часы узлов должны быть синхронизированы.
+ * Метрики - {@code datasource.replica.lag} (секунды, NaN - неизвестно) и {@code datasource.replica.usable}.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements SmartLifecycle {
+
+    private static final String UPDATE_SQL = "update replica_heartbeat set beat_at = ? where id = 1";
+    private static final String INSERT_SQL = "insert into replica_heartbeat (id, beat_at) values (1, ?)";
+    private static final String SELECT_SQL = "select beat_at from replica_heartbeat where id = 1";
+
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long intervalNanos;
+    private final long maxLagMillis;
+
+    /** Последнее измеренное отставание, мс; {@code -1} - неизвестно. */
+    private volatile long lagMillis = -1;
+    private volatile boolean replicaUsable;
+
+    private volatile boolean running;
+    private volatile Thread monitorThread;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, MeterRegistry meterRegistry,
+                             Duration heartbeatInterval, Duration maxLag) {
+        this.primaryJdbcTemplate = new JdbcTemplate(primary);
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.intervalNanos = heartbeatInterval.toNanos();
+        this.maxLagMillis = maxLag.toMillis();
+        Gauge.builder("datasource.replica.lag", this, m -> m.lagMillis < 0 ? Double.NaN : m.lagMillis / 1000.0)
+                .baseUnit("seconds").register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, m -> m.replicaUsable ? 1 : 0).register(meterRegistry);
+    }
+
+    /** Можно ли сейчас читать с реплики. */
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    /** Один цикл: heartbeat на primary, затем замер на реплике. */
+    void check() {
+        try {
+            beat();
+        } catch (RuntimeException e) {
+            log.warn("Replica heartbeat write failed: {}", e.toString());
+        }
+        try {
+            Timestamp beatAt = replicaJdbcTemplate.queryForObject(SELECT_SQL, Timestamp.class);
+            long lag = beatAt == null ? -1 : Math.max(0, System.currentTimeMillis() - beatAt.getTime());
+            boolean usable = lag >= 0 && lag <= maxLagMillis;
+            if (usable != replicaUsable) {
+                log.info("Replica {} for reads, lag {} ms", usable ? "enabled" : "disabled", lag);
+            }
+            lagMillis = lag;
+            replicaUsable = usable;
+        } catch (RuntimeException e) {
+            if (replicaUsable) {
+                log.warn("Replica disabled for reads: {}", e.toString());
+            }
+            lagMillis = -1;
+            replicaUsable = false;
+        }
+    }
+
+    private void beat() {
+        Timestamp now = Timestamp.from(Instant.now());
+        if (primaryJdbcTemplate.update(UPDATE_SQL, now) == 0) {
+            try {
+                primaryJdbcTemplate.update(INSERT_SQL, now);
+            } catch (DuplicateKeyException e) {
+                primaryJdbcTemplate.update(UPDATE_SQL, now);
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread thread = new Thread(() -> {
+            while (running) {
+                check();
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+        }, "replica-lag");
+        thread.setDaemon(true);
+        monitorThread = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = monitorThread;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(Duration.ofSeconds(10).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        monitorThread = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return monitorThread != null;
+    }
+}
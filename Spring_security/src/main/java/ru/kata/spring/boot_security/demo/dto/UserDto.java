@@ -36,4 +36,7 @@ public class UserDto {
 
     @NotEmpty(message = "Выберите хотя бы одну роль")
     private String[] roles;
+
+    /** Версия строки, с которой открыта форма редактирования. */
+    private Long version;
 }
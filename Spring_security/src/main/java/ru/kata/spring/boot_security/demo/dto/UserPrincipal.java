@@ -0,0 +1,52 @@
+package ru.kata.spring.boot_security.demo.dto;
+
+import lombok.Value;
+import lombok.With;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import ru.kata.spring.boot_security.demo.model.Role;
+import ru.kata.spring.boot_security.demo.model.User;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Неизменяемый снимок пользователя для Spring Security.
+ * <p>
+ * В отличие от JPA-сущности {@link User}, не привязан к persistence context
+ * и может безопасно кэшироваться и разделяться между потоками.
+ */
+@Value
+public class UserPrincipal implements UserDetails {
+
+    Long id;
+    String username;
+    String email;
+    @With
+    String password;
+    List<GrantedAuthority> authorities;
+
+    /** Снимает снимок с сущности (роли к этому моменту должны быть загружены). */
+    public static UserPrincipal of(User user) {
+        return of(user, role -> new SimpleGrantedAuthority(role.getAuthority()));
+    }
+
+    /** Снимает снимок с сущности, получая authority роли через {@code authorityOf}. */
+    public static UserPrincipal of(User user, Function<Role, GrantedAuthority> authorityOf) {
+        List<GrantedAuthority> authorities = user.getRoles().stream()
+                .map(authorityOf)
+                .toList();
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getEmail(),
+                user.getPassword(), authorities);
+    }
+
+    @Override
+    public boolean isAccountNonExpired() { return true; }
+    @Override
+    public boolean isAccountNonLocked() { return true; }
+    @Override
+    public boolean isCredentialsNonExpired() { return true; }
+    @Override
+    public boolean isEnabled() { return true; }
+}
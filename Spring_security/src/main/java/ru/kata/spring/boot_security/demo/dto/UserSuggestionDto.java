@@ -0,0 +1,18 @@
+package ru.kata.spring.boot_security.demo.dto;
+
+import lombok.*;
+
+/**
+ * Найденный пользователь в ответе type-ahead поиска.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSuggestionDto {
+
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String username;
+    private String email;
+}
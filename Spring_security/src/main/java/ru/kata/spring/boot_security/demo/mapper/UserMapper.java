@@ -1,10 +1,14 @@
 package ru.kata.spring.boot_security.demo.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 import ru.kata.spring.boot_security.demo.dto.UserDto;
+import ru.kata.spring.boot_security.demo.model.Role;
 import ru.kata.spring.boot_security.demo.model.User;
 
+import java.util.Set;
+
 /**
  * Маппер для преобразования между User и UserDto.
  */
@@ -14,5 +18,18 @@ public interface UserMapper {
     UserMapper INSTANCE = Mappers.getMapper(UserMapper.class);
 
     UserDto toDto(User user);       // Entity → DTO
+
+    @Mapping(target = "roles", ignore = true)   // роли проставляет сервис по именам
     User fromDto(UserDto dto);      // DTO → Entity
+
+    /** Роли → отсортированные имена ролей для DTO. */
+    default String[] toRoleNames(Set<Role> roles) {
+        if (roles == null) {
+            return new String[0];
+        }
+        return roles.stream()
+                .map(Role::getName)
+                .sorted()
+                .toArray(String[]::new);
+    }
 }
@@ -0,0 +1,62 @@
+package ru.kata.spring.boot_security.demo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики БД по методам контроллеров ({@code handler=AdminController.listUsers} и т.п.):
+ * db.request.duration, db.request.statements, db.request.entities.loaded,
+ * db.request.connection.acquire. Асинхронные ответы (/admin/export) не учитываются.
+ */
+@RequiredArgsConstructor
+public class DbMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = DbMetricsInterceptor.class.getName() + ".start";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+            DbRequestStats.begin();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        request.removeAttribute(START_ATTRIBUTE);
+        DbRequestStats.end();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        DbRequestStats stats = DbRequestStats.end();
+        if (!(handler instanceof HandlerMethod method) || !(start instanceof Long startNanos) || stats == null) {
+            return;
+        }
+        Tags tags = Tags.of("handler",
+                method.getBeanType().getSimpleName() + "." + method.getMethod().getName());
+
+        Timer.builder("db.request.duration")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.summary("db.request.statements", tags).record(stats.getStatements());
+        meterRegistry.summary("db.request.entities.loaded", tags).record(stats.getEntitiesLoaded());
+        meterRegistry.timer("db.request.connection.acquire", tags)
+                .record(stats.getConnectionAcquireNanos(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.kata.spring.boot_security.demo.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Слушатель сессии Hibernate: SQL-выражения и время получения соединения.
+ * Подключается через hibernate.session.events.auto.
+ */
+public class HibernateDbStatsListener implements SessionEventListener {
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        DbRequestStats.onStatementPrepared();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        DbRequestStats.onConnectionAcquireStart();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        DbRequestStats.onConnectionAcquireEnd();
+    }
+}
@@ -0,0 +1,38 @@
+package ru.kata.spring.boot_security.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import ru.kata.spring.boot_security.demo.coherence.CacheRegion;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала изменений для согласования кэшей между узлами.
+ * Пишется в транзакции изменения, читается CacheChangePoller на всех узлах, удаляется по возрасту.
+ */
+@Entity
+@Table(name = "cache_changes", indexes = @Index(name = "ix_cache_changes_created_at", columnList = "created_at"))
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Узел, сделавший изменение: свои записи узел пропускает. */
+    @Column(name = "node_id", nullable = false, length = 36)
+    private String nodeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CacheRegion region;
+
+    /** Id изменённой сущности; null для ролей - справочник сбрасывается целиком. */
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
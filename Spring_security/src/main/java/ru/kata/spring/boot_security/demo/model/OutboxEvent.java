@@ -0,0 +1,37 @@
+package ru.kata.spring.boot_security.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import ru.kata.spring.boot_security.demo.outbox.UserChangeType;
+
+import java.time.Instant;
+
+/**
+ * Событие об изменении пользователя, ожидающее доставки (transactional outbox).
+ * Пишется в транзакции изменения users, удаляется после доставки.
+ */
+@Entity
+@Table(name = "user_outbox")
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 32)
+    private UserChangeType type;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /** Состояние пользователя после изменения, JSON (без пароля). */
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,24 @@
+package ru.kata.spring.boot_security.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Отметка времени, которую узлы пишут на primary, а ReplicaLagMonitor читает с реплики.
+ * Одна строка с {@code id = 1}.
+ */
+@Entity
+@Table(name = "replica_heartbeat")
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicaHeartbeat {
+
+    @Id
+    private Long id;
+
+    @Column(name = "beat_at", nullable = false)
+    private Instant beatAt;
+}
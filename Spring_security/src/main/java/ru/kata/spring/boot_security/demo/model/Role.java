@@ -3,12 +3,14 @@ package ru.kata.spring.boot_security.demo.model;
 import lombok.*;
 import org.springframework.security.core.GrantedAuthority;
 import jakarta.persistence.*;
+import ru.kata.spring.boot_security.demo.service.RoleChangeListener;
 
 /**
  * Сущность роли, реализует GrantedAuthority.
  */
 @Entity
 @Table(name = "roles")
+@EntityListeners(RoleChangeListener.class)
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
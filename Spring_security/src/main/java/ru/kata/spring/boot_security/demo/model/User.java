@@ -3,6 +3,7 @@ package ru.kata.spring.boot_security.demo.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Set;
 
@@ -10,7 +11,10 @@ import java.util.Set;
  * Сущность пользователя, реализует Spring Security UserDetails.
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "ux_users_username", columnList = "username", unique = true),
+        @Index(name = "ux_users_email", columnList = "email", unique = true)
+})
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,26 +29,35 @@ public class User implements UserDetails {
     private String lastName;
     private int age;
 
-    /** Логин пользователя, уникален. */
-    @Column(unique = true, nullable = false)
+    /** Логин пользователя, уникален (индекс ux_users_username). */
+    @Column(nullable = false)
     private String username;
 
-    /** Email пользователя, уникален. */
+    /** Email пользователя, уникален (индекс ux_users_email). */
     @Email
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
     /** Зашифрованный пароль. */
     @Column(nullable = false)
     private String password;
 
-    /** Роли пользователя, выгружаем EAGER, чтобы сразу были в контексте безопасности. */
-    @ManyToMany(fetch = FetchType.EAGER)
+    /**
+     * Роли пользователя. Загружаются лениво: там, где роли нужны (логин, список админки,
+     * форма редактирования), репозиторий подтягивает их явным fetch join / entity graph.
+     */
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "users_roles",
             joinColumns = @JoinColumn(name = "user_id"),
             inverseJoinColumns = @JoinColumn(name = "role_id"))
     private Set<Role> roles;
 
+    /** Версия строки для оптимистической блокировки. */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     // --- Реализация UserDetails ---
 
     @Override
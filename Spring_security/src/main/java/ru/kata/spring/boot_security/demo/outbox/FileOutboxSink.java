@@ -0,0 +1,53 @@
+package ru.kata.spring.boot_security.demo.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Доставка в файл для локальной проверки: по строке NDJSON на событие,
+ * {@code {"id", "type", "userId", "occurredAt", "payload": {...}}}, дописывается в {@code outbox.file}.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+
+    public FileOutboxSink(ObjectMapper objectMapper, @Value("${outbox.file:outbox/events.ndjson}") Path file) {
+        this.objectMapper = objectMapper;
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void deliver(List<UserChangeEvent> events) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (UserChangeEvent event : events) {
+                ObjectNode line = objectMapper.createObjectNode()
+                        .put("id", event.id())
+                        .put("type", event.type().name())
+                        .put("userId", event.userId())
+                        .put("occurredAt", event.occurredAt().toString());
+                line.set("payload", objectMapper.readTree(event.payload()));
+                out.write(objectMapper.writeValueAsString(line));
+                out.write('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.kata.spring.boot_security.demo.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Доставка внутри приложения: каждое событие публикуется как {@link UserChangeEvent}
+ * через {@link ApplicationEventPublisher}, подписчики - обычные {@code @EventListener}.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "in-process", matchIfMissing = true)
+@RequiredArgsConstructor
+public class InProcessOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher publisher;
+
+    @Override
+    public void deliver(List<UserChangeEvent> events) {
+        events.forEach(publisher::publishEvent);
+    }
+}
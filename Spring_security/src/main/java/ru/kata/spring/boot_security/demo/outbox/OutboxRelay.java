@@ -0,0 +1,155 @@
+package ru.kata.spring.boot_security.demo.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kata.spring.boot_security.demo.model.OutboxEvent;
+import ru.kata.spring.boot_security.demo.repository.OutboxEventRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Поток outbox-relay: пачками (outbox.relay.batch-size) по порядку id доставляет события
+ * из user_outbox в OutboxSink и удаляет доставленные. Неполная пачка - ожидание
+ * outbox.relay.poll-interval или wakeUp() после коммита; ошибка получателя - повтор
+ * с экспоненциальной задержкой до outbox.relay.max-backoff.
+ * <p>
+ * Доставка "хотя бы один раз", один ретранслятор на кластер (на остальных узлах
+ * outbox.relay.enabled=false). Метрики - outbox.relay.delivered/failures/batch.
+ */
+@Slf4j
+@Component
+public class OutboxRelay implements SmartLifecycle {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollIntervalNanos;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Counter delivered;
+    private final Counter failures;
+    private final Timer batchTimer;
+
+    private volatile boolean running;
+    private volatile Thread relayThread;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxSink sink,
+                       TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                       @Value("${outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${outbox.relay.batch-size:200}") int batchSize,
+                       @Value("${outbox.relay.poll-interval:1s}") Duration pollInterval,
+                       @Value("${outbox.relay.initial-backoff:200ms}") Duration initialBackoff,
+                       @Value("${outbox.relay.max-backoff:1m}") Duration maxBackoff) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollIntervalNanos = pollInterval.toNanos();
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.delivered = meterRegistry.counter("outbox.relay.delivered");
+        this.failures = meterRegistry.counter("outbox.relay.failures");
+        this.batchTimer = meterRegistry.timer("outbox.relay.batch");
+    }
+
+    /** Есть новые события: прервать ожидание очередного опроса. */
+    public void wakeUp() {
+        Thread thread = relayThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::relayLoop, "outbox-relay");
+        thread.setDaemon(true);
+        relayThread = thread;
+        thread.start();
+        log.info("Outbox relay started: sink {}, batch size {}", sink.getClass().getSimpleName(), batchSize);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = relayThread;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(Duration.ofSeconds(10).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        relayThread = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return relayThread != null;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    private void relayLoop() {
+        long backoffNanos = 0;
+        while (running) {
+            int relayed;
+            try {
+                relayed = relayBatch();
+                backoffNanos = 0;
+            } catch (Exception e) {
+                failures.increment();
+                backoffNanos = backoffNanos == 0 ? initialBackoffNanos : Math.min(backoffNanos * 2, maxBackoffNanos);
+                log.warn("Outbox delivery failed, retrying in {} ms: {}", backoffNanos / 1_000_000, e.toString());
+                sleepIgnoringWakeUps(backoffNanos);
+                continue;
+            }
+            if (relayed < batchSize && running) {
+                LockSupport.parkNanos(this, pollIntervalNanos);
+            }
+        }
+    }
+
+    private int relayBatch() throws Exception {
+        List<OutboxEvent> batch = outboxEventRepository.findAllByOrderByIdAsc(Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<UserChangeEvent> events = batch.stream()
+                .map(e -> new UserChangeEvent(e.getId(), e.getType(), e.getUserId(), e.getCreatedAt(), e.getPayload()))
+                .toList();
+        Timer.Sample sample = Timer.start();
+        sink.deliver(events);
+        sample.stop(batchTimer);
+        List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deleteByIdIn(ids));
+        delivered.increment(events.size());
+        return events.size();
+    }
+
+    private void sleepIgnoringWakeUps(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long left;
+        while (running && (left = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, left);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.kata.spring.boot_security.demo.outbox;
+
+import java.util.List;
+
+/**
+ * Получатель событий OutboxRelay. Встроенные: outbox.sink=in-process (события Spring, по умолчанию)
+ * и outbox.sink=file (NDJSON); для брокера - outbox.sink=custom и свой бин.
+ */
+public interface OutboxSink {
+
+    /**
+     * Доставляет пачку в порядке записи. Исключение означает, что пачка не доставлена:
+     * она будет отправлена целиком повторно, поэтому получатель должен переносить повторы.
+     */
+    void deliver(List<UserChangeEvent> events) throws Exception;
+}
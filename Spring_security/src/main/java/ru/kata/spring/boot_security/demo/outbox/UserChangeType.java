@@ -0,0 +1,10 @@
+package ru.kata.spring.boot_security.demo.outbox;
+
+/**
+ * Вид изменения пользователя в событии outbox.
+ */
+public enum UserChangeType {
+    USER_CREATED,
+    USER_UPDATED,
+    USER_DELETED
+}
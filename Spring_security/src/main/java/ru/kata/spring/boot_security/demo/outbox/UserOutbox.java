@@ -0,0 +1,39 @@
+package ru.kata.spring.boot_security.demo.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kata.common.tx.AfterCommit;
+import ru.kata.spring.boot_security.demo.model.OutboxEvent;
+import ru.kata.spring.boot_security.demo.repository.OutboxEventRepository;
+
+import java.time.Instant;
+
+/**
+ * Запись событий об изменениях пользователей в user_outbox - только внутри транзакции изменения,
+ * атомарно с ней. После коммита будит OutboxRelay.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserOutbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final OutboxRelay relay;
+
+    /** Событие с состоянием пользователя после изменения (сериализуется в JSON). */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(UserChangeType type, Long userId, Object state) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(state);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload", e);
+        }
+        outboxEventRepository.save(new OutboxEvent(null, type, userId, payload, Instant.now()));
+        AfterCommit.run(relay::wakeUp);
+    }
+}
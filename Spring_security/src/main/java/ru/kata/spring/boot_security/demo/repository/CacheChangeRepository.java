@@ -0,0 +1,33 @@
+package ru.kata.spring.boot_security.demo.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.kata.spring.boot_security.demo.model.CacheChange;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий для CacheChange.
+ */
+public interface CacheChangeRepository extends JpaRepository<CacheChange, Long> {
+
+    /** Следующая пачка изменений после уже прочитанного id. */
+    List<CacheChange> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /** Изменения, закоммиченные позже записей с большими id (пропуски в последовательности). */
+    List<CacheChange> findByIdIn(Collection<Long> ids);
+
+    /** Последний id среди записей старше {@code before}; null, если таких нет. */
+    @Query("select max(c.id) from CacheChange c where c.createdAt < :before")
+    Long findMaxIdCreatedBefore(@Param("before") Instant before);
+
+    /** Удалить записи старше {@code before} одним DELETE. */
+    @Modifying
+    @Query("delete from CacheChange c where c.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
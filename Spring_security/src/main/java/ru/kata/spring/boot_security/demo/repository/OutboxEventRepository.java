@@ -0,0 +1,25 @@
+package ru.kata.spring.boot_security.demo.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.kata.spring.boot_security.demo.model.OutboxEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий для OutboxEvent.
+ */
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /** Следующая пачка недоставленных событий по порядку записи. */
+    List<OutboxEvent> findAllByOrderByIdAsc(Limit limit);
+
+    /** Удалить доставленные события одним DELETE. */
+    @Modifying
+    @Query("delete from OutboxEvent e where e.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -1,7 +1,17 @@
 package ru.kata.spring.boot_security.demo.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.kata.spring.boot_security.demo.model.User;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -11,4 +21,80 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+
+    /** Подтверждение положительного ответа фильтра в UserAvailabilityService. */
+    boolean existsByUsername(String username);
+    boolean existsByEmail(String email);
+
+    /**
+     * Поиск для логина: одним запросом находит пользователей, у которых username
+     * или email равен {@code login}, и сразу подтягивает их роли.
+     * Может вернуть двух разных пользователей — выбор по приоритету делает вызывающий код.
+     */
+    @Query("select u from User u left join fetch u.roles " +
+            "where u.username = :login or u.email = :login")
+    List<User> findAllByLogin(@Param("login") String login);
+
+    /** Пользователь по id вместе с ролями (для формы редактирования). */
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findWithRolesById(Long id);
+
+    /**
+     * Первый шаг списка админки: страница id пользователей (плюс count-запрос для {@link Page}).
+     * Пагинация по id, а не по строкам join с ролями, поэтому LIMIT/OFFSET выполняются в БД.
+     */
+    @Query("select u.id from User u")
+    Page<Long> findIdPage(Pageable pageable);
+
+    /** Второй шаг списка админки: пользователи страницы вместе с ролями одним запросом. */
+    @EntityGraph(attributePaths = "roles")
+    @Query("select u from User u where u.id in :ids")
+    List<User> findAllWithRolesByIdIn(@Param("ids") Collection<Long> ids, Sort sort);
+
+    /**
+     * Обновление полей пользователя одним UPDATE с проверкой версии.
+     *
+     * @return число обновлённых строк: 0 - пользователя нет или версия устарела
+     */
+    @Modifying
+    @Query("update User u set u.firstName = :firstName, u.lastName = :lastName, u.age = :age, " +
+            "u.username = :username, u.email = :email, u.password = :password, u.version = u.version + 1 " +
+            "where u.id = :id and u.version = :version")
+    int updateIfVersion(@Param("id") Long id, @Param("version") Long version,
+                        @Param("firstName") String firstName, @Param("lastName") String lastName,
+                        @Param("age") int age, @Param("username") String username,
+                        @Param("email") String email, @Param("password") String password);
+
+    /**
+     * Перезапись хэша пароля при смене алгоритма или стоимости после входа.
+     * Версию не увеличивает: видимые данные пользователя не меняются, открытая форма редактирования
+     * не должна из-за этого устареть.
+     */
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+
+    /** Удаляет связи пользователя с ролями, которых нет в {@code roleIds} (список не пустой). */
+    @Modifying
+    @Query(value = "delete from users_roles where user_id = :userId and role_id not in (:roleIds)",
+            nativeQuery = true)
+    int deleteRolesNotIn(@Param("userId") Long userId, @Param("roleIds") Collection<Long> roleIds);
+
+    /** Добавляет пользователю недостающие роли из {@code roleIds} одним INSERT ... SELECT. */
+    @Modifying
+    @Query(value = "insert into users_roles (user_id, role_id) select :userId, r.id from roles r " +
+            "where r.id in (:roleIds) and not exists " +
+            "(select 1 from users_roles ur where ur.user_id = :userId and ur.role_id = r.id)",
+            nativeQuery = true)
+    int insertMissingRoles(@Param("userId") Long userId, @Param("roleIds") Collection<Long> roleIds);
+
+    /**
+     * Удаление пользователя без предварительной загрузки сущности.
+     * Связи в {@code users_roles} Hibernate удаляет сам отдельным DELETE перед строкой пользователя.
+     *
+     * @return число удалённых строк: 0 - пользователя не было
+     */
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(@Param("id") Long id);
 }
@@ -0,0 +1,110 @@
+package ru.kata.spring.boot_security.demo.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import ru.kata.common.search.TrigramIndex;
+import ru.kata.common.tx.AfterCommit;
+import ru.kata.spring.boot_security.demo.dto.UserSuggestionDto;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Поисковый индекс пользователей в памяти (firstName, lastName, username, email) для type-ahead.
+ * <p>
+ * Строится при старте одним проходом JDBC-курсора по users, дальше обновляется
+ * сервисом записи после коммита. Во время пересборки изменения идут в оба индекса,
+ * а строка из курсора не перезаписывает пользователя, изменённого после начала прохода.
+ * Метрики - {@code users.search} (таймер) и {@code users.search.index.size}.
+ */
+@Slf4j
+@Component
+public class UserSearchIndex {
+
+    private static final String SELECT_SQL = "select id, first_name, last_name, username, email from users";
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final int maxResults;
+    private final Timer searchTimer;
+
+    private volatile TrigramIndex<UserSuggestionDto> index = new TrigramIndex<>();
+    private volatile TrigramIndex<UserSuggestionDto> building;
+    private final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+    private final Object buildLock = new Object();
+
+    public UserSearchIndex(DataSource dataSource, MeterRegistry meterRegistry,
+                           @Value("${users.export.fetch-size:1000}") int fetchSize,
+                           @Value("${users.search.max-results:20}") int maxResults) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.maxResults = maxResults;
+        this.searchTimer = meterRegistry.timer("users.search");
+        Gauge.builder("users.search.index.size", this, search -> search.index.size()).register(meterRegistry);
+    }
+
+    /** До limit (не больше users.search.max-results) пользователей, содержащих query в любом поле. */
+    public List<UserSuggestionDto> search(String query, Integer limit) {
+        int k = limit == null ? maxResults : Math.min(Math.max(limit, 1), maxResults);
+        return searchTimer.record(() -> index.search(query, k));
+    }
+
+    /** Пользователь создан или изменён - попадёт в индекс после коммита. */
+    public void indexAfterCommit(UserSuggestionDto user) {
+        AfterCommit.run(() -> apply(user.getId(), target -> put(target, user)));
+    }
+
+    /** Пользователь удалён - уйдёт из индекса после коммита. */
+    public void removeAfterCommit(Long id) {
+        AfterCommit.run(() -> apply(id, target -> target.remove(id)));
+    }
+
+    /** Полная сборка из таблицы users; при старте приложения. */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        TrigramIndex<UserSuggestionDto> next = new TrigramIndex<>();
+        changedDuringBuild.clear();
+        building = next;
+        try {
+            cursorJdbcTemplate.query(SELECT_SQL, (RowCallbackHandler) rs -> {
+                UserSuggestionDto user = new UserSuggestionDto(rs.getLong(1), rs.getString(2),
+                        rs.getString(3), rs.getString(4), rs.getString(5));
+                synchronized (buildLock) {
+                    if (!changedDuringBuild.contains(user.getId())) {
+                        put(next, user);
+                    }
+                }
+            });
+            index = next;
+        } finally {
+            building = null;
+        }
+        log.info("User search index built: {} users", next.size());
+    }
+
+    /** building читается раньше index: после подмены изменение попадёт в новый индекс. */
+    private void apply(Long id, Consumer<TrigramIndex<UserSuggestionDto>> change) {
+        TrigramIndex<UserSuggestionDto> next = building;
+        if (next != null) {
+            synchronized (buildLock) {
+                changedDuringBuild.add(id);
+                change.accept(next);
+            }
+        }
+        change.accept(index);
+    }
+
+    private static void put(TrigramIndex<UserSuggestionDto> target, UserSuggestionDto user) {
+        target.put(user.getId(), user, user.getFirstName(), user.getLastName(), user.getUsername(), user.getEmail());
+    }
+}
@@ -0,0 +1,94 @@
+package ru.kata.spring.boot_security.demo.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.kata.spring.boot_security.demo.dto.UserPrincipal;
+
+import java.io.IOException;
+
+/**
+ * Аутентифицирует запрос по токену из заголовка {@code Authorization: Bearer}
+ * или из cookie - без обращения к БД и сессии.
+ * <p>
+ * Токен из cookie перевыпускается, когда прошла половина срока, поэтому
+ * у активного пользователя короткий срок жизни токена незаметен. Перед перевыпуском
+ * принципал перечитывается через {@link UserDetailsService} (то есть через PrincipalCache):
+ * удалённый пользователь или пользователь с изменёнными ролями теряет cookie и
+ * должен войти заново. Момент входа переносится в новый токен, так что сессия
+ * в любом случае не длится дольше security.token.max-session. Проверенный токен
+ * кладётся в details аутентификации - по нему продлевает токен {@code AuthTokenController}.
+ * Не бин: фильтр добавляется только в цепочки безопасности, не в контейнер.
+ */
+public class AuthTokenFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final AuthTokenService tokenService;
+    private final UserDetailsService userDetailsService;
+    private final SecurityContextHolderStrategy contextHolder = SecurityContextHolder.getContextHolderStrategy();
+
+    public AuthTokenFilter(AuthTokenService tokenService, UserDetailsService userDetailsService) {
+        this.tokenService = tokenService;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        boolean fromCookie = header == null || !header.startsWith(BEARER);
+        String token = fromCookie ? cookieValue(request) : header.substring(BEARER.length());
+        if (token != null && !token.isEmpty()) {
+            authenticate(token, fromCookie, response);
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void authenticate(String token, boolean fromCookie, HttpServletResponse response) {
+        AuthTokenService.AuthToken verified = tokenService.verify(token).orElse(null);
+        if (verified == null) {
+            if (fromCookie) {
+                tokenService.clearCookie(response);
+            }
+            return;
+        }
+        UserPrincipal principal = verified.principal();
+        if (fromCookie && tokenService.needsRefresh(verified)) {
+            String renewed = tokenService.renew(verified, userDetailsService).orElse(null);
+            if (renewed == null) {
+                tokenService.clearCookie(response);
+                return;
+            }
+            tokenService.writeCookie(response, renewed);
+        }
+        UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+                principal, null, principal.getAuthorities());
+        authentication.setDetails(verified);
+        SecurityContext context = contextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        contextHolder.setContext(context);
+    }
+
+    private String cookieValue(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (tokenService.getCookieName().equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+}
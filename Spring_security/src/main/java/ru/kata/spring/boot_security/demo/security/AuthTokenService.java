@@ -0,0 +1,266 @@
+package ru.kata.spring.boot_security.demo.security;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import ru.kata.spring.boot_security.demo.dto.UserPrincipal;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Выпуск и проверка подписанных токенов для режима security.auth.mode=token.
+ * <p>
+ * Формат: {@code <kid>.<payload>.<signature>}, где payload - base64url строк
+ * {@code id, exp, iat, authorities, username}, а signature - HMAC-SHA256 от {@code <kid>.<payload>}.
+ * {@code iat} - момент входа: при перевыпуске он переносится без изменений, и токен
+ * не продлевается дальше {@code iat + security.token.max-session}.
+ * Проверка не ходит ни в БД, ни в сессию. Ротация ключей: новый ключ сначала добавляется
+ * в security.token.keys на всех узлах, затем становится security.token.active-key,
+ * старый удаляется не раньше чем через security.token.ttl.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "security.auth.mode", havingValue = "token")
+public class AuthTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Map<String, ThreadLocal<Mac>> macs;
+    private final String activeKeyId;
+    private final Duration ttl;
+    private final Duration maxSession;
+    private final String cookieName;
+    private final boolean secureCookie;
+    private final Clock clock;
+    private final Map<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AuthTokenService(@Value("${security.token.keys}") String keys,
+                            @Value("${security.token.active-key}") String activeKeyId,
+                            @Value("${security.token.ttl:15m}") Duration ttl,
+                            @Value("${security.token.max-session:8h}") Duration maxSession,
+                            @Value("${security.token.cookie-name:AUTH_TOKEN}") String cookieName,
+                            @Value("${security.token.cookie-secure:true}") boolean secureCookie) {
+        this(keys, activeKeyId, ttl, maxSession, cookieName, secureCookie, Clock.systemUTC());
+    }
+
+    AuthTokenService(String keys, String activeKeyId, Duration ttl, Duration maxSession, String cookieName,
+                     boolean secureCookie, Clock clock) {
+        this.macs = parseKeys(keys);
+        if (!macs.containsKey(activeKeyId)) {
+            throw new IllegalStateException("security.token.active-key '" + activeKeyId
+                    + "' is not listed in security.token.keys");
+        }
+        this.activeKeyId = activeKeyId;
+        this.ttl = ttl;
+        this.maxSession = maxSession;
+        this.cookieName = cookieName;
+        this.secureCookie = secureCookie;
+        this.clock = clock;
+        log.info("Token authentication enabled: keys={}, active={}, ttl={}, max-session={}",
+                macs.keySet(), activeKeyId, ttl, maxSession);
+    }
+
+    /** Проверенный токен: снимок принципала, срок действия и момент входа. */
+    public record AuthToken(UserPrincipal principal, Instant expiresAt, Instant issuedAt) {
+    }
+
+    public String getCookieName() {
+        return cookieName;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /** Выпускает токен активным ключом для нового входа. */
+    public String issue(UserPrincipal principal) {
+        return issue(principal, clock.instant());
+    }
+
+    /**
+     * Перевыпускает токен для {@code principal} (актуального, перечитанного из БД)
+     * с прежним моментом входа; срок не выходит за {@code iat + max-session}.
+     */
+    public String refresh(AuthToken token, UserPrincipal principal) {
+        return issue(principal, token.issuedAt());
+    }
+
+    /**
+     * Продлевает токен: принципал перечитывается через {@code users} (то есть через PrincipalCache),
+     * и новый токен с прежним моментом входа выпускается, только если пользователь существует,
+     * а id, username и роли не изменились. Иначе - пустой результат, нужен новый вход.
+     */
+    public Optional<String> renew(AuthToken token, UserDetailsService users) {
+        UserPrincipal principal = token.principal();
+        UserDetails current;
+        try {
+            current = users.loadUserByUsername(principal.getUsername());
+        } catch (UsernameNotFoundException e) {
+            return Optional.empty();
+        }
+        if (current instanceof UserPrincipal loaded
+                && Objects.equals(loaded.getId(), principal.getId())
+                && loaded.getUsername().equals(principal.getUsername())
+                && AuthorityUtils.authorityListToSet(loaded.getAuthorities())
+                        .equals(AuthorityUtils.authorityListToSet(principal.getAuthorities()))) {
+            return Optional.of(refresh(token, loaded));
+        }
+        return Optional.empty();
+    }
+
+    private String issue(UserPrincipal principal, Instant issuedAt) {
+        Instant sessionEnd = issuedAt.plus(maxSession);
+        Instant expiresAt = clock.instant().plus(ttl);
+        if (expiresAt.isAfter(sessionEnd)) {
+            expiresAt = sessionEnd;
+        }
+        StringBuilder roles = new StringBuilder();
+        for (GrantedAuthority authority : principal.getAuthorities()) {
+            if (!roles.isEmpty()) {
+                roles.append(',');
+            }
+            roles.append(authority.getAuthority());
+        }
+        String payload = principal.getId() + "\n" + expiresAt.getEpochSecond()
+                + "\n" + issuedAt.getEpochSecond() + "\n" + roles + "\n" + principal.getUsername();
+        String signed = activeKeyId + "." + ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return signed + "." + ENCODER.encodeToString(sign(activeKeyId, signed));
+    }
+
+    /** Проверяет подпись и срок; любой дефект токена - пустой результат. */
+    public Optional<AuthToken> verify(String token) {
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        if (first <= 0 || last == first) {
+            return Optional.empty();
+        }
+        String keyId = token.substring(0, first);
+        if (!macs.containsKey(keyId)) {
+            return Optional.empty();
+        }
+        try {
+            byte[] signature = DECODER.decode(token.substring(last + 1));
+            if (!MessageDigest.isEqual(signature, sign(keyId, token.substring(0, last)))) {
+                return Optional.empty();
+            }
+            String payload = new String(DECODER.decode(token.substring(first + 1, last)), StandardCharsets.UTF_8);
+            String[] parts = payload.split("\n", 5);
+            if (parts.length != 5) {
+                return Optional.empty();
+            }
+            Instant expiresAt = Instant.ofEpochSecond(Long.parseLong(parts[1]));
+            if (!clock.instant().isBefore(expiresAt)) {
+                return Optional.empty();
+            }
+            Instant issuedAt = Instant.ofEpochSecond(Long.parseLong(parts[2]));
+            UserPrincipal principal = new UserPrincipal(Long.valueOf(parts[0]), parts[4], null, "",
+                    toAuthorities(parts[3]));
+            return Optional.of(new AuthToken(principal, expiresAt, issuedAt));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Токен из cookie пора перевыпустить: прошло больше половины срока и сессия
+     * ещё не упёрлась в max-session. После этого предела токен просто истекает.
+     */
+    public boolean needsRefresh(AuthToken token) {
+        return token.expiresAt().isBefore(token.issuedAt().plus(maxSession))
+                && Duration.between(clock.instant(), token.expiresAt()).compareTo(ttl.dividedBy(2)) < 0;
+    }
+
+    public void writeCookie(HttpServletResponse response, String token) {
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie(token, ttl).toString());
+    }
+
+    public void clearCookie(HttpServletResponse response) {
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie("", Duration.ZERO).toString());
+    }
+
+    private ResponseCookie cookie(String value, Duration maxAge) {
+        return ResponseCookie.from(cookieName, value)
+                .httpOnly(true)
+                .secure(secureCookie)
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(maxAge)
+                .build();
+    }
+
+    private List<GrantedAuthority> toAuthorities(String roles) {
+        if (roles.isEmpty()) {
+            return List.of();
+        }
+        List<GrantedAuthority> result = new ArrayList<>(2);
+        for (String role : roles.split(",")) {
+            result.add(authorities.computeIfAbsent(role, SimpleGrantedAuthority::new));
+        }
+        return List.copyOf(result);
+    }
+
+    private byte[] sign(String keyId, String data) {
+        return macs.get(keyId).get().doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Формат security.token.keys: {@code kid:base64-секрет[,kid:base64-секрет...]}. */
+    private static Map<String, ThreadLocal<Mac>> parseKeys(String keys) {
+        Map<String, ThreadLocal<Mac>> result = new HashMap<>();
+        for (String entry : keys.split(",")) {
+            String trimmed = entry.trim();
+            int colon = trimmed.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalStateException("security.token.keys entry must be kid:base64-secret");
+            }
+            String keyId = trimmed.substring(0, colon);
+            byte[] secret = Base64.getDecoder().decode(trimmed.substring(colon + 1));
+            if (secret.length < MIN_KEY_BYTES) {
+                throw new IllegalStateException("Token key '" + keyId + "' must be at least "
+                        + MIN_KEY_BYTES + " bytes");
+            }
+            SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+            result.put(keyId, ThreadLocal.withInitial(() -> newMac(key)));
+        }
+        return Map.copyOf(result);
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC is not available", e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ru.kata.spring.boot_security.demo.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничение частоты попыток входа, чтобы перебор паролей не занимал все ядра BCrypt-ом.
+ * <p>
+ * Попытка проходит, только если есть токен в ведре её IP, в ведре логина и в общем ведре
+ * (проверяются в этом порядке). Если отказало более позднее ведро, токены ранних возвращаются:
+ * отклонённая попытка ничего не списывает, и перебор с одного адреса не съедает общий лимит.
+ * Ведро логина - это замедление, а не блокировка: пользователь ждёт секунды, а не минуты.
+ * <p>
+ * Общих ведер два: форма логина и HTTP Basic. Basic проверяет пароль на каждом запросе API
+ * и токен общего ведра не возвращает, поэтому у него своё ведро ({@code security.login-throttle.basic.*}):
+ * всплеск перебора на /login не отнимает лимит у API-клиентов, и наоборот. Клиентам, которым
+ * нужно больше запросов в секунду, чем позволяет BCrypt, - Bearer-токен, он через это ограничение не идёт.
+ * <p>
+ * Метрики: {@code auth.login.throttle{result=allowed|ip|username|global|basic}} и
+ * {@code auth.login.throttle.keys{bucket=ip|username}}.
+ */
+@Component
+@ConditionalOnProperty(name = "security.login-throttle.enabled", havingValue = "true", matchIfMissing = true)
+public class LoginThrottle {
+
+    /** Длиннее логин не бывает: ограничивает память на ключ для мусорных запросов. */
+    private static final int MAX_LOGIN_LENGTH = 100;
+
+    private final TokenBuckets byIp;
+    private final TokenBuckets byLogin;
+    private final Global formGlobal;
+    private final Global basicGlobal;
+
+    private final Counter allowed;
+    private final Counter rejectedByIp;
+    private final Counter rejectedByLogin;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${security.login-throttle.ip.capacity:30}") int ipCapacity,
+                         @Value("${security.login-throttle.ip.refill:2s}") Duration ipRefill,
+                         @Value("${security.login-throttle.username.capacity:10}") int loginCapacity,
+                         @Value("${security.login-throttle.username.refill:6s}") Duration loginRefill,
+                         @Value("${security.login-throttle.global.capacity:200}") int globalCapacity,
+                         @Value("${security.login-throttle.global.refill:10ms}") Duration globalRefill,
+                         @Value("${security.login-throttle.basic.capacity:500}") int basicCapacity,
+                         @Value("${security.login-throttle.basic.refill:2ms}") Duration basicRefill,
+                         @Value("${security.login-throttle.max-keys:100000}") long maxKeys) {
+        this.byIp = new TokenBuckets(ipCapacity, ipRefill, maxKeys);
+        this.byLogin = new TokenBuckets(loginCapacity, loginRefill, maxKeys);
+        this.formGlobal = new Global(globalCapacity, globalRefill, counter(meterRegistry, "global"));
+        this.basicGlobal = new Global(basicCapacity, basicRefill, counter(meterRegistry, "basic"));
+
+        this.allowed = counter(meterRegistry, "allowed");
+        this.rejectedByIp = counter(meterRegistry, "ip");
+        this.rejectedByLogin = counter(meterRegistry, "username");
+        Gauge.builder("auth.login.throttle.keys", byIp, TokenBuckets::size)
+                .tag("bucket", "ip").register(meterRegistry);
+        Gauge.builder("auth.login.throttle.keys", byLogin, TokenBuckets::size)
+                .tag("bucket", "username").register(meterRegistry);
+    }
+
+    /**
+     * Списывает попытку входа через форму.
+     *
+     * @return {@link Duration#ZERO}, если попытку можно проверять, иначе через сколько повторить
+     */
+    public Duration tryAcquire(String login, String ip) {
+        return Duration.ofNanos(tryAcquire(login, ip, System.nanoTime()));
+    }
+
+    /** Как {@link #tryAcquire(String, String)}, но для HTTP Basic: общее ведро - своё. */
+    public Duration tryAcquireBasic(String login, String ip) {
+        return Duration.ofNanos(tryAcquireBasic(login, ip, System.nanoTime()));
+    }
+
+    /**
+     * Возвращает токены ведер IP и логина после успешной проверки пароля: так HTTP Basic,
+     * который проверяет пароль на каждом запросе API, не упирается в лимиты перебора.
+     * Токен общего ведра Basic не возвращается - он ограничивает саму работу BCrypt.
+     */
+    public void refund(String login, String ip) {
+        byIp.refund(ipKey(ip));
+        byLogin.refund(loginKey(login));
+    }
+
+    long tryAcquire(String login, String ip, long now) {
+        return tryAcquire(login, ip, now, formGlobal);
+    }
+
+    long tryAcquireBasic(String login, String ip, long now) {
+        return tryAcquire(login, ip, now, basicGlobal);
+    }
+
+    private long tryAcquire(String login, String ip, long now, Global global) {
+        String ipKey = ipKey(ip);
+        long wait = byIp.tryAcquire(ipKey, now);
+        if (wait > 0) {
+            rejectedByIp.increment();
+            return wait;
+        }
+        String loginKey = loginKey(login);
+        wait = byLogin.tryAcquire(loginKey, now);
+        if (wait > 0) {
+            byIp.refund(ipKey);
+            rejectedByLogin.increment();
+            return wait;
+        }
+        wait = global.acquire(now);
+        if (wait > 0) {
+            byIp.refund(ipKey);
+            byLogin.refund(loginKey);
+            global.rejected.increment();
+            return wait;
+        }
+        allowed.increment();
+        return 0;
+    }
+
+    private static String ipKey(String ip) {
+        return ip != null ? ip : "";
+    }
+
+    /** Вход по username и email регистронезависимый - ключ тоже. */
+    private static String loginKey(String login) {
+        if (login == null) {
+            return "";
+        }
+        String key = login.strip().toLowerCase(Locale.ROOT);
+        return key.length() > MAX_LOGIN_LENGTH ? key.substring(0, MAX_LOGIN_LENGTH) : key;
+    }
+
+    /** Общее ведро узла (GCRA без ключей) и счётчик его отказов. */
+    private static final class Global {
+
+        private final AtomicLong full = new AtomicLong(System.nanoTime());
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final Counter rejected;
+
+        Global(int capacity, Duration refill, Counter rejected) {
+            this.intervalNanos = refill.toNanos();
+            this.burstNanos = capacity * intervalNanos;
+            this.rejected = rejected;
+        }
+
+        long acquire(long now) {
+            return TokenBuckets.acquire(full, now, intervalNanos, burstNanos);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.login.throttle").tag("result", result).register(meterRegistry);
+    }
+}
@@ -0,0 +1,124 @@
+package ru.kata.spring.boot_security.demo.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Пропускает попытку входа к аутентификации, только если {@link LoginThrottle} дал токен:
+ * отклонённая попытка не доходит ни до БД, ни до BCrypt.
+ * <p>
+ * Два варианта: POST формы логина ({@link #formLogin}) - отказ это редирект на страницу логина
+ * с параметром {@code throttled}; запрос API с HTTP Basic ({@link #httpBasic}) - отказ это 429.
+ * В обоих случаях выставляется {@code Retry-After}. Basic проверяет пароль на каждом запросе,
+ * поэтому списывает из своего общего ведра, а после успешной аутентификации токены IP и логина
+ * возвращаются.
+ * <p>
+ * IP - {@code request.getRemoteAddr()}: за балансировщиком это адрес клиента, только если
+ * включён server.forward-headers-strategy=native и балансировщик входит в
+ * server.tomcat.remoteip.internal-proxies.
+ * Не бин: фильтр добавляется только в цепочку безопасности, не в контейнер.
+ */
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+    private static final String BASIC = "basic ";
+
+    private final LoginThrottle throttle;
+    private final RequestMatcher loginRequest;
+    private final Function<HttpServletRequest, String> loginOf;
+    private final String rejectUrl;
+
+    private LoginThrottleFilter(LoginThrottle throttle, RequestMatcher loginRequest,
+                                Function<HttpServletRequest, String> loginOf, String rejectUrl) {
+        this.throttle = throttle;
+        this.loginRequest = loginRequest;
+        this.loginOf = loginOf;
+        this.rejectUrl = rejectUrl;
+    }
+
+    /** Форма логина: отказ - редирект на {@code rejectUrl}. */
+    public static LoginThrottleFilter formLogin(LoginThrottle throttle, String loginProcessingUrl,
+                                                String usernameParameter, String rejectUrl) {
+        return new LoginThrottleFilter(throttle,
+                PathPatternRequestMatcher.withDefaults().matcher(HttpMethod.POST, loginProcessingUrl),
+                request -> request.getParameter(usernameParameter), rejectUrl);
+    }
+
+    /** Любой запрос с {@code Authorization: Basic}: отказ - 429 Too Many Requests. */
+    public static LoginThrottleFilter httpBasic(LoginThrottle throttle) {
+        return new LoginThrottleFilter(throttle,
+                request -> basicCredentials(request) != null,
+                LoginThrottleFilter::basicUsername, null);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !loginRequest.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String login = loginOf.apply(request);
+        boolean basic = rejectUrl == null;
+        Duration wait = basic
+                ? throttle.tryAcquireBasic(login, request.getRemoteAddr())
+                : throttle.tryAcquire(login, request.getRemoteAddr());
+        if (wait.isZero()) {
+            chain.doFilter(request, response);
+            if (basic && isAuthenticated()) {
+                throttle.refund(login, request.getRemoteAddr());
+            }
+            return;
+        }
+        long seconds = Math.max(1, wait.plusMillis(999).toSeconds());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        if (rejectUrl != null) {
+            response.sendRedirect(request.getContextPath() + rejectUrl);
+        } else {
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+        }
+    }
+
+    private static boolean isAuthenticated() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken);
+    }
+
+    private static String basicCredentials(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BASIC, 0, BASIC.length())) {
+            return null;
+        }
+        return header.substring(BASIC.length()).trim();
+    }
+
+    /** Username из заголовка Basic; битый заголовок считается попыткой с пустым логином. */
+    private static String basicUsername(HttpServletRequest request) {
+        try {
+            String decoded = new String(Base64.getDecoder().decode(basicCredentials(request)),
+                    StandardCharsets.UTF_8);
+            int colon = decoded.indexOf(':');
+            return colon < 0 ? null : decoded.substring(0, colon);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
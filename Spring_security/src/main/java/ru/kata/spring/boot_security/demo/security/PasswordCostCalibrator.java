@@ -0,0 +1,70 @@
+package ru.kata.spring.boot_security.demo.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Подбор стоимости BCrypt под железо: наибольшая стоимость, при которой медиана проверки
+ * пароля на этой машине укладывается в целевую задержку. Запускать на хосте приложения:
+ * <pre>
+ * java -cp target/*-exec.jar -Dloader.main=ru.kata.spring.boot_security.demo.security.PasswordCostCalibrator \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher --target-ms 250
+ * </pre>
+ * Печатает замеры по стоимостям и строку {@code security.password.bcrypt-strength=...}.
+ * Каждая следующая стоимость вдвое дороже, поэтому замер останавливается на первой превысившей цель.
+ */
+public final class PasswordCostCalibrator {
+
+    static final int MIN_STRENGTH = 10;
+    static final int MAX_STRENGTH = 16;
+
+    private PasswordCostCalibrator() {
+    }
+
+    public static void main(String[] args) {
+        Duration target = Duration.ofMillis(250);
+        int samples = 5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--target-ms" -> target = Duration.ofMillis(Long.parseLong(args[i + 1]));
+                case "--samples" -> samples = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        int strength = calibrate(target, samples);
+        System.out.println("security.password.bcrypt-strength=" + strength);
+    }
+
+    /**
+     * Возвращает стоимость в диапазоне [{@value #MIN_STRENGTH}, {@value #MAX_STRENGTH}]:
+     * ниже минимума не опускается, даже если железо не успевает в цель.
+     */
+    static int calibrate(Duration target, int samples) {
+        int chosen = MIN_STRENGTH;
+        for (int strength = MIN_STRENGTH; strength <= MAX_STRENGTH; strength++) {
+            Duration median = medianMatch(strength, samples);
+            System.out.printf("strength %2d: %6d ms%n", strength, median.toMillis());
+            if (median.compareTo(target) > 0) {
+                break;
+            }
+            chosen = strength;
+        }
+        return chosen;
+    }
+
+    private static Duration medianMatch(int strength, int samples) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        String hash = encoder.encode("calibration-password");
+        encoder.matches("calibration-password", hash);
+        long[] nanos = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            encoder.matches("calibration-password", hash);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return Duration.ofNanos(nanos[samples / 2]);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.kata.spring.boot_security.demo.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Пул хэширования паролей перегружен: очередь полна или результат не получен вовремя.
+ * Для формы логина - повод повторить попытку позже, а не неверный пароль.
+ */
+public class PasswordHashingBusyException extends AuthenticationServiceException {
+
+    public PasswordHashingBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.kata.spring.boot_security.demo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket'ы по ключу в варианте GCRA: состояние ведра - одно число, момент,
+ * к которому ведро снова станет полным, и меняется через CAS без блокировок.
+ * <p>
+ * Ведра хранятся в Caffeine с ограничением по числу ключей. Ведро, к которому не обращались
+ * дольше времени полного пополнения, уже полное, поэтому его вытеснение по сроку ничего не меняет;
+ * при переполнении вытесняются редкие ключи.
+ */
+final class TokenBuckets {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    /**
+     * @param capacity       сколько попыток можно сделать подряд
+     * @param refillInterval за сколько восстанавливается одна попытка
+     * @param maxKeys        максимум ключей в памяти
+     */
+    TokenBuckets(int capacity, Duration refillInterval, long maxKeys) {
+        this.intervalNanos = refillInterval.toNanos();
+        this.burstNanos = capacity * intervalNanos;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(burstNanos))
+                .build();
+    }
+
+    /** Берёт токен; возвращает 0 или через сколько наносекунд он появится. */
+    long tryAcquire(String key, long now) {
+        return acquire(buckets.get(key, k -> new AtomicLong(now)), now, intervalNanos, burstNanos);
+    }
+
+    /** Возвращает токен, взятый для попытки, которую отклонило другое ведро. */
+    void refund(String key) {
+        AtomicLong bucket = buckets.getIfPresent(key);
+        if (bucket != null) {
+            bucket.addAndGet(-intervalNanos);
+        }
+    }
+
+    long size() {
+        return buckets.estimatedSize();
+    }
+
+    /**
+     * Один шаг GCRA над ведром {@code full}: токен есть, если после его списания ведро
+     * заполнится не позже чем через {@code burstNanos}.
+     */
+    static long acquire(AtomicLong full, long now, long intervalNanos, long burstNanos) {
+        while (true) {
+            long current = full.get();
+            long next = (current - now < 0 ? now : current) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (full.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ru.kata.spring.boot_security.demo.service;
+
+/**
+ * Построчные форматы выгрузки пользователей.
+ */
+public enum DataFormat {
+
+    /** CSV с заголовком. */
+    CSV("text/csv"),
+
+    /** JSON Lines: один объект на строку. */
+    NDJSON("application/x-ndjson");
+
+    private final String contentType;
+
+    DataFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /** Формат по имени из параметра запроса без учёта регистра; неизвестный - IllegalArgumentException (400). */
+    public static DataFormat parse(String name) {
+        for (DataFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown format: " + name + ", expected csv or ndjson");
+    }
+}
@@ -0,0 +1,97 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.kata.common.tx.AfterCommit;
+import ru.kata.spring.boot_security.demo.dto.UserPrincipal;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Ограниченный по размеру кэш принципалов аутентификации с TTL.
+ * <p>
+ * Принципал хранится под логином, которым пользователь вошёл (username или email),
+ * и дополнительно под своим username, поэтому повторный логин не ходит в БД.
+ * Каждая инвалидация увеличивает счётчик поколений: загрузка, которая пересеклась
+ * с инвалидацией, убирает свои записи, и устаревший снимок не переживает evict.
+ * Метрики (hit/miss/eviction)
+ * публикуются в Micrometer под именем {@code auth.principals}.
+ */
+@Slf4j
+@Component
+public class PrincipalCache {
+
+    static final String CACHE_NAME = "auth.principals";
+
+    private final Cache<String, UserPrincipal> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public PrincipalCache(MeterRegistry meterRegistry,
+                          @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${security.principal-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Возвращает принципал по логину (username или email), загружая его через
+     * {@code loader} при промахе.
+     * <p>
+     * Алиас по username всегда корректен: поиск по username имеет приоритет над email.
+     * Обратный алиас по email не ставится — чужой username может совпасть с этим email.
+     * Если за время загрузки прошёл {@link #evict}, обе записи удаляются: строка могла быть
+     * прочитана до коммита, а итерация evict не видит ещё не вставленных значений.
+     */
+    public UserPrincipal get(String login, Function<String, UserPrincipal> loader) {
+        long observed = generation.get();
+        UserPrincipal principal = cache.get(key(login), k -> loader.apply(login));
+        String alias = key(principal.getUsername());
+        cache.asMap().putIfAbsent(alias, principal);
+        if (generation.get() != observed) {
+            cache.asMap().remove(key(login), principal);
+            cache.asMap().remove(alias, principal);
+        }
+        return principal;
+    }
+
+    /**
+     * Инвалидирует записи пользователя после коммита текущей транзакции:
+     * все ключи, указывающие на {@code userId}, а также новые username/email,
+     * которые могли «перехватить» чужой закэшированный логин.
+     */
+    public void evictAfterCommit(Long userId, String username, String email) {
+        AfterCommit.run(() -> evict(userId, username, email));
+    }
+
+    private void evict(Long userId, String username, String email) {
+        generation.incrementAndGet();
+        if (username != null) {
+            cache.invalidate(key(username));
+        }
+        if (email != null) {
+            cache.invalidate(key(email));
+        }
+        if (userId != null) {
+            cache.asMap().values().removeIf(p -> Objects.equals(p.getId(), userId));
+        }
+        log.debug("Principal cache evicted: id={}, username={}, email={}", userId, username, email);
+    }
+
+    /** Логины в MySQL сравниваются без учёта регистра — ключи кэша тоже. */
+    private static String key(String login) {
+        return login.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,136 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.kata.common.datasource.PrimaryReads;
+import ru.kata.spring.boot_security.demo.dto.RoleDto;
+import ru.kata.spring.boot_security.demo.model.Role;
+import ru.kata.spring.boot_security.demo.repository.RoleRepository;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Справочник ролей в памяти.
+ * <p>
+ * Роли меняются крайне редко, поэтому вся таблица {@code roles} читается один раз
+ * в неизменяемый снимок с поиском по имени и по id. Снимок сбрасывается
+ * после коммита любой транзакции, изменившей роль (см. {@link RoleChangeListener}),
+ * и перечитывается при следующем обращении - всегда с primary, а не с отстающей реплики.
+ */
+@Slf4j
+@Component
+public class RoleCatalog {
+
+    private final RoleRepository roleRepository;
+    private volatile Snapshot snapshot;
+
+    public RoleCatalog(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    /** Все роли, отсортированные по id. */
+    public List<Role> getRoles() {
+        return snapshot().roles();
+    }
+
+    /** Роли в виде DTO для форм. */
+    public List<RoleDto> getRoleDtos() {
+        return snapshot().dtos();
+    }
+
+    /**
+     * Роль по имени (например, {@code ADMIN}).
+     *
+     * @throws IllegalArgumentException если такой роли нет
+     */
+    public Role getByName(String name) {
+        Role role = snapshot().byName().get(name);
+        if (role == null) {
+            throw new IllegalArgumentException("Unknown role: " + name);
+        }
+        return role;
+    }
+
+    /**
+     * Роль по id.
+     *
+     * @throws IllegalArgumentException если такой роли нет
+     */
+    public Role getById(Long id) {
+        Role role = snapshot().byId().get(id);
+        if (role == null) {
+            throw new IllegalArgumentException("Unknown role id: " + id);
+        }
+        return role;
+    }
+
+    /** Готовый {@link GrantedAuthority} для роли — без сборки строки на каждый логин. */
+    public GrantedAuthority authorityOf(Role role) {
+        GrantedAuthority authority = snapshot().authorities().get(role.getId());
+        return authority != null ? authority : new SimpleGrantedAuthority(role.getAuthority());
+    }
+
+    /** Предзагрузка справочника при старте приложения. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        snapshot();
+    }
+
+    /**
+     * Сбрасывает снимок после коммита изменения ролей.
+     * Синхронизация не даёт параллельной загрузке установить устаревший снимок поверх сброса.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRolesChanged(RolesChangedEvent event) {
+        snapshot = null;
+        log.info("Role catalog invalidated");
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = PrimaryReads.onPrimary(this::load);
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        List<Role> roles = roleRepository.findAll().stream()
+                .sorted(Comparator.comparing(Role::getId))
+                .toList();
+        log.info("Role catalog loaded: {} roles", roles.size());
+        return new Snapshot(
+                roles,
+                roles.stream().map(r -> new RoleDto(r.getId(), r.getName())).toList(),
+                roles.stream().collect(Collectors.toUnmodifiableMap(Role::getName, Function.identity())),
+                roles.stream().collect(Collectors.toUnmodifiableMap(Role::getId, Function.identity())),
+                roles.stream().collect(Collectors.toUnmodifiableMap(Role::getId,
+                        r -> new SimpleGrantedAuthority(r.getAuthority()))));
+    }
+
+    /** Событие изменения таблицы ролей. */
+    public record RolesChangedEvent() {
+    }
+
+    private record Snapshot(List<Role> roles,
+                            List<RoleDto> dtos,
+                            Map<String, Role> byName,
+                            Map<Long, Role> byId,
+                            Map<Long, GrantedAuthority> authorities) {
+    }
+}
@@ -0,0 +1,34 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.kata.spring.boot_security.demo.coherence.CacheChangeLog;
+import ru.kata.spring.boot_security.demo.model.Role;
+
+/**
+ * JPA-слушатель сущности {@link Role}: сообщает {@link RoleCatalog}, что роли изменились,
+ * и записывает изменение для остальных узлов ({@link CacheChangeLog}).
+ * Создаётся Hibernate через Spring, поэтому зависимости внедряются через конструктор;
+ * CacheChangeLog - через ObjectProvider: в JPA-срезах (@DataJpaTest) такого бина нет.
+ */
+public class RoleChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+    private final ObjectProvider<CacheChangeLog> cacheChangeLog;
+
+    public RoleChangeListener(ApplicationEventPublisher publisher, ObjectProvider<CacheChangeLog> cacheChangeLog) {
+        this.publisher = publisher;
+        this.cacheChangeLog = cacheChangeLog;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onRoleChanged(Role role) {
+        cacheChangeLog.ifAvailable(CacheChangeLog::rolesChanged);
+        publisher.publishEvent(new RoleCatalog.RolesChangedEvent());
+    }
+}
@@ -0,0 +1,17 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import lombok.Getter;
+
+/**
+ * Уникальное поле пользователя (username или email) уже занято.
+ */
+@Getter
+public class UserAlreadyExistsException extends RuntimeException {
+
+    private final String field;
+
+    public UserAlreadyExistsException(String field, String value) {
+        super("User with " + field + "=" + value + " already exists");
+        this.field = field;
+    }
+}
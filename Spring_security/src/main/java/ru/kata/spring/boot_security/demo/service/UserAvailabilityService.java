@@ -0,0 +1,18 @@
+package ru.kata.spring.boot_security.demo.service;
+
+/**
+ * Проверка, свободны ли username и email: фильтр Блума в памяти,
+ * положительный ответ фильтра подтверждается запросом в БД.
+ */
+public interface UserAvailabilityService {
+
+    boolean isUsernameAvailable(String username);
+
+    boolean isEmailAvailable(String email);
+
+    /** Username и email заняты текущей транзакцией - попадут в фильтр после коммита. */
+    void register(String username, String email);
+
+    /** Транзакция удалила или изменила пользователя - в фильтре осталась лишняя запись. */
+    void registerRemoval();
+}
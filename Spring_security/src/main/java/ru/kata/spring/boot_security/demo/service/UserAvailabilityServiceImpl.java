@@ -0,0 +1,185 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import ru.kata.common.bloom.BloomFilter;
+import ru.kata.common.tx.AfterCommit;
+import ru.kata.spring.boot_security.demo.repository.UserRepository;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * {@link UserAvailabilityService} на двух {@link BloomFilter} (username и email).
+ * <p>
+ * Фильтры строятся при старте одним проходом по users и перестраиваются в фоне,
+ * когда добавлений больше ёмкости или лишних записей больше половины; до сборки
+ * каждая проверка идёт в БД. Сравнение без учёта регистра, как в индексах MySQL.
+ * Во время перестройки новые значения пишутся и в старые, и в строящиеся фильтры
+ * ({@code building} читается раньше {@code filters}), так что добавление не теряется.
+ * Метрика - {@code users.availability.checks}.
+ */
+@Slf4j
+@Service
+public class UserAvailabilityServiceImpl implements UserAvailabilityService {
+
+    private static final String COUNT_SQL = "select count(*) from users";
+    private static final String SELECT_SQL = "select username, email from users";
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+    private final long expectedSize;
+    private final double fpp;
+
+    private volatile Filters filters;
+    private volatile Filters building;
+    private final AtomicLong removals = new AtomicLong();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public UserAvailabilityServiceImpl(DataSource dataSource, UserRepository userRepository,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${users.export.fetch-size:1000}") int fetchSize,
+                                       @Value("${users.availability.expected-size:100000}") long expectedSize,
+                                       @Value("${users.availability.fpp:0.01}") double fpp) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.userRepository = userRepository;
+        this.meterRegistry = meterRegistry;
+        this.expectedSize = expectedSize;
+        this.fpp = fpp;
+    }
+
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        Filters current = filters;
+        return isAvailable("username", username, current == null ? null : current.usernames(),
+                userRepository::existsByUsername);
+    }
+
+    @Override
+    public boolean isEmailAvailable(String email) {
+        Filters current = filters;
+        return isAvailable("email", email, current == null ? null : current.emails(),
+                userRepository::existsByEmail);
+    }
+
+    private boolean isAvailable(String field, String value, BloomFilter filter, Predicate<String> existsInDb) {
+        if (filter != null && !filter.mightContain(normalize(value))) {
+            count(field, "filter_negative");
+            return true;
+        }
+        boolean taken = existsInDb.test(value.trim());
+        count(field, taken ? "db_taken" : "db_free");
+        return !taken;
+    }
+
+    private void count(String field, String result) {
+        Counter.builder("users.availability.checks")
+                .tag("field", field)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public void register(String username, String email) {
+        String usernameKey = normalize(username);
+        String emailKey = normalize(email);
+        AfterCommit.run(() -> add(usernameKey, emailKey));
+    }
+
+    @Override
+    public void registerRemoval() {
+        AfterCommit.run(() -> {
+            removals.incrementAndGet();
+            rebuildIfDegraded();
+        });
+    }
+
+    /** Сборка фильтров при старте приложения. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        if (rebuilding.compareAndSet(false, true)) {
+            try {
+                rebuild();
+            } finally {
+                rebuilding.set(false);
+            }
+        }
+    }
+
+    private void add(String usernameKey, String emailKey) {
+        Filters next = building;
+        Filters current = filters;
+        if (next != null) {
+            next.put(usernameKey, emailKey);
+        }
+        if (current != null) {
+            current.put(usernameKey, emailKey);
+        }
+        rebuildIfDegraded();
+    }
+
+    private void rebuildIfDegraded() {
+        Filters current = filters;
+        if (current == null) {
+            return;
+        }
+        BloomFilter emails = current.emails();
+        boolean overfilled = emails.insertions() > emails.capacity();
+        boolean stale = removals.get() > emails.insertions() / 2;
+        if ((overfilled || stale) && rebuilding.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    rebuilding.set(false);
+                }
+            }).exceptionally(e -> {
+                log.warn("Availability filters rebuild failed", e);
+                return null;
+            });
+        }
+    }
+
+    private void rebuild() {
+        Long rows = cursorJdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+        long capacity = Math.max(expectedSize, 2 * (rows == null ? 0 : rows));
+        Filters next = new Filters(new BloomFilter(capacity, fpp), new BloomFilter(capacity, fpp));
+        removals.set(0);
+        building = next;
+        try {
+            cursorJdbcTemplate.query(SELECT_SQL, (RowCallbackHandler) rs ->
+                    next.put(normalize(rs.getString(1)), normalize(rs.getString(2))));
+            filters = next;
+        } finally {
+            building = null;
+        }
+        log.info("Availability filters built: {} rows, capacity {}", rows, capacity);
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+
+        void put(String usernameKey, String emailKey) {
+            usernames.put(usernameKey);
+            emails.put(emailKey);
+        }
+    }
+}
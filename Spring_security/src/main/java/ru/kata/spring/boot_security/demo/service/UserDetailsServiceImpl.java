@@ -1,33 +1,71 @@
 package ru.kata.spring.boot_security.demo.service;
 
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
+import ru.kata.spring.boot_security.demo.coherence.CacheChangeLog;
+import ru.kata.spring.boot_security.demo.dto.UserPrincipal;
 import ru.kata.spring.boot_security.demo.model.User;
 import ru.kata.spring.boot_security.demo.repository.UserRepository;
 
+import java.util.List;
+
 /**
- * Ищем пользователя сначала по username, потом — по email.
+ * Ищем пользователя по username или email одним запросом; совпадение по username приоритетнее.
  * Форму логина мы будем отправлять поле emailOrUsername.
+ * Найденный пользователь кэшируется в {@link PrincipalCache}.
+ * Устаревший хэш пароля после успешного входа перезаписывается ({@link #updatePassword}).
  */
+@Slf4j
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepo;
+    private final PrincipalCache principalCache;
+    private final RoleCatalog roleCatalog;
+    private final CacheChangeLog cacheChangeLog;
 
-    public UserDetailsServiceImpl(UserRepository userRepo) {
+    public UserDetailsServiceImpl(UserRepository userRepo, PrincipalCache principalCache,
+                                  RoleCatalog roleCatalog, CacheChangeLog cacheChangeLog) {
         this.userRepo = userRepo;
+        this.principalCache = principalCache;
+        this.roleCatalog = roleCatalog;
+        this.cacheChangeLog = cacheChangeLog;
     }
 
     @Override
     public UserDetails loadUserByUsername(String emailOrUsername)
             throws UsernameNotFoundException {
 
-        User user = userRepo.findByUsername(emailOrUsername)
-                .or(() -> userRepo.findByEmail(emailOrUsername))
+        return principalCache.get(emailOrUsername, this::loadPrincipal);
+    }
+
+    /**
+     * Вызывается DaoAuthenticationProvider после успешного входа, если хэш пароля записан
+     * не текущим алгоритмом или с меньшей стоимостью; {@code newPassword} уже закодирован.
+     */
+    @Transactional
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserPrincipal principal = (UserPrincipal) user;
+        userRepo.updatePassword(principal.getId(), newPassword);
+        cacheChangeLog.userChanged(principal.getId());
+        principalCache.evictAfterCommit(principal.getId(), null, null);
+        log.debug("Password hash upgraded for user id={}", principal.getId());
+        return principal.withPassword(newPassword);
+    }
+
+    private UserPrincipal loadPrincipal(String emailOrUsername) {
+        List<User> candidates = userRepo.findAllByLogin(emailOrUsername);
+        User user = candidates.stream()
+                .filter(u -> u.getUsername().equalsIgnoreCase(emailOrUsername))
+                .findFirst()
+                .or(() -> candidates.stream().findFirst())
                 .orElseThrow(() ->
                         new UsernameNotFoundException(
                                 "Пользователь не найден: " + emailOrUsername)
                 );
 
-        return user;
+        return UserPrincipal.of(user, roleCatalog::authorityOf);
     }
 }
@@ -0,0 +1,17 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Потоковая выгрузка пользователей с ролями (без паролей).
+ */
+public interface UserExportService {
+
+    /**
+     * Пишет всех пользователей в {@code out} по мере чтения из БД.
+     * @param out поток ответа
+     * @param format формат выгрузки
+     */
+    void exportUsers(OutputStream out, DataFormat format) throws IOException;
+}
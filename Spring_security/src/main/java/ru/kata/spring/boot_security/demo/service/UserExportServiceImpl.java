@@ -0,0 +1,207 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Реализация {@link UserExportService}.
+ * <p>
+ * Пользователи читаются однонаправленным JDBC-курсором вместе со связями
+ * {@code users_roles}, отсортированными по id пользователя, и пишутся в поток
+ * сразу, как только все строки одного пользователя прочитаны. Имена ролей берутся
+ * из {@link RoleCatalog}, поэтому таблица {@code roles} в запрос не входит.
+ * В памяти одновременно находится не больше одного пользователя. Для MySQL fetch size
+ * этого запроса - {@link Integer#MIN_VALUE}: Connector/J отдаёт строки потоком без
+ * {@code useCursorFetch} в URL, который сделал бы серверными все запросы приложения.
+ */
+@Slf4j
+@Service
+public class UserExportServiceImpl implements UserExportService {
+
+    private static final String SELECT_SQL =
+            "select u.id, u.first_name, u.last_name, u.age, u.username, u.email, ur.role_id " +
+            "from users u left join users_roles ur on ur.user_id = u.id order by u.id";
+    private static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final RoleCatalog roleCatalog;
+    private final ObjectMapper objectMapper;
+
+    public UserExportServiceImpl(DataSource dataSource, RoleCatalog roleCatalog, ObjectMapper objectMapper,
+                                 @Value("${spring.datasource.url}") String url,
+                                 @Value("${users.export.fetch-size:1000}") int fetchSize) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(url.startsWith("jdbc:mysql:") ? MYSQL_STREAMING_FETCH_SIZE : fetchSize);
+        this.roleCatalog = roleCatalog;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void exportUsers(OutputStream out, DataFormat format) throws IOException {
+        log.info("Streaming users export, format={}", format);
+        RowSink sink = format == DataFormat.NDJSON ? new NdjsonSink(out) : new CsvSink(out);
+        try {
+            sink.begin();
+            ExportRow[] current = {null};
+            cursorJdbcTemplate.query(SELECT_SQL, (ResultSet rs) -> {
+                long id = rs.getLong(1);
+                if (current[0] == null || current[0].id != id) {
+                    emit(sink, current[0]);
+                    current[0] = ExportRow.of(rs);
+                }
+                long roleId = rs.getLong(7);
+                if (!rs.wasNull()) {
+                    current[0].roles.add(roleCatalog.getById(roleId).getName());
+                }
+            });
+            emit(sink, current[0]);
+            sink.end();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void emit(RowSink sink, ExportRow row) {
+        if (row == null) {
+            return;
+        }
+        try {
+            sink.write(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Один пользователь, собранный из подряд идущих строк результата. */
+    private static final class ExportRow {
+        private long id;
+        private String firstName;
+        private String lastName;
+        private int age;
+        private String username;
+        private String email;
+        private final List<String> roles = new ArrayList<>(2);
+
+        static ExportRow of(ResultSet rs) throws SQLException {
+            ExportRow row = new ExportRow();
+            row.id = rs.getLong(1);
+            row.firstName = rs.getString(2);
+            row.lastName = rs.getString(3);
+            row.age = rs.getInt(4);
+            row.username = rs.getString(5);
+            row.email = rs.getString(6);
+            return row;
+        }
+    }
+
+    private interface RowSink {
+        void begin() throws IOException;
+        void write(ExportRow row) throws IOException;
+        void end() throws IOException;
+    }
+
+    /** CSV: роли перечисляются через {@code |} в одной колонке. */
+    private static final class CsvSink implements RowSink {
+        private final Writer writer;
+
+        CsvSink(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void begin() throws IOException {
+            writer.write("id,firstName,lastName,age,username,email,roles\n");
+        }
+
+        @Override
+        public void write(ExportRow row) throws IOException {
+            writer.write(Long.toString(row.id));
+            writer.write(',');
+            field(row.firstName);
+            writer.write(',');
+            field(row.lastName);
+            writer.write(',');
+            writer.write(Integer.toString(row.age));
+            writer.write(',');
+            field(row.username);
+            writer.write(',');
+            field(row.email);
+            writer.write(',');
+            field(String.join("|", row.roles));
+            writer.write('\n');
+        }
+
+        @Override
+        public void end() throws IOException {
+            writer.flush();
+        }
+
+        private void field(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    /** JSON Lines через потоковый {@link JsonGenerator}. */
+    private final class NdjsonSink implements RowSink {
+        private final JsonGenerator generator;
+
+        NdjsonSink(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public void write(ExportRow row) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", row.id);
+            generator.writeStringField("firstName", row.firstName);
+            generator.writeStringField("lastName", row.lastName);
+            generator.writeNumberField("age", row.age);
+            generator.writeStringField("username", row.username);
+            generator.writeStringField("email", row.email);
+            generator.writeArrayFieldStart("roles");
+            for (String role : row.roles) {
+                generator.writeString(role);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void end() throws IOException {
+            generator.flush();
+        }
+    }
+}
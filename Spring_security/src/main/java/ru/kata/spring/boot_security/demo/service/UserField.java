@@ -0,0 +1,65 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Поля пользователя, доступные для выборки в JSON API ({@code fields=username,roles}).
+ * SQL строится только из этого списка; {@code id} возвращается всегда.
+ */
+public enum UserField {
+
+    ID("id", "u.id"),
+    FIRST_NAME("firstName", "u.first_name"),
+    LAST_NAME("lastName", "u.last_name"),
+    AGE("age", "u.age"),
+    USERNAME("username", "u.username"),
+    EMAIL("email", "u.email"),
+    /** Имена ролей: связь users_roles, имена - из {@link RoleCatalog}. */
+    ROLES("roles", null);
+
+    private final String jsonName;
+    private final String column;
+
+    UserField(String jsonName, String column) {
+        this.jsonName = jsonName;
+        this.column = column;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    /** Колонка таблицы users; {@code null} для {@link #ROLES}. */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Разбирает параметр {@code fields}: имена через запятую, пустой параметр - все поля.
+     *
+     * @throws IllegalArgumentException если встретилось неизвестное поле
+     */
+    public static Set<UserField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(UserField.class);
+        }
+        Set<UserField> result = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(byJsonName(trimmed));
+            }
+        }
+        return result;
+    }
+
+    private static UserField byJsonName(String name) {
+        for (UserField field : values()) {
+            if (field.jsonName.equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown user field: " + name);
+    }
+}
@@ -0,0 +1,36 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Чтение пользователей для JSON API: только запрошенные колонки,
+ * ответ пишется потоковым Jackson-генератором.
+ */
+public interface UserQueryService {
+
+    /** Один пользователь: поля в порядке {@link UserField}. */
+    Optional<Map<String, Object>> findUser(Long id, Set<UserField> fields);
+
+    /**
+     * Убирает null и повторы из списка id, сохраняя порядок.
+     *
+     * @throws IllegalArgumentException если список пуст или длиннее users.api.max-batch-size
+     */
+    List<Long> normalizeIds(Collection<Long> ids);
+
+    /**
+     * Пишет {"users": [...], "missing": [...]} одним запросом where id in (...).
+     *
+     * @param ids результат {@link #normalizeIds(Collection)}
+     */
+    void writeUsersByIds(List<Long> ids, Set<UserField> fields, OutputStream out) throws IOException;
+
+    /** Пишет JSON-массив всех пользователей по мере чтения курсора. */
+    void writeAllUsers(Set<UserField> fields, OutputStream out) throws IOException;
+}
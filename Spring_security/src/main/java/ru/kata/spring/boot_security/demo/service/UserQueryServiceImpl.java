@@ -0,0 +1,229 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация {@link UserQueryService} на JDBC.
+ * <p>
+ * В select попадают только колонки запрошенных полей. Роли, если они нужны,
+ * читаются тем же запросом через left join users_roles (строки одного пользователя
+ * идут подряд, как в выгрузке), а их имена берутся из {@link RoleCatalog}.
+ * Пакетный запрос - один IN вместо запроса на каждый id.
+ */
+@Slf4j
+@Service
+public class UserQueryServiceImpl implements UserQueryService {
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final RoleCatalog roleCatalog;
+    private final ObjectMapper objectMapper;
+    private final int maxBatchSize;
+
+    public UserQueryServiceImpl(DataSource dataSource, RoleCatalog roleCatalog, ObjectMapper objectMapper,
+                                @Value("${users.export.fetch-size:1000}") int fetchSize,
+                                @Value("${users.api.max-batch-size:1000}") int maxBatchSize) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource));
+        this.roleCatalog = roleCatalog;
+        this.objectMapper = objectMapper;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<Map<String, Object>> findUser(Long id, Set<UserField> fields) {
+        log.debug("API get user id={}, fields={}", id, fields);
+        Map<String, Object>[] user = new Map[1];
+        namedJdbcTemplate.query(select(fields, "where u.id = :id"), Map.of("id", id), (ResultSet rs) -> {
+            if (user[0] == null) {
+                user[0] = new LinkedHashMap<>();
+                int index = 1;
+                for (UserField field : fields) {
+                    switch (field) {
+                        case ID -> user[0].put(field.getJsonName(), rs.getLong(index++));
+                        case AGE -> user[0].put(field.getJsonName(), rs.getInt(index++));
+                        case ROLES -> user[0].put(field.getJsonName(), new ArrayList<String>(2));
+                        default -> user[0].put(field.getJsonName(), rs.getString(index++));
+                    }
+                }
+            }
+            if (fields.contains(UserField.ROLES)) {
+                long roleId = rs.getLong(fields.size());
+                if (!rs.wasNull()) {
+                    ((List<String>) user[0].get(UserField.ROLES.getJsonName()))
+                            .add(roleCatalog.getById(roleId).getName());
+                }
+            }
+        });
+        return Optional.ofNullable(user[0]);
+    }
+
+    @Override
+    public List<Long> normalizeIds(Collection<Long> ids) {
+        Set<Long> distinct = new LinkedHashSet<>();
+        if (ids != null) {
+            ids.stream().filter(id -> id != null).forEach(distinct::add);
+        }
+        if (distinct.isEmpty()) {
+            throw new IllegalArgumentException("At least one id is required");
+        }
+        if (distinct.size() > maxBatchSize) {
+            throw new IllegalArgumentException(
+                    "Too many ids: " + distinct.size() + ", at most " + maxBatchSize + " per request");
+        }
+        return new ArrayList<>(distinct);
+    }
+
+    @Override
+    public void writeUsersByIds(List<Long> ids, Set<UserField> fields, OutputStream out) throws IOException {
+        log.debug("API batch lookup of {} ids, fields={}", ids.size(), fields);
+        Set<Long> found = new HashSet<>(ids.size() * 2);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        try {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("users");
+            RowWriter writer = new RowWriter(generator, fields);
+            namedJdbcTemplate.query(select(fields, "where u.id in (:ids)"), Map.of("ids", ids), (ResultSet rs) -> {
+                found.add(rs.getLong(1));
+                writer.accept(rs);
+            });
+            writer.finish();
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("missing");
+            for (Long id : ids) {
+                if (!found.contains(id)) {
+                    generator.writeNumber(id);
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void writeAllUsers(Set<UserField> fields, OutputStream out) throws IOException {
+        log.debug("API streaming all users, fields={}", fields);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        try {
+            generator.writeStartArray();
+            RowWriter writer = new RowWriter(generator, fields);
+            cursorJdbcTemplate.query(select(fields, ""), writer::accept);
+            writer.finish();
+            generator.writeEndArray();
+            generator.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** select только нужных колонок; id всегда первой, role_id - последней. */
+    private static String select(Set<UserField> fields, String where) {
+        String columns = fields.stream()
+                .map(UserField::getColumn)
+                .filter(column -> column != null)
+                .collect(Collectors.joining(", "));
+        if (!fields.contains(UserField.ROLES)) {
+            return "select " + columns + " from users u " + where + " order by u.id";
+        }
+        return "select " + columns + ", ur.role_id from users u "
+                + "left join users_roles ur on ur.user_id = u.id " + where + " order by u.id";
+    }
+
+    /**
+     * Пишет строки результата как JSON-объекты. При выборке ролей строки одного
+     * пользователя идут подряд: объект закрывается, когда меняется id.
+     */
+    private final class RowWriter {
+        private final JsonGenerator generator;
+        private final Set<UserField> fields;
+        private final boolean withRoles;
+        private final List<String> roles = new ArrayList<>(2);
+        private Long currentId;
+
+        RowWriter(JsonGenerator generator, Set<UserField> fields) {
+            this.generator = generator;
+            this.fields = fields;
+            this.withRoles = fields.contains(UserField.ROLES);
+        }
+
+        void accept(ResultSet rs) throws SQLException {
+            try {
+                long id = rs.getLong(1);
+                if (currentId == null || currentId != id) {
+                    finish();
+                    startObject(rs);
+                    currentId = id;
+                }
+                if (withRoles) {
+                    long roleId = rs.getLong(fields.size());
+                    if (!rs.wasNull()) {
+                        roles.add(roleCatalog.getById(roleId).getName());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void finish() throws UncheckedIOException {
+            if (currentId == null) {
+                return;
+            }
+            try {
+                if (withRoles) {
+                    generator.writeArrayFieldStart(UserField.ROLES.getJsonName());
+                    for (String role : roles) {
+                        generator.writeString(role);
+                    }
+                    generator.writeEndArray();
+                    roles.clear();
+                }
+                generator.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            currentId = null;
+        }
+
+        private void startObject(ResultSet rs) throws IOException, SQLException {
+            generator.writeStartObject();
+            int index = 1;
+            for (UserField field : fields) {
+                switch (field) {
+                    case ID -> generator.writeNumberField(field.getJsonName(), rs.getLong(index++));
+                    case AGE -> generator.writeNumberField(field.getJsonName(), rs.getInt(index++));
+                    case ROLES -> { }
+                    default -> generator.writeStringField(field.getJsonName(), rs.getString(index++));
+                }
+            }
+        }
+    }
+}
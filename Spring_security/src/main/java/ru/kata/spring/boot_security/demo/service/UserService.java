@@ -1,5 +1,7 @@
 package ru.kata.spring.boot_security.demo.service;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import ru.kata.spring.boot_security.demo.dto.UserDto;
 import ru.kata.spring.boot_security.demo.model.Role;
 import ru.kata.spring.boot_security.demo.model.User;
@@ -17,6 +19,15 @@ public interface UserService {
      */
     List<User> findAll();
 
+    /**
+     * Получить страницу пользователей с ролями для списка администратора.
+     * Число SQL-запросов не зависит от размера страницы.
+     *
+     * @param pageable номер и размер страницы, сортировка
+     * @return страница DTO пользователей
+     */
+    Page<UserDto> findPage(Pageable pageable);
+
     /**
      * Найти пользователя по его уникальному идентификатору.
      *
@@ -29,6 +40,7 @@ public interface UserService {
     /**
      * Сохранить нового пользователя в базу данных.
      * @param dto объект передачи данных пользователя
+     * @throws UserAlreadyExistsException если username или email заняты
      */
     void saveWithRoles(UserDto dto);
 
@@ -1,19 +1,34 @@
 package ru.kata.spring.boot_security.demo.service;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kata.common.audit.AuditAction;
+import ru.kata.common.audit.AuditLog;
+import ru.kata.common.view.RenderedFragmentCache;
+import ru.kata.spring.boot_security.demo.coherence.CacheChangeLog;
 import ru.kata.spring.boot_security.demo.dto.UserDto;
+import ru.kata.spring.boot_security.demo.dto.UserSuggestionDto;
 import ru.kata.spring.boot_security.demo.mapper.UserMapper;
 import ru.kata.spring.boot_security.demo.model.Role;
 import ru.kata.spring.boot_security.demo.model.User;
-import ru.kata.spring.boot_security.demo.repository.RoleRepository;
+import ru.kata.spring.boot_security.demo.outbox.UserChangeType;
+import ru.kata.spring.boot_security.demo.outbox.UserOutbox;
 import ru.kata.spring.boot_security.demo.repository.UserRepository;
+import ru.kata.spring.boot_security.demo.search.UserSearchIndex;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Сервисная реализация работы с пользователями.
@@ -24,63 +39,171 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleCatalog roleCatalog;
     private final UserMapper userMapper;
+    private final PrincipalCache principalCache;
+    private final RenderedFragmentCache fragmentCache;
+    private final UserAvailabilityService availabilityService;
+    private final UserSearchIndex searchIndex;
+    private final AuditLog auditLog;
+    private final UserOutbox outbox;
+    private final CacheChangeLog cacheChangeLog;
+    private final PasswordEncoder passwordEncoder;
 
-    /** Найти всех пользователей. */
+    /** Найти всех пользователей (с реплики, если она настроена). */
     @Override
+    @Transactional(readOnly = true)
     public List<User> findAll() {
-        log.info("Getting all users");
+        log.debug("Getting all users");
         return userRepository.findAll();
     }
 
-    /** Найти пользователя по ID. */
+    /**
+     * Страница пользователей для админки: id страницы, затем пользователи с ролями
+     * одним запросом по этим id — без N+1 и без пагинации join в памяти.
+     */
     @Override
+    public Page<UserDto> findPage(Pageable pageable) {
+        Page<Long> ids = userRepository.findIdPage(pageable);
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, ids.getTotalElements());
+        }
+        List<UserDto> users = userRepository.findAllWithRolesByIdIn(ids.getContent(), pageable.getSort())
+                .stream()
+                .map(userMapper::toDto)
+                .collect(Collectors.toList());
+        return new PageImpl<>(users, pageable, ids.getTotalElements());
+    }
+
+    /** Найти пользователя по ID (вместе с ролями, с реплики, если она настроена). */
+    @Override
+    @Transactional(readOnly = true)
     public User findById(Long id) {
-        return userRepository.findById(id).orElseThrow(
+        return userRepository.findWithRolesById(id).orElseThrow(
                 () -> new RuntimeException("User not found, id=" + id));
     }
 
-    /** Сохранить нового пользователя, маппинг из DTO + роли. */
+    /**
+     * Сохранить нового пользователя, маппинг из DTO + роли.
+     * Занятые username/email отклоняются до вставки по UserAvailabilityService.
+     * Пароль сохраняется хэшем текущего алгоритма.
+     */
     @Transactional
     @Override
     public void saveWithRoles(UserDto dto) {
+        if (!availabilityService.isUsernameAvailable(dto.getUsername())) {
+            throw new UserAlreadyExistsException("username", dto.getUsername());
+        }
+        if (!availabilityService.isEmailAvailable(dto.getEmail())) {
+            throw new UserAlreadyExistsException("email", dto.getEmail());
+        }
         User user = userMapper.fromDto(dto);
+        user.setPassword(passwordEncoder.encode(dto.getPassword()));
         Set<Role> roleSet = getRoleSet(dto.getRoles());
         user.setRoles(roleSet);
         userRepository.save(user);
+        outbox.append(UserChangeType.USER_CREATED, user.getId(), changeState(user.getId(), dto, user.getVersion()));
+        cacheChangeLog.userChanged(user.getId());
+        availabilityService.register(user.getUsername(), user.getEmail());
+        searchIndex.indexAfterCommit(new UserSuggestionDto(user.getId(), user.getFirstName(), user.getLastName(),
+                user.getUsername(), user.getEmail()));
+        auditLog.record(AuditAction.CREATE, user.getId(), "username=" + user.getUsername()
+                + ", email=" + user.getEmail() + ", roles=" + roleNames(dto.getRoles()));
+        principalCache.evictAfterCommit(user.getId(), user.getUsername(), user.getEmail());
+        fragmentCache.invalidateAfterCommit();
         log.info("User created: {}", user.getUsername());
     }
 
-    /** Обновить пользователя, включая роли. */
+    /**
+     * Обновить пользователя, включая роли.
+     * <p>
+     * Без загрузки сущности: UPDATE строки с проверкой версии и два set-based запроса
+     * к {@code users_roles} (убрать лишние роли, добавить недостающие) - три выражения
+     * при любом числе ролей. Если UPDATE ничего не изменил, отдельный запрос различает
+     * "пользователя нет" и устаревшую версию. В журнал аудита - UPDATE и, если изменился
+     * набор ролей, ROLES_CHANGED. Пароль из формы сохраняется хэшем.
+     */
     @Transactional
     @Override
     public void updateWithRoles(UserDto dto) {
-        User user = userMapper.fromDto(dto);
-        Set<Role> roleSet = getRoleSet(dto.getRoles());
-        user.setRoles(roleSet);
-        userRepository.save(user);
-        log.info("User updated: {}", user.getUsername());
+        Long id = dto.getId();
+        if (dto.getVersion() == null) {
+            throw new ObjectOptimisticLockingFailureException(User.class, id);
+        }
+        int updated = userRepository.updateIfVersion(id, dto.getVersion(), dto.getFirstName(), dto.getLastName(),
+                dto.getAge(), dto.getUsername(), dto.getEmail(), passwordEncoder.encode(dto.getPassword()));
+        if (updated == 0) {
+            if (!userRepository.existsById(id)) {
+                throw new RuntimeException("User not found, id=" + id);
+            }
+            throw new ObjectOptimisticLockingFailureException(User.class, id);
+        }
+        List<Long> roleIds = getRoleSet(dto.getRoles()).stream().map(Role::getId).toList();
+        int rolesChanged = userRepository.deleteRolesNotIn(id, roleIds)
+                + userRepository.insertMissingRoles(id, roleIds);
+        outbox.append(UserChangeType.USER_UPDATED, id, changeState(id, dto, dto.getVersion() + 1));
+        cacheChangeLog.userChanged(id);
+        availabilityService.register(dto.getUsername(), dto.getEmail());
+        availabilityService.registerRemoval();
+        searchIndex.indexAfterCommit(new UserSuggestionDto(id, dto.getFirstName(), dto.getLastName(),
+                dto.getUsername(), dto.getEmail()));
+        auditLog.record(AuditAction.UPDATE, id, "username=" + dto.getUsername() + ", email=" + dto.getEmail()
+                + ", version=" + (dto.getVersion() + 1));
+        if (rolesChanged > 0) {
+            auditLog.record(AuditAction.ROLES_CHANGED, id, "roles=" + roleNames(dto.getRoles()));
+        }
+        principalCache.evictAfterCommit(id, dto.getUsername(), dto.getEmail());
+        fragmentCache.invalidateAfterCommit();
+        log.info("User updated: {}", dto.getUsername());
     }
 
-    /** Удалить пользователя по ID. */
+    /** Удалить пользователя по ID: связи с ролями и строка - двумя DELETE, без SELECT. */
     @Transactional
     @Override
     public void deleteById(Long id) {
-        userRepository.deleteById(id);
+        if (userRepository.deleteUserById(id) == 0) {
+            log.debug("User with id={} not found, nothing to delete", id);
+            return;
+        }
+        outbox.append(UserChangeType.USER_DELETED, id, Map.of("id", id));
+        cacheChangeLog.userChanged(id);
+        availabilityService.registerRemoval();
+        searchIndex.removeAfterCommit(id);
+        auditLog.record(AuditAction.DELETE, id, "");
+        principalCache.evictAfterCommit(id, null, null);
+        fragmentCache.invalidateAfterCommit();
         log.info("User with id has been deleted={}", id);
     }
 
-    /** Найти все роли. */
+    /** Найти все роли (из справочника в памяти; при промахе справочник читается с primary). */
     @Override
+    @Transactional(readOnly = true)
     public List<Role> findAllRoles() {
-        return roleRepository.findAll();
+        return roleCatalog.getRoles();
+    }
+
+    /** Состояние пользователя для события outbox - без пароля. */
+    private static Map<String, Object> changeState(Long id, UserDto dto, Long version) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("id", id);
+        state.put("firstName", dto.getFirstName());
+        state.put("lastName", dto.getLastName());
+        state.put("age", dto.getAge());
+        state.put("username", dto.getUsername());
+        state.put("email", dto.getEmail());
+        state.put("roles", Stream.of(dto.getRoles()).sorted().toList());
+        state.put("version", version);
+        return state;
+    }
+
+    private static String roleNames(String[] roleNames) {
+        return Stream.of(roleNames).sorted().collect(Collectors.joining(",", "[", "]"));
     }
 
-    /** Получить набор ролей по именам. */
+    /** Получить набор ролей по именам — без запросов к БД. */
     private Set<Role> getRoleSet(String[] roleNames) {
         return List.of(roleNames).stream()
-                .map(roleRepository::findByName)
+                .map(roleCatalog::getByName)
                 .collect(Collectors.toSet());
     }
 }
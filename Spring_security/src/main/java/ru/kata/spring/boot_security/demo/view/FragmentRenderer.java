@@ -0,0 +1,34 @@
+package ru.kata.spring.boot_security.demo.view;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.Map;
+
+/**
+ * Рендер шаблона Thymeleaf в строку в контексте текущего запроса - для кэша фрагментов.
+ */
+@Component
+public class FragmentRenderer {
+
+    private final ITemplateEngine templateEngine;
+    private final JakartaServletWebApplication application;
+
+    public FragmentRenderer(ITemplateEngine templateEngine, ServletContext servletContext) {
+        this.templateEngine = templateEngine;
+        this.application = JakartaServletWebApplication.buildApplication(servletContext);
+    }
+
+    public String render(String template, Map<String, Object> variables,
+                         HttpServletRequest request, HttpServletResponse response) {
+        WebContext context = new WebContext(application.buildExchange(request, response),
+                RequestContextUtils.getLocale(request), variables);
+        return templateEngine.process(template, context);
+    }
+}
@@ -0,0 +1,44 @@
+package ru.kata.spring.boot_security.demo.view;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.kata.common.view.RenderedFragmentCache;
+import ru.kata.spring.boot_security.demo.service.RoleCatalog;
+
+/**
+ * Кэш готового HTML таблицы пользователей админки. Версию данных увеличивает
+ * запись пользователя или изменение ролей.
+ */
+@Configuration
+public class ViewConfig {
+
+    @Bean
+    public RenderedFragmentCache renderedFragmentCache(
+            MeterRegistry meterRegistry,
+            @Value("${users.view.fragment-cache.max-entries:256}") int maxEntries) {
+        return new RenderedFragmentCache(meterRegistry, maxEntries);
+    }
+
+    @Bean
+    public RolesChangedInvalidation rolesChangedFragmentInvalidation(RenderedFragmentCache fragmentCache) {
+        return new RolesChangedInvalidation(fragmentCache);
+    }
+
+    /** Имена ролей выводятся в таблице, поэтому изменение ролей тоже сбрасывает кэш. */
+    public static class RolesChangedInvalidation {
+
+        private final RenderedFragmentCache fragmentCache;
+
+        RolesChangedInvalidation(RenderedFragmentCache fragmentCache) {
+            this.fragmentCache = fragmentCache;
+        }
+
+        @TransactionalEventListener(fallbackExecution = true)
+        public void onRolesChanged(RoleCatalog.RolesChangedEvent event) {
+            fragmentCache.invalidate();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.kata.spring.boot_security.demo.view;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.kata.common.view.RenderedFragmentCache;
+
+import java.security.Principal;
+
+/**
+ * Сильные ETag для страниц админки и условные GET по ним.
+ * <p>
+ * Тег списка - эпоха запуска + версия данных {@link RenderedFragmentCache} + хэш имени
+ * текущего пользователя (оно выводится в шапке). Совпавший {@code If-None-Match}
+ * даёт {@code 304} без запросов в БД и рендеринга.
+ */
+@Component
+public class ViewEtags {
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final RenderedFragmentCache fragmentCache;
+
+    public ViewEtags(RenderedFragmentCache fragmentCache) {
+        this.fragmentCache = fragmentCache;
+    }
+
+    /** Тег страницы списка пользователей для {@code viewer}. */
+    public String listTag(Principal viewer) {
+        String name = viewer != null ? viewer.getName() : "";
+        return "admin-users-" + epoch + "-" + fragmentCache.version() + "-" + Integer.toHexString(name.hashCode());
+    }
+
+    /**
+     * Выставляет {@code ETag} и {@code Cache-Control: private, no-cache}
+     * (иначе Spring Security запретит кэширование) и проверяет {@code If-None-Match}.
+     *
+     * @return {@code true}, если клиенту уже отдан {@code 304}
+     */
+    public boolean checkNotModified(String etag, HttpServletRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        return new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+}
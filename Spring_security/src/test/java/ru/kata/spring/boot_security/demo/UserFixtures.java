@@ -0,0 +1,58 @@
+package ru.kata.spring.boot_security.demo;
+
+import org.springframework.stereotype.Component;
+import ru.kata.spring.boot_security.demo.dto.UserDto;
+import ru.kata.spring.boot_security.demo.model.Role;
+import ru.kata.spring.boot_security.demo.repository.RoleRepository;
+import ru.kata.spring.boot_security.demo.repository.UserRepository;
+import ru.kata.spring.boot_security.demo.service.RoleCatalog;
+
+/**
+ * Общая подготовка данных для тестов, которые коммитят изменения через сервисы:
+ * роли, форма пользователя, очистка таблиц. Лежит в пакете приложения, поэтому
+ * попадает в каждый тестовый контекст без {@code @Import}.
+ */
+@Component
+public class UserFixtures {
+
+    private final RoleRepository roleRepository;
+    private final UserRepository userRepository;
+    private final RoleCatalog roleCatalog;
+
+    public UserFixtures(RoleRepository roleRepository, UserRepository userRepository, RoleCatalog roleCatalog) {
+        this.roleRepository = roleRepository;
+        this.userRepository = userRepository;
+        this.roleCatalog = roleCatalog;
+    }
+
+    /** Создаёт роли и сбрасывает справочник ролей этого контекста. */
+    public void createRoles(String... names) {
+        for (String name : names) {
+            roleRepository.save(new Role(null, name));
+        }
+        roleCatalog.onRolesChanged(new RoleCatalog.RolesChangedEvent());
+    }
+
+    /** Удаляет всех пользователей и роли. */
+    public void deleteAll() {
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    /** Форма создания пользователя Ivan Petrov с ролью USER и адресом {@code <username>@example.com}. */
+    public static UserDto user(String username) {
+        return user(username, username + "@example.com");
+    }
+
+    public static UserDto user(String username, String email) {
+        UserDto dto = new UserDto();
+        dto.setFirstName("Ivan");
+        dto.setLastName("Petrov");
+        dto.setAge(30);
+        dto.setUsername(username);
+        dto.setEmail(email);
+        dto.setPassword("password");
+        dto.setRoles(new String[]{"USER"});
+        return dto;
+    }
+}
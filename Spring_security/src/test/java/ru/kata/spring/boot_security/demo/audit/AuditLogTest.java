@@ -0,0 +1,79 @@
+package ru.kata.spring.boot_security.demo.audit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import ru.kata.common.audit.AuditAction;
+import ru.kata.common.audit.AuditEvent;
+import ru.kata.common.audit.AuditLogReader;
+import ru.kata.spring.boot_security.demo.UserFixtures;
+import ru.kata.spring.boot_security.demo.dto.UserDto;
+import ru.kata.spring.boot_security.demo.mapper.UserMapper;
+import ru.kata.spring.boot_security.demo.repository.UserRepository;
+import ru.kata.spring.boot_security.demo.service.UserService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * События UserService в журнале аудита: записываются после коммита с именем выполнившего.
+ */
+@SpringBootTest(properties = "audit.flush-interval=20ms")
+class AuditLogTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserFixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures.createRoles("ADMIN", "USER");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(username = "auditor")
+    void userServiceWritesAreAuditedAfterCommit() throws IOException {
+        Instant start = Instant.now();
+        userService.saveWithRoles(UserFixtures.user("audited"));
+        Long id = userRepository.findByUsername("audited").orElseThrow().getId();
+        UserDto form = userMapper.toDto(userService.findById(id));
+        form.setRoles(new String[]{"ADMIN"});
+        userService.updateWithRoles(form);
+        userService.deleteById(id);
+
+        Path auditDir = Path.of("target/audit");
+        List<AuditEvent> events = new ArrayList<>();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            events.clear();
+            AuditLogReader.replay(auditDir, id, start, null, events::add);
+            assertThat(events).extracting(AuditEvent::action).containsExactly(
+                    AuditAction.CREATE, AuditAction.UPDATE, AuditAction.ROLES_CHANGED, AuditAction.DELETE);
+        });
+        assertThat(events).extracting(AuditEvent::actor).containsOnly("auditor");
+        assertThat(events.get(0).details()).isEqualTo("username=audited, email=audited@example.com, roles=[USER]");
+        assertThat(events.get(2).details()).isEqualTo("roles=[ADMIN]");
+    }
+}
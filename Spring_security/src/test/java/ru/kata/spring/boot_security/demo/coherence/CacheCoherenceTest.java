@@ -0,0 +1,130 @@
+package ru.kata.spring.boot_security.demo.coherence;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.kata.common.view.RenderedFragmentCache;
+import ru.kata.spring.boot_security.demo.SpringBootSecurityDemoApplication;
+import ru.kata.spring.boot_security.demo.UserFixtures;
+import ru.kata.spring.boot_security.demo.dto.UserDto;
+import ru.kata.spring.boot_security.demo.dto.UserPrincipal;
+import ru.kata.spring.boot_security.demo.dto.UserSuggestionDto;
+import ru.kata.spring.boot_security.demo.mapper.UserMapper;
+import ru.kata.spring.boot_security.demo.model.Role;
+import ru.kata.spring.boot_security.demo.repository.RoleRepository;
+import ru.kata.spring.boot_security.demo.repository.UserRepository;
+import ru.kata.spring.boot_security.demo.search.UserSearchIndex;
+import ru.kata.spring.boot_security.demo.service.PrincipalCache;
+import ru.kata.spring.boot_security.demo.service.RoleCatalog;
+import ru.kata.spring.boot_security.demo.service.UserService;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Два узла приложения в одной JVM над общей встроенной БД: запись на одном узле
+ * сбрасывает кэши другого через cache_changes, свои изменения узел не применяет повторно,
+ * а строка, закоммиченная после строк с большими id, не теряется даже за длинным пропуском.
+ */
+class CacheCoherenceTest {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("a", "create-drop");
+        nodeB = startNode("b", "none");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    private static ConfigurableApplicationContext startNode(String name, String ddlAuto) {
+        return new SpringApplicationBuilder(SpringBootSecurityDemoApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:coherence;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "--server.port=0",
+                "--audit.dir=target/audit-" + name,
+                "--cache.coherence.enabled=true",
+                "--cache.coherence.poll-interval=50ms",
+                "--cache.coherence.batch-size=10");
+    }
+
+    @Test
+    void writesOnOneNodeInvalidateCachesOnTheOther() {
+        nodeA.getBean(RoleRepository.class).save(new Role(null, "USER"));
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(nodeB.getBean(RoleCatalog.class).getByName("USER")).isNotNull());
+
+        UserService users = nodeA.getBean(UserService.class);
+        users.saveWithRoles(UserFixtures.user("coherent"));
+        UserSearchIndex searchB = nodeB.getBean(UserSearchIndex.class);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(searchB.search("coherent", 5)).extracting(UserSuggestionDto::getUsername)
+                        .containsExactly("coherent"));
+
+        PrincipalCache principalsB = nodeB.getBean(PrincipalCache.class);
+        AtomicInteger loads = new AtomicInteger();
+        Long id = nodeA.getBean(UserRepository.class).findByUsername("coherent").orElseThrow().getId();
+        UserPrincipal cached = new UserPrincipal(id, "coherent", "coherent@example.com", "{noop}x", List.of());
+        principalsB.get("coherent", login -> { loads.incrementAndGet(); return cached; });
+        long fragmentsVersion = nodeB.getBean(RenderedFragmentCache.class).version();
+
+        UserDto form = nodeA.getBean(UserMapper.class).toDto(users.findById(id));
+        form.setLastName("Renamed");
+        users.updateWithRoles(form);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(searchB.search("renamed", 5)).extracting(UserSuggestionDto::getId).containsExactly(id);
+            assertThat(nodeB.getBean(RenderedFragmentCache.class).version()).isGreaterThan(fragmentsVersion);
+        });
+        principalsB.get("coherent", login -> { loads.incrementAndGet(); return cached; });
+        assertThat(loads).hasValue(2);
+
+        users.deleteById(id);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(searchB.search("coherent", 5)).isEmpty());
+
+        assertThat(nodeA.getBean(MeterRegistry.class).counter("cache.coherence.applied").count()).isZero();
+        assertThat(nodeB.getBean(MeterRegistry.class).counter("cache.coherence.applied").count())
+                .isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void lateCommitBehindGapLongerThanBatchIsApplied() {
+        JdbcTemplate jdbc = nodeA.getBean(JdbcTemplate.class);
+        String nodeAId = nodeA.getBean(CacheChangeLog.class).nodeId();
+        long max = jdbc.queryForObject("select coalesce(max(id), 0) from cache_changes", Long.class);
+        jdbc.execute("alter table cache_changes alter column id restart with " + (max + 100));
+        Counter appliedB = nodeB.getBean(MeterRegistry.class).counter("cache.coherence.applied");
+        double before = appliedB.count();
+
+        insertChange(jdbc, max + 50, nodeAId);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(appliedB.count()).isEqualTo(before + 1));
+
+        insertChange(jdbc, max + 5, nodeAId);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(appliedB.count()).isEqualTo(before + 2));
+    }
+
+    /** Строка с заданным id - как закоммиченная транзакция, получившая id раньше других. */
+    private static void insertChange(JdbcTemplate jdbc, long id, String nodeId) {
+        jdbc.update("insert into cache_changes (id, node_id, region, entity_id, created_at) values (?, ?, ?, ?, ?)",
+                id, nodeId, CacheRegion.ROLES.name(), null, Timestamp.from(Instant.now()));
+    }
+}
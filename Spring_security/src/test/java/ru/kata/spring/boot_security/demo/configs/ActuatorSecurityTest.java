@@ -0,0 +1,33 @@
+package ru.kata.spring.boot_security.demo.configs;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Actuator: health открыт, метрики - только скрейперу по HTTP Basic.
+ */
+@SpringBootTest(properties = {"security.metrics.username=scraper", "security.metrics.password=scrape-secret"})
+@AutoConfigureMockMvc
+class ActuatorSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheusRequiresScraperCredentials() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("scraper", "wrong")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("scraper", "scrape-secret")))
+                .andExpect(status().isOk());
+    }
+}
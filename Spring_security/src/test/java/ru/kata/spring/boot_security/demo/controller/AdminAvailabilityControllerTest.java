@@ -0,0 +1,69 @@
+package ru.kata.spring.boot_security.demo.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.kata.spring.boot_security.demo.UserFixtures;
+import ru.kata.spring.boot_security.demo.service.UserService;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверка занятости для форм админки: в сессионной цепочке /admin/**, формы её вызывают.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AdminAvailabilityControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserFixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures.createRoles("ADMIN", "USER");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void formSessionChecksAvailability() throws Exception {
+        userService.saveWithRoles(UserFixtures.user("taken"));
+
+        mockMvc.perform(get("/admin/availability").param("username", "taken").param("email", "free@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value(false))
+                .andExpect(jsonPath("$.email").value(true));
+        mockMvc.perform(get("/admin/availability")).andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/admin/add"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("data-availability=\"email\"")))
+                .andExpect(content().string(containsString("\\/admin\\/availability")));
+    }
+
+    @Test
+    @WithMockUser
+    void requiresAdmin() throws Exception {
+        mockMvc.perform(get("/admin/availability").param("username", "taken"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,154 @@
+package ru.kata.spring.boot_security.demo.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import ru.kata.common.datasource.PrimaryReads;
+import ru.kata.spring.boot_security.demo.UserFixtures;
+import ru.kata.spring.boot_security.demo.dto.UserDto;
+import ru.kata.spring.boot_security.demo.mapper.UserMapper;
+import ru.kata.spring.boot_security.demo.model.User;
+import ru.kata.spring.boot_security.demo.repository.UserRepository;
+import ru.kata.spring.boot_security.demo.service.UserService;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Маршрутизация на двух встроенных БД: реплика - копия primary через SCRIPT, после копирования
+ * имя пользователя на реплике меняется, и по нему видно, откуда прочитаны данные.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rw_primary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "datasource.replica.url=jdbc:h2:mem:rw_replica;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "datasource.replica.heartbeat-interval=50ms",
+        "datasource.replica.max-lag=1h"
+})
+class ReadWriteRoutingTest {
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private Long id;
+
+    @Autowired
+    private UserFixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures.createRoles("USER");
+        userService.saveWithRoles(UserFixtures.user("routed"));
+        id = userRepository.findByUsername("routed").orElseThrow().getId();
+        replicate();
+        new JdbcTemplate(replica).update("update users set first_name = 'Replica' where id = ?", id);
+        await().atMost(Duration.ofSeconds(5)).until(lagMonitor::isReplicaUsable);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    void readOnlyServiceTransactionsReadReplica() {
+        assertThat(userService.findById(id).getFirstName()).isEqualTo("Replica");
+        assertThat(userService.findAll()).extracting(User::getFirstName).containsExactly("Replica");
+
+        // Транзакции Spring Data по умолчанию и запросы вне транзакции - на primary
+        assertThat(userRepository.findAll()).extracting(User::getFirstName).containsExactly("Ivan");
+        assertThat(userRepository.findWithRolesById(id).orElseThrow().getFirstName()).isEqualTo("Ivan");
+        assertThat(PrimaryReads.onPrimary(() -> userService.findById(id).getFirstName())).isEqualTo("Ivan");
+    }
+
+    @Test
+    void clientReadsItsOwnWritesFromPrimary() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofMinutes(1));
+        AtomicReference<String> read = new AtomicReference<>();
+
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(), writeResponse, (req, res) -> {
+            UserDto form = userMapper.toDto(userService.findById(id));
+            form.setLastName("Renamed");
+            userService.updateWithRoles(form);
+            read.set(userService.findById(id).getLastName());
+        });
+        assertThat(read).hasValue("Renamed");
+        Cookie cookie = writeResponse.getCookie(ReadYourWritesFilter.COOKIE);
+        assertThat(cookie).isNotNull();
+
+        MockHttpServletRequest sticky = new MockHttpServletRequest();
+        sticky.setCookies(cookie);
+        filter.doFilter(sticky, new MockHttpServletResponse(),
+                (req, res) -> read.set(userService.findById(id).getLastName()));
+        assertThat(read).hasValue("Renamed");
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                (req, res) -> read.set(userService.findById(id).getLastName()));
+        assertThat(read).hasValue("Petrov");
+    }
+
+    @Test
+    void openInViewIsDisabled() {
+        // Иначе соединение, выбранное первым read-only чтением запроса, досталось бы и его записи
+        assertThat(context.getBeanNamesForType(OpenEntityManagerInViewInterceptor.class)).isEmpty();
+    }
+
+    @Test
+    void laggingReplicaIsBypassed() {
+        new JdbcTemplate(replica).update("update replica_heartbeat set beat_at = ? where id = 1",
+                Timestamp.from(Instant.now().minus(Duration.ofHours(2))));
+        await().atMost(Duration.ofSeconds(5)).until(() -> !lagMonitor.isReplicaUsable());
+
+        assertThat(userService.findById(id).getFirstName()).isEqualTo("Ivan");
+        assertThat(meterRegistry.counter("datasource.routing", "target", "primary", "reason", "replica-lag").count())
+                .isPositive();
+    }
+
+    /** "Репликация": снимок primary через SCRIPT поверх пустой реплики. */
+    private void replicate() {
+        List<String> script = new JdbcTemplate(primary).queryForList("SCRIPT", String.class);
+        JdbcTemplate target = new JdbcTemplate(replica);
+        target.execute("DROP ALL OBJECTS");
+        script.forEach(target::execute);
+    }
+}
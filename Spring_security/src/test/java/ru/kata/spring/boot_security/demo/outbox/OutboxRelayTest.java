@@ -0,0 +1,118 @@
+package ru.kata.spring.boot_security.demo.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import ru.kata.spring.boot_security.demo.UserFixtures;
+import ru.kata.spring.boot_security.demo.dto.UserDto;
+import ru.kata.spring.boot_security.demo.mapper.UserMapper;
+import ru.kata.spring.boot_security.demo.repository.OutboxEventRepository;
+import ru.kata.spring.boot_security.demo.repository.UserRepository;
+import ru.kata.spring.boot_security.demo.service.UserService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Outbox: события UserService доставляются ретранслятором по порядку, после отказов получателя -
+ * с повтором, и удаляются из user_outbox.
+ */
+@SpringBootTest(properties = {
+        "outbox.sink=custom",
+        "outbox.relay.enabled=true",
+        "outbox.relay.initial-backoff=10ms",
+        "outbox.relay.poll-interval=50ms"
+})
+class OutboxRelayTest {
+
+    @Autowired
+    private FlakySink sink;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserFixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures.createRoles("USER");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    void userChangesAreDeliveredInOrderAfterSinkFailures() {
+        sink.failNext(2);
+        userService.saveWithRoles(UserFixtures.user("outboxed"));
+        Long id = userRepository.findByUsername("outboxed").orElseThrow().getId();
+        UserDto form = userMapper.toDto(userService.findById(id));
+        form.setLastName("Smirnov");
+        userService.updateWithRoles(form);
+        userService.deleteById(id);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(sink.delivered).filteredOn(e -> e.userId() == id)
+                        .extracting(UserChangeEvent::type)
+                        .containsExactly(UserChangeType.USER_CREATED, UserChangeType.USER_UPDATED,
+                                UserChangeType.USER_DELETED));
+        assertThat(meterRegistry.counter("outbox.relay.failures").count()).isGreaterThanOrEqualTo(2);
+        assertThat(sink.delivered.get(1).payload())
+                .contains("\"lastName\":\"Smirnov\"", "\"roles\":[\"USER\"]", "\"version\":1")
+                .doesNotContain("password");
+        await().atMost(Duration.ofSeconds(5)).until(() -> outboxEventRepository.count() == 0);
+    }
+
+    @TestConfiguration
+    static class SinkConfig {
+
+        @Bean
+        FlakySink flakySink() {
+            return new FlakySink();
+        }
+    }
+
+    /** Получатель, отказывающий заданное число раз подряд. */
+    static class FlakySink implements OutboxSink {
+
+        final List<UserChangeEvent> delivered = new CopyOnWriteArrayList<>();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        void failNext(int times) {
+            failures.set(times);
+        }
+
+        @Override
+        public void deliver(List<UserChangeEvent> events) {
+            if (failures.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                throw new IllegalStateException("sink unavailable");
+            }
+            delivered.addAll(events);
+        }
+    }
+}
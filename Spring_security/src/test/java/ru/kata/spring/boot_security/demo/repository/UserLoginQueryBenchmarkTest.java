@@ -0,0 +1,119 @@
+package ru.kata.spring.boot_security.demo.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.kata.spring.boot_security.demo.model.Role;
+import ru.kata.spring.boot_security.demo.model.User;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение старого (findByUsername → findByEmail) и нового (findAllByLogin)
+ * способов поиска пользователя при логине на встроенной H2.
+ * <p>
+ * Проверяется число SQL-выражений по статистике Hibernate; средняя задержка
+ * пишется в лог и не проверяется — она зависит от машины.
+ */
+@Slf4j
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class UserLoginQueryBenchmarkTest {
+
+    private static final int USERS = 1_000;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Role admin = roleRepository.save(new Role(null, "ADMIN"));
+        Role user = roleRepository.save(new Role(null, "USER"));
+        for (int i = 0; i < USERS; i++) {
+            userRepository.save(User.builder()
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .age(20 + i % 50)
+                    .username("user" + i)
+                    .email("user" + i + "@example.com")
+                    .password("{noop}password")
+                    .roles(i % 10 == 0 ? Set.of(admin, user) : Set.of(user))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void usernameLookup() {
+        compare("username", "user500", true);
+    }
+
+    @Test
+    void emailLookup() {
+        compare("email", "user500@example.com", true);
+    }
+
+    @Test
+    void notFoundLookup() {
+        compare("not-found", "nobody", false);
+    }
+
+    private void compare(String scenario, String login, boolean expectFound) {
+        Supplier<Optional<User>> legacy = () -> userRepository.findByUsername(login)
+                .or(() -> userRepository.findByEmail(login));
+        Supplier<Optional<User>> single = () -> userRepository.findAllByLogin(login).stream().findFirst();
+
+        Measurement before = measure(legacy, expectFound);
+        Measurement after = measure(single, expectFound);
+        log.info("[{}] legacy: {} statements, {} us/op; single: {} statements, {} us/op",
+                scenario, before.statements, before.micros, after.statements, after.micros);
+
+        assertThat(after.statements).isEqualTo(1);
+        assertThat(after.statements).isLessThan(before.statements);
+    }
+
+    private Measurement measure(Supplier<Optional<User>> lookup, boolean expectFound) {
+        statistics.clear();
+        Optional<User> result = lookup.get();
+        assertThat(result.isPresent()).isEqualTo(expectFound);
+        result.ifPresent(u -> assertThat(u.getRoles()).isNotEmpty());
+        long statements = statistics.getPrepareStatementCount();
+        entityManager.clear();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            lookup.get();
+            entityManager.clear();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            lookup.get();
+            entityManager.clear();
+        }
+        long micros = (System.nanoTime() - start) / ITERATIONS / 1_000;
+        return new Measurement(statements, micros);
+    }
+
+    private record Measurement(long statements, long micros) {
+    }
+}
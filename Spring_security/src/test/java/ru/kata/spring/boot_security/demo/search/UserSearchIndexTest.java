@@ -0,0 +1,95 @@
+package ru.kata.spring.boot_security.demo.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.kata.common.search.TrigramIndex;
+import ru.kata.spring.boot_security.demo.UserFixtures;
+import ru.kata.spring.boot_security.demo.dto.UserDto;
+import ru.kata.spring.boot_security.demo.dto.UserSuggestionDto;
+import ru.kata.spring.boot_security.demo.model.User;
+import ru.kata.spring.boot_security.demo.repository.UserRepository;
+import ru.kata.spring.boot_security.demo.service.UserService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Type-ahead индекс: ранжирование совпадений и согласованность с записью через UserService.
+ * Без @Transactional: индекс обновляется только после коммита.
+ */
+@SpringBootTest
+class UserSearchIndexTest {
+
+    @Autowired
+    private UserSearchIndex searchIndex;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserFixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures.createRoles("USER");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteAll();
+        searchIndex.rebuild();
+    }
+
+    @Test
+    void ranksExactAndPrefixMatchesFirst() {
+        TrigramIndex<String> index = new TrigramIndex<>();
+        index.put(1, "middle", "Marianna", "m.anna@example.com");
+        index.put(2, "token", "Anna-Maria", "am@example.com");
+        index.put(3, "exact", "Anna", "a@example.com");
+        index.put(4, "none", "Olga", "olga@example.com");
+
+        assertThat(index.search("ANNA", 10)).containsExactly("exact", "token", "middle");
+        assertThat(index.search("an", 2)).containsExactly("exact", "token");
+        assertThat(index.search("xyz", 10)).isEmpty();
+
+        index.put(3, "renamed", "Olga", "o@example.com");
+        index.remove(2);
+        assertThat(index.search("anna", 10)).containsExactly("middle");
+        assertThat(index.search("olg", 10)).containsExactly("renamed", "none");
+    }
+
+    @Test
+    void followsUserServiceWrites() {
+        userService.saveWithRoles(UserFixtures.user("ipetrov", "ivan@example.com"));
+        UserSuggestionDto found = searchIndex.search("petr", null).get(0);
+        assertThat(found.getUsername()).isEqualTo("ipetrov");
+
+        User user = userRepository.findWithRolesById(found.getId()).orElseThrow();
+        UserDto update = UserFixtures.user("ismirnov", "ivan@example.com");
+        update.setLastName("Smirnov");
+        update.setId(user.getId());
+        update.setVersion(user.getVersion());
+        userService.updateWithRoles(update);
+        assertThat(searchIndex.search("ipetrov", null)).isEmpty();
+        assertThat(searchIndex.search("smirn", null)).extracting(UserSuggestionDto::getId).containsExactly(user.getId());
+
+        userService.deleteById(user.getId());
+        assertThat(searchIndex.search("ivan", null)).isEmpty();
+    }
+
+    @Test
+    void rebuildPicksUpRowsWrittenAroundTheService() {
+        userRepository.save(User.builder().firstName("Olga").lastName("Sidorova").age(25)
+                .username("osid").email("olga@example.com").password("password").build());
+        assertThat(searchIndex.search("sidor", null)).isEmpty();
+
+        searchIndex.rebuild();
+
+        assertThat(searchIndex.search("sidor", null)).extracting(UserSuggestionDto::getUsername).containsExactly("osid");
+    }
+}
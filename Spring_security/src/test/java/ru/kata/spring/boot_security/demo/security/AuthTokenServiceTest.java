@@ -0,0 +1,146 @@
+package ru.kata.spring.boot_security.demo.security;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import ru.kata.spring.boot_security.demo.dto.UserPrincipal;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Выпуск и проверка токенов: подпись, срок действия, предел сессии, ротация ключей.
+ */
+class AuthTokenServiceTest {
+
+    private static final String KEY_A = "a:" + Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String KEY_B = "b:" + Base64.getEncoder().encodeToString("b".repeat(32).getBytes());
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final UserPrincipal principal = new UserPrincipal(7L, "ivan", "ivan@example.com", "hash",
+            List.<GrantedAuthority>of(new SimpleGrantedAuthority("ROLE_ADMIN"), new SimpleGrantedAuthority("ROLE_USER")));
+
+    private static AuthTokenService service(String keys, String active, Instant now) {
+        return new AuthTokenService(keys, active, Duration.ofMinutes(15), Duration.ofHours(1), "AUTH_TOKEN", true,
+                Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    @Test
+    void issuedTokenVerifiesToIdUsernameAndAuthorities() {
+        AuthTokenService tokens = service(KEY_A, "a", NOW);
+
+        UserPrincipal restored = tokens.verify(tokens.issue(principal)).orElseThrow().principal();
+
+        assertThat(restored.getId()).isEqualTo(7L);
+        assertThat(restored.getUsername()).isEqualTo("ivan");
+        assertThat(restored.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_ADMIN", "ROLE_USER");
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        AuthTokenService tokens = service(KEY_A, "a", NOW);
+        String token = tokens.issue(principal);
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("7\n9999999999\n0\nROLE_ADMIN\nivan".getBytes()) + "." + parts[2];
+
+        assertThat(tokens.verify(forged)).isEmpty();
+        assertThat(tokens.verify("garbage")).isEmpty();
+    }
+
+    @Test
+    void expiredTokenIsRejectedAndRefreshAfterHalfLife() {
+        String token = service(KEY_A, "a", NOW).issue(principal);
+
+        assertThat(service(KEY_A, "a", NOW.plus(Duration.ofMinutes(15)))
+                .verify(token)).isEmpty();
+        AuthTokenService later = service(KEY_A, "a", NOW.plus(Duration.ofMinutes(10)));
+        assertThat(later.needsRefresh(later.verify(token).orElseThrow())).isTrue();
+    }
+
+    @Test
+    void refreshKeepsLoginTimeAndStopsAtMaxSession() {
+        String token = service(KEY_A, "a", NOW).issue(principal);
+        for (int minute = 10; minute < 60; minute += 10) {
+            AuthTokenService later = service(KEY_A, "a", NOW.plus(Duration.ofMinutes(minute)));
+            AuthTokenService.AuthToken verified = later.verify(token).orElseThrow();
+            assertThat(verified.issuedAt()).isEqualTo(NOW);
+            if (later.needsRefresh(verified)) {
+                token = later.refresh(verified, principal);
+            }
+        }
+
+        AuthTokenService atLimit = service(KEY_A, "a", NOW.plus(Duration.ofMinutes(55)));
+        AuthTokenService.AuthToken last = atLimit.verify(token).orElseThrow();
+        assertThat(last.expiresAt()).isEqualTo(NOW.plus(Duration.ofHours(1)));
+        assertThat(atLimit.needsRefresh(last)).isFalse();
+        assertThat(service(KEY_A, "a", NOW.plus(Duration.ofHours(1))).verify(token)).isEmpty();
+    }
+
+    @Test
+    void cookieOfRemovedUserOrChangedRolesIsDroppedOnRefresh() throws Exception {
+        String token = service(KEY_A, "a", NOW).issue(principal);
+        AuthTokenService later = service(KEY_A, "a", NOW.plus(Duration.ofMinutes(10)));
+        UserPrincipal demoted = new UserPrincipal(7L, "ivan", "ivan@example.com", "hash",
+                List.<GrantedAuthority>of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        assertThat(refreshCookie(later, token, login -> principal)).contains("AUTH_TOKEN=a.").contains("Max-Age=900");
+        assertThat(refreshCookie(later, token, login -> demoted)).contains("Max-Age=0");
+        assertThat(refreshCookie(later, token, login -> {
+            throw new UsernameNotFoundException(login);
+        })).contains("Max-Age=0");
+    }
+
+    @Test
+    void renewalKeepsLoginTimeAndRechecksUser() {
+        String token = service(KEY_A, "a", NOW).issue(principal);
+        AuthTokenService later = service(KEY_A, "a", NOW.plus(Duration.ofMinutes(10)));
+        AuthTokenService.AuthToken verified = later.verify(token).orElseThrow();
+        UserPrincipal demoted = new UserPrincipal(7L, "ivan", "ivan@example.com", "hash",
+                List.<GrantedAuthority>of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        AuthTokenService.AuthToken renewed = later.verify(later.renew(verified, login -> principal).orElseThrow())
+                .orElseThrow();
+        assertThat(renewed.issuedAt()).isEqualTo(NOW);
+        assertThat(renewed.expiresAt()).isEqualTo(NOW.plus(Duration.ofMinutes(25)));
+        assertThat(later.renew(verified, login -> demoted)).isEmpty();
+        assertThat(later.renew(verified, login -> {
+            throw new UsernameNotFoundException(login);
+        })).isEmpty();
+    }
+
+    private static String refreshCookie(AuthTokenService tokens, String token, UserDetailsService users)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user");
+        request.setCookies(new Cookie("AUTH_TOKEN", token));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new AuthTokenFilter(tokens, users).doFilter(request, response, new MockFilterChain());
+        SecurityContextHolder.clearContext();
+        return response.getHeader(HttpHeaders.SET_COOKIE);
+    }
+
+    @Test
+    void tokensSignedWithPreviousKeyStayValidDuringRotation() {
+        String oldToken = service(KEY_A, "a", NOW).issue(principal);
+        AuthTokenService rotated = service(KEY_A + "," + KEY_B, "b", NOW);
+
+        assertThat(rotated.verify(oldToken)).isPresent();
+        assertThat(rotated.issue(principal)).startsWith("b.");
+        assertThat(service(KEY_B, "b", NOW).verify(oldToken)).isEmpty();
+    }
+}
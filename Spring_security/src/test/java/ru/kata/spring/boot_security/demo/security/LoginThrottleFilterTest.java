@@ -0,0 +1,75 @@
+package ru.kata.spring.boot_security.demo.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ограничение попыток входа на настоящем Tomcat: адрес клиента из X-Forwarded-For
+ * доверенного прокси (здесь - localhost) и лимит на HTTP Basic в цепочке /api/**.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.forward-headers-strategy=native",
+        "server.tomcat.remoteip.remote-ip-header=X-Forwarded-For",
+        "security.login-throttle.ip.capacity=2",
+        "security.login-throttle.ip.refill=1h",
+        "security.login-throttle.username.capacity=100"
+})
+class LoginThrottleFilterTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void clientsBehindTrustedProxyHaveSeparateIpBuckets() throws Exception {
+        assertThat(formLogin("203.0.113.1", "a")).isEqualTo("/login?error=true");
+        assertThat(formLogin("203.0.113.1", "b")).isEqualTo("/login?error=true");
+        assertThat(formLogin("203.0.113.1", "c")).isEqualTo("/login?throttled");
+
+        assertThat(formLogin("203.0.113.2", "d")).isEqualTo("/login?error=true");
+    }
+
+    @Test
+    void httpBasicOnApiIsThrottledToo() throws Exception {
+        assertThat(basic("198.51.100.1", "x").statusCode()).isEqualTo(401);
+        assertThat(basic("198.51.100.1", "y").statusCode()).isEqualTo(401);
+
+        HttpResponse<Void> throttled = basic("198.51.100.1", "z");
+        assertThat(throttled.statusCode()).isEqualTo(429);
+        assertThat(throttled.headers().firstValue("Retry-After")).isPresent();
+    }
+
+    private String formLogin(String clientIp, String login) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/login"))
+                .header("X-Forwarded-For", clientIp)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("emailOrUsername=" + login + "&password=wrong"))
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        assertThat(response.statusCode()).isEqualTo(302);
+        URI location = URI.create(response.headers().firstValue("Location").orElseThrow());
+        return location.getRawPath() + "?" + location.getRawQuery();
+    }
+
+    private HttpResponse<Void> basic(String clientIp, String login) throws Exception {
+        String credentials = Base64.getEncoder()
+                .encodeToString((login + ":wrong").getBytes(StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/users"))
+                .header("X-Forwarded-For", clientIp)
+                .header("Authorization", "Basic " + credentials)
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+}
@@ -0,0 +1,104 @@
+package ru.kata.spring.boot_security.demo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Token bucket'ы попыток входа: размер всплеска, пополнение, возврат токенов, раздельные
+ * общие ведра формы и HTTP Basic и метрики.
+ */
+class LoginThrottleTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private LoginThrottle throttle(int ipCapacity, int loginCapacity, int globalCapacity) {
+        return new LoginThrottle(registry, ipCapacity, Duration.ofSeconds(1), loginCapacity, Duration.ofSeconds(1),
+                globalCapacity, Duration.ofSeconds(1), globalCapacity, Duration.ofSeconds(1), 1000);
+    }
+
+    private double count(String result) {
+        return registry.get("auth.login.throttle").tag("result", result).counter().count();
+    }
+
+    @Test
+    void loginBucketAllowsBurstThenRefillsOneAttemptPerInterval() {
+        LoginThrottle throttle = throttle(100, 3, 100);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(throttle.tryAcquire("Ivan", "10.0.0." + i, now)).isZero();
+        }
+        assertThat(throttle.tryAcquire("ivan ", "10.0.0.9", now)).isEqualTo(SECOND);
+        assertThat(throttle.tryAcquire("ivan", "10.0.0.9", now + SECOND / 2)).isEqualTo(SECOND / 2);
+        assertThat(throttle.tryAcquire("ivan", "10.0.0.9", now + SECOND)).isZero();
+        assertThat(count("username")).isEqualTo(2);
+    }
+
+    @Test
+    void rejectedAttemptReturnsTokensOfEarlierBuckets() {
+        LoginThrottle throttle = throttle(3, 1, 100);
+        long now = System.nanoTime();
+
+        assertThat(throttle.tryAcquire("a", "1.1.1.1", now)).isZero();
+        assertThat(throttle.tryAcquire("a", "1.1.1.1", now)).isPositive();
+        assertThat(throttle.tryAcquire("a", "1.1.1.1", now)).isPositive();
+
+        assertThat(throttle.tryAcquire("b", "1.1.1.1", now)).isZero();
+        assertThat(throttle.tryAcquire("c", "1.1.1.1", now)).isZero();
+        assertThat(throttle.tryAcquire("d", "1.1.1.1", now)).isPositive();
+        assertThat(count("ip")).isEqualTo(1);
+        assertThat(count("allowed")).isEqualTo(3);
+    }
+
+    @Test
+    void globalBucketAdmitsExactlyCapacityUnderContention() throws InterruptedException {
+        LoginThrottle throttle = throttle(1000, 1000, 50);
+        long now = System.nanoTime();
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) {
+            String login = "user" + i;
+            pool.execute(() -> {
+                if (throttle.tryAcquire(login, "ip-" + login, now) == 0) {
+                    admitted.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(admitted.get()).isEqualTo(50);
+        assertThat(count("global")).isEqualTo(350);
+        assertThat(registry.get("auth.login.throttle.keys").tag("bucket", "username").gauge().value())
+                .isEqualTo(400);
+    }
+
+    @Test
+    void formLoginBurstDoesNotStarveHttpBasic() {
+        LoginThrottle throttle = throttle(1000, 1000, 5);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(throttle.tryAcquire("victim" + i, "203.0.113." + i, now)).isZero();
+        }
+        assertThat(throttle.tryAcquire("victim9", "203.0.113.9", now)).isPositive();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(throttle.tryAcquireBasic("api", "10.0.0.1", now)).isZero();
+            throttle.refund("api", "10.0.0.1");
+        }
+        assertThat(throttle.tryAcquireBasic("api", "10.0.0.1", now)).isPositive();
+        assertThat(count("global")).isEqualTo(1);
+        assertThat(count("basic")).isEqualTo(1);
+    }
+}
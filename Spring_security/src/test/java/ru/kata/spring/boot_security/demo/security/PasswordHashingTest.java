@@ -0,0 +1,118 @@
+package ru.kata.spring.boot_security.demo.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.kata.spring.boot_security.demo.UserFixtures;
+import ru.kata.spring.boot_security.demo.model.User;
+import ru.kata.spring.boot_security.demo.repository.UserRepository;
+import ru.kata.spring.boot_security.demo.service.RoleCatalog;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+/**
+ * Хэширование паролей: ограниченный пул (очередь, таймаут) и перехэширование
+ * устаревшего хэша при успешном входе.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PasswordHashingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleCatalog roleCatalog;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserFixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures.createRoles("USER");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    void legacyHashIsUpgradedOnSuccessfulLoginOnly() throws Exception {
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+        userRepository.save(User.builder()
+                .firstName("Olga").lastName("Sidorova").age(30)
+                .username("legacy").email("legacy@example.com")
+                .password(legacy)
+                .roles(Set.copyOf(roleCatalog.getRoles()))
+                .build());
+
+        mockMvc.perform(post("/login").param("emailOrUsername", "legacy").param("password", "wrong"))
+                .andExpect(redirectedUrl("/login?error=true"));
+        assertThat(storedPassword()).isEqualTo(legacy);
+
+        mockMvc.perform(post("/login").param("emailOrUsername", "legacy").param("password", "secret"))
+                .andExpect(redirectedUrl("/user"));
+        assertThat(storedPassword()).startsWith("{bcrypt}$2a$04$");
+        assertThat(passwordEncoder.matches("secret", storedPassword())).isTrue();
+    }
+
+    @Test
+    void busyPoolRejectsInsteadOfQueueingWithoutBound() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 1, 1, Duration.ofMillis(200), registry)) {
+            CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("a", "x"));
+            CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("b", "x"));
+            Thread.sleep(50);
+
+            assertThatThrownBy(() -> encoder.matches("c", "x")).isInstanceOf(PasswordHashingBusyException.class);
+            assertThat(running).failsWithin(Duration.ofSeconds(1));
+            assertThat(queued).failsWithin(Duration.ofSeconds(1));
+            release.countDown();
+
+            assertThat(registry.get("password.hashing.rejected").tag("reason", "queue-full").counter().count())
+                    .isEqualTo(1);
+            assertThat(registry.get("password.hashing.rejected").tag("reason", "timeout").counter().count())
+                    .isEqualTo(2);
+        }
+    }
+
+    private String storedPassword() {
+        return userRepository.findByUsername("legacy").orElseThrow().getPassword();
+    }
+}
@@ -0,0 +1,94 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kata.spring.boot_security.demo.dto.UserDto;
+import ru.kata.spring.boot_security.demo.model.Role;
+import ru.kata.spring.boot_security.demo.model.User;
+import ru.kata.spring.boot_security.demo.repository.RoleRepository;
+import ru.kata.spring.boot_security.demo.repository.UserRepository;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Список пользователей админки: число SQL-выражений по статистике Hibernate
+ * не должно зависеть от размера страницы (нет N+1 по ролям).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class AdminUserListingTest {
+
+    private static final int USERS = 120;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Role admin = roleRepository.save(new Role(null, "ADMIN"));
+        Role user = roleRepository.save(new Role(null, "USER"));
+        for (int i = 0; i < USERS; i++) {
+            userRepository.save(User.builder()
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .age(30)
+                    .username("listing" + i)
+                    .email("listing" + i + "@example.com")
+                    .password("{noop}password")
+                    .roles(i % 3 == 0 ? Set.of(admin, user) : Set.of(user))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void pageOfUsersWithRolesIsLoadedInBoundedStatements() {
+        Page<UserDto> page = userService.findPage(PageRequest.of(1, 50, Sort.by("id")));
+
+        assertThat(page.getContent()).hasSize(50);
+        assertThat(page.getTotalElements()).isEqualTo(USERS);
+        assertThat(page.getContent()).allSatisfy(u -> assertThat(u.getRoles()).contains("USER"));
+        // id-страница + count + пользователи с ролями
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithPageSize() {
+        userService.findPage(PageRequest.of(0, 10, Sort.by("id")));
+        long small = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        statistics.clear();
+
+        userService.findPage(PageRequest.of(0, 100, Sort.by("id")));
+        long large = statistics.getPrepareStatementCount();
+
+        assertThat(large).isEqualTo(small);
+    }
+}
@@ -0,0 +1,64 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.kata.spring.boot_security.demo.dto.UserPrincipal;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Кэш принципалов: загрузка, пересёкшаяся с инвалидацией, не оставляет устаревших записей.
+ */
+class PrincipalCacheTest {
+
+    private final PrincipalCache cache = new PrincipalCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+
+    private static UserPrincipal principal(String passwordHash) {
+        return new UserPrincipal(7L, "ivan", "ivan@example.com", passwordHash, List.of());
+    }
+
+    @Test
+    void loadOverlappingEvictionLeavesNoStaleEntries() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        CompletableFuture<UserPrincipal> stale = CompletableFuture.supplyAsync(() ->
+                cache.get("ivan@example.com", login -> {
+                    loading.countDown();
+                    await(evicted);
+                    return principal("old-hash");
+                }));
+
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.evictAfterCommit(7L, null, null);
+        evicted.countDown();
+        assertThat(stale.get(5, TimeUnit.SECONDS).getPassword()).isEqualTo("old-hash");
+
+        assertThat(cache.get("ivan", login -> principal("new-hash")).getPassword()).isEqualTo("new-hash");
+        assertThat(cache.get("IVAN@example.com", login -> principal("new-hash")).getPassword())
+                .isEqualTo("new-hash");
+    }
+
+    @Test
+    void usernameAliasServesLaterLogins() {
+        cache.get("ivan@example.com", login -> principal("hash"));
+
+        assertThat(cache.get("Ivan", login -> {
+            throw new AssertionError("alias must be cached");
+        }).getPassword()).isEqualTo("hash");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.kata.common.bloom.BloomFilter;
+import ru.kata.spring.boot_security.demo.UserFixtures;
+import ru.kata.spring.boot_security.demo.repository.UserRepository;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Проверка занятости username/email: фильтр Блума без ложноотрицательных ответов,
+ * свободные значения - без запроса в БД, ранний отказ в saveWithRoles.
+ * Без @Transactional: фильтр обновляется только после коммита.
+ */
+@SpringBootTest
+class UserAvailabilityServiceTest {
+
+    @Autowired
+    private UserAvailabilityService availabilityService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserFixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures.createRoles("USER");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteAll();
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegativesAndBoundedFalsePositives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("user" + i + "@example.com"));
+
+        assertThat(IntStream.range(0, 10_000)).allMatch(i -> filter.mightContain("user" + i + "@example.com"));
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> filter.mightContain("other" + i + "@example.com"))
+                .count();
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void registeredUserIsTakenAndFreeValuesSkipDatabase() {
+        userService.saveWithRoles(UserFixtures.user("taken", "Taken@Example.com"));
+
+        assertThat(availabilityService.isUsernameAvailable("taken")).isFalse();
+        assertThat(availabilityService.isEmailAvailable("Taken@Example.com")).isFalse();
+
+        double negativesBefore = filterNegatives();
+        assertThat(availabilityService.isEmailAvailable("free@example.com")).isTrue();
+        assertThat(filterNegatives()).isEqualTo(negativesBefore + 1);
+    }
+
+    @Test
+    void saveWithRolesRejectsTakenUsernameBeforeInsert() {
+        userService.saveWithRoles(UserFixtures.user("dup", "dup1@example.com"));
+
+        assertThatThrownBy(() -> userService.saveWithRoles(UserFixtures.user("dup", "dup2@example.com")))
+                .isInstanceOf(UserAlreadyExistsException.class)
+                .extracting("field").isEqualTo("username");
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    private double filterNegatives() {
+        return meterRegistry.get("users.availability.checks")
+                .tag("field", "email").tag("result", "filter_negative")
+                .counter().count();
+    }
+}
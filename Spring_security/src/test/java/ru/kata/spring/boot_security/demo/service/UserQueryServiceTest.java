@@ -0,0 +1,115 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kata.spring.boot_security.demo.model.Role;
+import ru.kata.spring.boot_security.demo.model.User;
+import ru.kata.spring.boot_security.demo.repository.RoleRepository;
+import ru.kata.spring.boot_security.demo.repository.UserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * JSON API: пакетный запрос по id, выборка полей и потоковая выдача.
+ */
+@SpringBootTest(properties = "users.api.max-batch-size=5")
+@Transactional
+class UserQueryServiceTest {
+
+    @Autowired
+    private UserQueryService userQueryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private RoleCatalog roleCatalog;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Role admin = roleRepository.save(new Role(null, "ADMIN"));
+        Role user = roleRepository.save(new Role(null, "USER"));
+        for (int i = 0; i < 3; i++) {
+            ids.add(userRepository.save(User.builder()
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .age(20 + i)
+                    .username("api" + i)
+                    .email("api" + i + "@example.com")
+                    .password("{noop}password")
+                    .roles(i == 0 ? Set.of(admin, user) : Set.of(user))
+                    .build()).getId());
+        }
+        entityManager.flush();
+        // транзакция теста не коммитится, поэтому справочник сбрасываем вручную
+        roleCatalog.onRolesChanged(new RoleCatalog.RolesChangedEvent());
+    }
+
+    @Test
+    void batchReturnsRequestedFieldsAndMissingIds() throws Exception {
+        long unknown = ids.get(2) + 100;
+        List<Long> request = userQueryService.normalizeIds(List.of(ids.get(2), ids.get(0), unknown, ids.get(0)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userQueryService.writeUsersByIds(request, UserField.parse("username,roles"), out);
+        JsonNode json = objectMapper.readTree(out.toByteArray());
+
+        assertThat(json.get("users")).hasSize(2);
+        JsonNode first = json.get("users").get(0);
+        assertThat(first.get("id").asLong()).isEqualTo(ids.get(0));
+        assertThat(first.get("username").asText()).isEqualTo("api0");
+        assertThat(first.has("email")).isFalse();
+        assertThat(first.get("roles")).extracting(JsonNode::asText).containsExactlyInAnyOrder("ADMIN", "USER");
+        assertThat(json.get("missing")).extracting(JsonNode::asLong).containsExactly(unknown);
+    }
+
+    @Test
+    void streamsAllUsersAsArray() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userQueryService.writeAllUsers(UserField.parse("email"), out);
+        JsonNode json = objectMapper.readTree(out.toByteArray());
+
+        assertThat(json).hasSize(3);
+        assertThat(json.get(1).fieldNames()).toIterable().containsExactly("id", "email");
+    }
+
+    @Test
+    void findsSingleUserProjection() {
+        Map<String, Object> user = userQueryService.findUser(ids.get(1), UserField.parse("age,roles")).orElseThrow();
+
+        assertThat(user).containsOnlyKeys("id", "age", "roles");
+        assertThat(user.get("roles")).isEqualTo(List.of("USER"));
+        assertThat(userQueryService.findUser(-1L, UserField.parse(null))).isEmpty();
+    }
+
+    @Test
+    void rejectsUnknownFieldsAndOversizedBatches() {
+        assertThatThrownBy(() -> UserField.parse("password")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> userQueryService.normalizeIds(List.of(1L, 2L, 3L, 4L, 5L, 6L)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
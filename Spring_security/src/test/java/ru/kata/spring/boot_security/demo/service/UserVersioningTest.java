@@ -0,0 +1,147 @@
+package ru.kata.spring.boot_security.demo.service;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kata.spring.boot_security.demo.dto.UserDto;
+import ru.kata.spring.boot_security.demo.mapper.UserMapper;
+import ru.kata.spring.boot_security.demo.model.OutboxEvent;
+import ru.kata.spring.boot_security.demo.model.Role;
+import ru.kata.spring.boot_security.demo.model.User;
+import ru.kata.spring.boot_security.demo.outbox.UserChangeType;
+import ru.kata.spring.boot_security.demo.repository.OutboxEventRepository;
+import ru.kata.spring.boot_security.demo.repository.RoleRepository;
+import ru.kata.spring.boot_security.demo.repository.UserRepository;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Запись пользователя: оптимистическая блокировка (правка по устаревшей версии формы
+ * отклоняется) и set-based UPDATE/DELETE без загрузки сущности, событие outbox - в той же транзакции.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class UserVersioningTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private RoleCatalog roleCatalog;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long id;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        roleRepository.save(new Role(null, "ADMIN"));
+        Role user = roleRepository.save(new Role(null, "USER"));
+        id = userRepository.save(User.builder()
+                .firstName("Ivan")
+                .lastName("Petrov")
+                .age(30)
+                .username("versioned")
+                .email("versioned@example.com")
+                .password("{noop}password")
+                .roles(Set.of(user))
+                .build()).getId();
+        entityManager.flush();
+        entityManager.clear();
+        // транзакция теста не коммитится, поэтому справочник сбрасываем вручную
+        roleCatalog.onRolesChanged(new RoleCatalog.RolesChangedEvent());
+        roleCatalog.getRoles();
+        statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void updateWithCurrentVersionBumpsVersion() {
+        UserDto form = userMapper.toDto(userService.findById(id));
+        assertThat(form.getVersion()).isZero();
+
+        form.setFirstName("Petr");
+        userService.updateWithRoles(form);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(userService.findById(id).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void updateWithStaleVersionIsRejected() {
+        UserDto first = userMapper.toDto(userService.findById(id));
+        UserDto second = userMapper.toDto(userService.findById(id));
+        entityManager.clear();
+
+        userService.updateWithRoles(first);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThatThrownBy(() -> userService.updateWithRoles(second))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void updateWithoutVersionIsRejected() {
+        UserDto form = userMapper.toDto(userService.findById(id));
+        form.setVersion(null);
+
+        assertThatThrownBy(() -> userService.updateWithRoles(form))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void updateReplacesRolesInThreeStatementsPlusOutbox() {
+        UserDto form = userMapper.toDto(userService.findById(id));
+        form.setRoles(new String[]{"ADMIN"});
+        entityManager.clear();
+        statistics.clear();
+
+        userService.updateWithRoles(form);
+
+        // UPDATE users, два запроса к users_roles и INSERT в user_outbox
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        entityManager.clear();
+        assertThat(userService.findById(id).getRoles()).extracting(Role::getName).containsExactly("ADMIN");
+    }
+
+    @Test
+    void deleteRemovesUserWithRolesWithoutLoadingIt() {
+        statistics.clear();
+
+        userService.deleteById(id);
+
+        // DELETE users_roles, DELETE users и INSERT в user_outbox
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(userRepository.existsById(id)).isFalse();
+        assertThat(outboxEventRepository.findAll()).extracting(OutboxEvent::getType, OutboxEvent::getUserId)
+                .containsExactly(tuple(UserChangeType.USER_DELETED, id));
+    }
+}
@@ -0,0 +1,123 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Простой нагрузочный генератор для сравнения конфигураций приложений.
+ * <p>
+ * Запуск без сборки (source-file mode):
+ * <pre>
+ * java bench/LoadTest.java --url http://localhost:8080/users --concurrency 32 --duration 30 --warmup 10
+ * </pre>
+ * Каждый из {@code concurrency} потоков в цикле шлёт GET и ждёт ответ (closed-loop).
+ * После прогрева печатается одна строка JSON: rps, p50/p99/max в миллисекундах и число ошибок.
+ * Необязательный {@code --header "Cookie: JSESSIONID=..."} добавляется к каждому запросу.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8080/users";
+        int concurrency = 32;
+        int duration = 30;
+        int warmup = 10;
+        String label = "run";
+        List<String[]> headers = new ArrayList<>();
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--url" -> url = value;
+                case "--concurrency" -> concurrency = Integer.parseInt(value);
+                case "--duration" -> duration = Integer.parseInt(value);
+                case "--warmup" -> warmup = Integer.parseInt(value);
+                case "--label" -> label = value;
+                case "--header" -> headers.add(value.split(":\\s*", 2));
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).GET().timeout(Duration.ofSeconds(30));
+        headers.forEach(h -> builder.header(h[0], h[1]));
+        HttpRequest request = builder.build();
+
+        long warmupEnd = System.nanoTime() + Duration.ofSeconds(warmup).toNanos();
+        long end = warmupEnd + Duration.ofSeconds(duration).toNanos();
+        AtomicLong errors = new AtomicLong();
+        long[][] samples = new long[concurrency][];
+        int[] counts = new int[concurrency];
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            Thread thread = new Thread(() -> {
+                long[] local = new long[1 << 16];
+                int n = 0;
+                try {
+                    while (true) {
+                        long start = System.nanoTime();
+                        if (start >= end) {
+                            break;
+                        }
+                        boolean ok;
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            ok = response.statusCode() < 400;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long elapsed = System.nanoTime() - start;
+                        if (start < warmupEnd) {
+                            continue;
+                        }
+                        if (!ok) {
+                            errors.incrementAndGet();
+                        }
+                        if (n == local.length) {
+                            local = Arrays.copyOf(local, n * 2);
+                        }
+                        local[n++] = elapsed;
+                    }
+                } finally {
+                    samples[worker] = local;
+                    counts[worker] = n;
+                    done.countDown();
+                }
+            }, "load-" + w);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int w = 0; w < concurrency; w++) {
+            System.arraycopy(samples[w], 0, all, offset, counts[w]);
+            offset += counts[w];
+        }
+        Arrays.sort(all);
+        System.out.printf(java.util.Locale.ROOT,
+                "{\"label\":\"%s\",\"url\":\"%s\",\"concurrency\":%d,\"requests\":%d,\"errors\":%d,"
+                        + "\"rps\":%.1f,\"p50_ms\":%.3f,\"p99_ms\":%.3f,\"max_ms\":%.3f}%n",
+                label, url, concurrency, total, errors.get(), total / (double) duration,
+                percentile(all, 0.50), percentile(all, 0.99), total == 0 ? 0.0 : all[total - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,22 @@
+#!/usr/bin/env bash
+# JMH-бенчмарки модуля benchmarks: маппинг, валидация, authority ролей,
+# чтение через UserServiceImpl обоих приложений на встроенной H2.
+# Результат в JSON сохраняется под хэшем текущего коммита, чтобы сравнивать сборки.
+#
+# Использование:
+#   bench/jmh.sh                         # все бенчмарки
+#   bench/jmh.sh -f 1 -wi 2 -i 3 Mapper  # аргументы передаются JMH как есть
+# Переменные окружения:
+#   OUT — каталог результатов (по умолчанию bench/results)
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+OUT="${OUT:-$ROOT/bench/results}"
+mkdir -p "$OUT"
+
+REV="$(git -C "$ROOT" rev-parse --short HEAD 2>/dev/null || echo local)"
+RESULT="$OUT/jmh-$REV.json"
+
+(cd "$ROOT" && mvn -B -q -pl benchmarks -am -DskipTests -Pjmh verify \
+    -Djmh.result="$RESULT" -Djmh.args="$*")
+echo "JMH results: $RESULT"
@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# Сравнение пропускной способности crud_v_spring_boot с текущим логированием
+# (DEBUG, синхронный консольный вывод, show-sql) и с профилем prod
+# (JSON через AsyncAppender, выборка debug-строк).
+#
+# Использование:
+#   bench/logging-throughput.sh
+# Переменные окружения:
+#   APP_ARGS     — дополнительные аргументы приложения (например, другой datasource)
+#   CONCURRENCY  — число параллельных клиентов (по умолчанию 32)
+#   DURATION     — длительность замера, с (по умолчанию 30)
+#   WARMUP       — прогрев, с (по умолчанию 10)
+#
+# Вывод приложения перенаправляется в файл, как это делает агент сбора логов,
+# поэтому в замер входит реальная стоимость форматирования и записи.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+MODULE="$ROOT/crud_v_spring_boot"
+PORT="${PORT:-8080}"
+CONCURRENCY="${CONCURRENCY:-32}"
+DURATION="${DURATION:-30}"
+WARMUP="${WARMUP:-10}"
+OUT="${OUT:-$ROOT/bench/results}"
+mkdir -p "$OUT"
+
+(cd "$MODULE" && mvn -B -q package -DskipTests)
+JAR="$(ls "$MODULE"/target/*-exec.jar | head -n 1)"
+
+run() {
+    local label="$1"; shift
+    java -jar "$JAR" --server.port="$PORT" "$@" ${APP_ARGS:-} > "$OUT/$label.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null || true" EXIT
+    for _ in $(seq 1 120); do
+        curl -sf -o /dev/null "http://localhost:$PORT/users" && break
+        sleep 1
+    done
+    java "$ROOT/bench/LoadTest.java" --label "$label" --url "http://localhost:$PORT/users" \
+        --concurrency "$CONCURRENCY" --duration "$DURATION" --warmup "$WARMUP" | tee -a "$OUT/logging-throughput.jsonl"
+    kill "$pid"; wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run logging-default
+run logging-prod --spring.profiles.active=prod
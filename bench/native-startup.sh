@@ -0,0 +1,98 @@
+#!/usr/bin/env bash
+# Время старта и память приложения в трёх вариантах из одной сборки -Pnative:
+#   jvm     — обычный запуск исполняемого jar;
+#   jvm-aot — тот же jar с -Dspring.aot.enabled=true (бины из AOT-кода, без сканирования);
+#   native  — нативный образ GraalVM (только если native-image доступен).
+# Для каждого запуска пишется строка JSON: время до первого успешного HTTP-ответа,
+# время из лога Spring ("Started ... in"), RSS после старта и пиковый RSS после нагрузки.
+#
+# Использование:
+#   bench/native-startup.sh                          # crud_v_spring_boot
+#   MODULE=Spring_security URL_PATH=/login bench/native-startup.sh
+# Переменные окружения:
+#   MODULE       — модуль (по умолчанию crud_v_spring_boot)
+#   APP_ARGS     — дополнительные аргументы приложения (например, другой datasource)
+#   RUNS         — число запусков каждого варианта (по умолчанию 5)
+#   LOAD         — длительность нагрузки перед замером пикового RSS, с (по умолчанию 10, 0 — без нагрузки)
+#   URL_PATH     — путь, по которому проверяется готовность и идёт нагрузка (по умолчанию /users)
+#   SKIP_BUILD   — 1, чтобы не пересобирать
+#
+# Нативный образ собирается долго (минуты) и требует GraalVM 22.3+: JAVA_HOME или
+# GRAALVM_HOME должны указывать на неё. Без native-image сравниваются только jvm и jvm-aot.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+MODULE="$ROOT/${MODULE:-crud_v_spring_boot}"
+PORT="${PORT:-8080}"
+RUNS="${RUNS:-5}"
+LOAD="${LOAD:-10}"
+URL_PATH="${URL_PATH:-/users}"
+OUT="${OUT:-$ROOT/bench/results}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+NATIVE_IMAGE="$(command -v "${GRAALVM_HOME:-${JAVA_HOME:-/nonexistent}}/bin/native-image" native-image 2>/dev/null | head -n 1 || true)"
+mkdir -p "$OUT"
+
+if [ "${SKIP_BUILD:-0}" != 1 ]; then
+    if [ -n "$NATIVE_IMAGE" ]; then
+        (cd "$MODULE" && mvn -B -q -Pnative -DskipTests native:compile)
+    else
+        echo "native-image не найден, сравниваются только jvm и jvm-aot" >&2
+        (cd "$MODULE" && mvn -B -q -Pnative -DskipTests package)
+    fi
+fi
+JAR="$(ls "$MODULE"/target/*-exec.jar | head -n 1)"
+IMAGE="$(find "$MODULE/target" -maxdepth 1 -type f -perm -u+x ! -name '*.jar' | head -n 1)"
+
+rss_kb() {
+    awk -v key="$2" '$1 == key":" { print $2 }' "/proc/$1/status"
+}
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+run() {
+    local label="$1"; shift
+    local log="$OUT/native-startup-$label.log"
+    local start pid ready
+    start="$(now_ms)"
+    "$@" --server.port="$PORT" ${APP_ARGS:-} > "$log" 2>&1 &
+    pid=$!
+    trap "kill $pid 2>/dev/null || true" EXIT
+    ready=""
+    for _ in $(seq 1 3000); do
+        if curl -sf -o /dev/null "http://localhost:$PORT$URL_PATH"; then
+            ready="$(now_ms)"
+            break
+        fi
+        kill -0 "$pid" 2>/dev/null || break
+        sleep 0.02
+    done
+    if [ -z "$ready" ]; then
+        echo "$label: приложение не ответило, см. $log" >&2
+        kill "$pid" 2>/dev/null || true
+        return 1
+    fi
+    local startup_rss spring_ms peak_rss
+    startup_rss="$(rss_kb "$pid" VmRSS)"
+    spring_ms="$(grep -o 'Started .* in [0-9.]* seconds' "$log" | grep -o '[0-9.]* seconds' \
+        | awk '{ printf "%d", $1 * 1000 }')"
+    if [ "$LOAD" -gt 0 ]; then
+        "$JAVA" "$ROOT/bench/LoadTest.java" --label "$label" --url "http://localhost:$PORT$URL_PATH" \
+            --concurrency 16 --duration "$LOAD" --warmup 0 > /dev/null
+    fi
+    peak_rss="$(rss_kb "$pid" VmHWM)"
+    printf '{"label":"%s","readyMs":%d,"springStartedMs":%s,"startupRssKb":%d,"peakRssKb":%d}\n' \
+        "$label" $(( ready - start )) "${spring_ms:-null}" "$startup_rss" "$peak_rss" \
+        | tee -a "$OUT/native-startup.jsonl"
+    kill "$pid"; wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+for i in $(seq 1 "$RUNS"); do
+    run jvm "$JAVA" -jar "$JAR"
+    run jvm-aot "$JAVA" -Dspring.aot.enabled=true -jar "$JAR"
+    if [ -n "$IMAGE" ]; then
+        run native "$IMAGE"
+    fi
+done
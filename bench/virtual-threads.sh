@@ -0,0 +1,57 @@
+#!/usr/bin/env bash
+# Сравнение crud_v_spring_boot на платформенных потоках Tomcat и на виртуальных
+# (профиль virtual) при растущем числе параллельных клиентов против локальной MySQL.
+# Оба прогона используют один и тот же jar, собранный под Java 21 (-Pvirtual-threads),
+# и профиль prod, чтобы логирование не искажало замер.
+#
+# Использование:
+#   JAVA_HOME=/path/to/jdk-21 bench/virtual-threads.sh
+# Переменные окружения:
+#   APP_ARGS     — дополнительные аргументы приложения (например, другой datasource)
+#   LEVELS       — уровни параллелизма через пробел (по умолчанию "50 200 800")
+#   DURATION     — длительность замера, с (по умолчанию 30)
+#   WARMUP       — прогрев, с (по умолчанию 10)
+#   URL_PATH     — нагружаемый путь (по умолчанию /users)
+#
+# Смотреть стоит на rps и p99 при уровнях выше пула Tomcat (200): платформенные
+# потоки упираются в очередь accept-count, виртуальные — в пул HikariCP.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+MODULE="$ROOT/crud_v_spring_boot"
+PORT="${PORT:-8080}"
+LEVELS="${LEVELS:-50 200 800}"
+DURATION="${DURATION:-30}"
+WARMUP="${WARMUP:-10}"
+URL_PATH="${URL_PATH:-/users}"
+OUT="${OUT:-$ROOT/bench/results}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+mkdir -p "$OUT"
+
+if ! "$JAVA" -version 2>&1 | grep -Eq 'version "(2[1-9]|[3-9][0-9])'; then
+    echo "Нужна Java 21+, укажите JAVA_HOME" >&2
+    exit 1
+fi
+
+(cd "$MODULE" && mvn -B -q -Pvirtual-threads package -DskipTests)
+JAR="$(ls "$MODULE"/target/*-exec.jar | head -n 1)"
+
+run() {
+    local label="$1"; shift
+    "$JAVA" -jar "$JAR" --server.port="$PORT" "$@" ${APP_ARGS:-} > "$OUT/$label.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null || true" EXIT
+    for _ in $(seq 1 120); do
+        curl -sf -o /dev/null "http://localhost:$PORT$URL_PATH" && break
+        sleep 1
+    done
+    for level in $LEVELS; do
+        "$JAVA" "$ROOT/bench/LoadTest.java" --label "$label-c$level" --url "http://localhost:$PORT$URL_PATH" \
+            --concurrency "$level" --duration "$DURATION" --warmup "$WARMUP" | tee -a "$OUT/virtual-threads.jsonl"
+    done
+    kill "$pid"; wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run threads-platform --spring.profiles.active=prod
+run threads-virtual --spring.profiles.active=prod,virtual
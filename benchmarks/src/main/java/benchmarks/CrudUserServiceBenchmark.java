@@ -0,0 +1,81 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import web.Application;
+import web.dto.UserPageDto;
+import web.dto.UserResponseDto;
+import web.model.User;
+import web.repository.UserRepository;
+import web.service.UserService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение через {@code UserServiceImpl} (crud) на встроенной H2:
+ * полный контекст приложения, {@code users} пользователей.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CrudUserServiceBenchmark {
+
+    @Param("1000")
+    private int users;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private long[] ids;
+    private String middleCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedApp.start(Application.class, "crud_bench");
+        userService = context.getBean(UserService.class);
+
+        List<User> batch = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            batch.add(new User(null, "User " + i, "bench" + i + "@example.com", null));
+        }
+        ids = context.getBean(UserRepository.class).saveAll(batch).stream()
+                .mapToLong(User::getId)
+                .toArray();
+        // курсор на середину таблицы: страницы ограничены users.page.max-size, идём по 100
+        String cursor = null;
+        for (int seen = 0; seen < users / 2; seen += 100) {
+            cursor = userService.getUsersPage(cursor, 100).getNextCursor();
+        }
+        middleCursor = cursor;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserResponseDto getUserById() {
+        return userService.getUserById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public UserPageDto getFirstPage() {
+        return userService.getUsersPage(null, 20);
+    }
+
+    @Benchmark
+    public UserPageDto getMiddlePage() {
+        return userService.getUsersPage(middleCursor, 20);
+    }
+
+    @Benchmark
+    public List<UserResponseDto> getAllUsers() {
+        return userService.getAllUsers();
+    }
+}
@@ -0,0 +1,22 @@
+package benchmarks;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Запуск приложения внутри JMH-форка на встроенной H2.
+ * <p>
+ * application.properties приложений не читаются ({@code spring.config.name=benchmark}),
+ * поэтому MySQL и DEBUG-логирование в замер не попадают.
+ */
+final class EmbeddedApp {
+
+    private EmbeddedApp() {
+    }
+
+    static ConfigurableApplicationContext start(Class<?> application, String database) {
+        return new SpringApplicationBuilder(application).run(
+                "--spring.config.name=benchmark",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+    }
+}
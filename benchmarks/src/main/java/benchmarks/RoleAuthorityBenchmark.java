@@ -0,0 +1,64 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import ru.kata.spring.boot_security.demo.dto.UserPrincipal;
+import ru.kata.spring.boot_security.demo.model.Role;
+import ru.kata.spring.boot_security.demo.model.User;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Сборка строки {@code ROLE_<name>} в {@link Role#getAuthority()} и построение
+ * принципала при логине: со сборкой authority на каждый вызов и с готовыми
+ * authority, как их отдаёт RoleCatalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoleAuthorityBenchmark {
+
+    private Role role;
+    private User user;
+    private Function<Role, GrantedAuthority> cachedAuthorities;
+
+    @Setup
+    public void setUp() {
+        Role admin = new Role(1L, "ADMIN");
+        Role userRole = new Role(2L, "USER");
+        role = admin;
+        user = User.builder()
+                .id(42L)
+                .username("ivan")
+                .email("ivan.petrov@example.com")
+                .password("{noop}password")
+                .roles(Set.of(admin, userRole))
+                .build();
+        Map<Long, GrantedAuthority> authorities = Set.of(admin, userRole).stream()
+                .collect(Collectors.toMap(Role::getId, r -> new SimpleGrantedAuthority(r.getAuthority())));
+        cachedAuthorities = r -> authorities.get(r.getId());
+    }
+
+    @Benchmark
+    public String getAuthority() {
+        return role.getAuthority();
+    }
+
+    @Benchmark
+    public UserPrincipal principalBuildingAuthorities() {
+        return UserPrincipal.of(user);
+    }
+
+    @Benchmark
+    public UserPrincipal principalWithCachedAuthorities() {
+        return UserPrincipal.of(user, cachedAuthorities);
+    }
+}
@@ -0,0 +1,91 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.kata.spring.boot_security.demo.SpringBootSecurityDemoApplication;
+import ru.kata.spring.boot_security.demo.dto.UserDto;
+import ru.kata.spring.boot_security.demo.model.Role;
+import ru.kata.spring.boot_security.demo.model.User;
+import ru.kata.spring.boot_security.demo.repository.RoleRepository;
+import ru.kata.spring.boot_security.demo.repository.UserRepository;
+import ru.kata.spring.boot_security.demo.service.UserService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение через {@code UserServiceImpl} (Spring_security) на встроенной H2:
+ * полный контекст приложения, {@code users} пользователей, у каждого третьего две роли.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityUserServiceBenchmark {
+
+    @Param("1000")
+    private int users;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedApp.start(SpringBootSecurityDemoApplication.class, "security_bench");
+        userService = context.getBean(UserService.class);
+
+        RoleRepository roleRepository = context.getBean(RoleRepository.class);
+        Role admin = roleRepository.save(new Role(null, "ADMIN"));
+        Role user = roleRepository.save(new Role(null, "USER"));
+        List<User> batch = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            batch.add(User.builder()
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .age(20 + i % 50)
+                    .username("bench" + i)
+                    .email("bench" + i + "@example.com")
+                    .password("{noop}password")
+                    .roles(i % 3 == 0 ? Set.of(admin, user) : Set.of(user))
+                    .build());
+        }
+        ids = context.getBean(UserRepository.class).saveAll(batch).stream()
+                .mapToLong(User::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User findById() {
+        return userService.findById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public Page<UserDto> findPage() {
+        int pages = Math.max(1, users / 50);
+        return userService.findPage(PageRequest.of(ThreadLocalRandom.current().nextInt(pages), 50, Sort.by("id")));
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return userService.findAll();
+    }
+
+    @Benchmark
+    public List<Role> findAllRoles() {
+        return userService.findAllRoles();
+    }
+}
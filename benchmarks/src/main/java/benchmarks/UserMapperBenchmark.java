@@ -0,0 +1,77 @@
+package benchmarks;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+import ru.kata.spring.boot_security.demo.dto.UserDto;
+import ru.kata.spring.boot_security.demo.model.Role;
+import web.dto.UserMapper;
+import web.dto.UserRequestDto;
+import web.dto.UserResponseDto;
+import web.model.User;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ручной {@link UserMapper} (crud) против сгенерированного MapStruct
+ * {@link ru.kata.spring.boot_security.demo.mapper.UserMapper} (Spring_security).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMapperBenchmark {
+
+    private final UserMapper crudMapper = new UserMapper();
+    private final ru.kata.spring.boot_security.demo.mapper.UserMapper securityMapper =
+            Mappers.getMapper(ru.kata.spring.boot_security.demo.mapper.UserMapper.class);
+
+    private User crudUser;
+    private UserRequestDto crudRequest;
+    private ru.kata.spring.boot_security.demo.model.User securityUser;
+    private UserDto securityDto;
+
+    @Setup
+    public void setUp() {
+        crudUser = new User(42L, "Ivan Petrov", "ivan.petrov@example.com", 0L);
+        crudRequest = new UserRequestDto();
+        crudRequest.setId(42L);
+        crudRequest.setName("Ivan Petrov");
+        crudRequest.setEmail("ivan.petrov@example.com");
+
+        securityUser = ru.kata.spring.boot_security.demo.model.User.builder()
+                .id(42L)
+                .firstName("Ivan")
+                .lastName("Petrov")
+                .age(35)
+                .username("ivan")
+                .email("ivan.petrov@example.com")
+                .password("{noop}password")
+                .roles(Set.of(new Role(1L, "ADMIN"), new Role(2L, "USER")))
+                .build();
+        securityDto = new UserDto(42L, "Ivan", "Petrov", 35, "ivan", "ivan.petrov@example.com",
+                "password", new String[]{"ADMIN", "USER"}, 0L);
+    }
+
+    @Benchmark
+    public UserResponseDto crudToResponseDto() {
+        return crudMapper.toResponseDto(crudUser);
+    }
+
+    @Benchmark
+    public User crudToEntity() {
+        return crudMapper.toUser(crudRequest);
+    }
+
+    @Benchmark
+    public UserDto mapstructToDto() {
+        return securityMapper.toDto(securityUser);
+    }
+
+    @Benchmark
+    public ru.kata.spring.boot_security.demo.model.User mapstructFromDto() {
+        return securityMapper.fromDto(securityDto);
+    }
+}
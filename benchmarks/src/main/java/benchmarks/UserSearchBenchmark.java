@@ -0,0 +1,65 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import web.Application;
+import web.dto.UserSuggestionDto;
+import web.model.User;
+import web.repository.UserRepository;
+import web.search.UserSearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Type-ahead поиск по индексу в памяти ({@code web.search.UserSearchIndex}, crud):
+ * короткий префикс, триграммный запрос и запрос без совпадений на {@code users} пользователях.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserSearchBenchmark {
+
+    @Param({"10000", "100000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+    private UserSearchIndex searchIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedApp.start(Application.class, "crud_search_bench");
+        List<User> batch = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            batch.add(new User(null, "User " + i, "bench" + i + "@example.com", null));
+        }
+        context.getBean(UserRepository.class).saveAll(batch);
+        // строки вставлены в обход UserServiceImpl - индекс собирается заново
+        searchIndex = context.getBean(UserSearchIndex.class);
+        searchIndex.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<UserSuggestionDto> shortPrefix() {
+        return searchIndex.search("us", 10);
+    }
+
+    @Benchmark
+    public List<UserSuggestionDto> trigramQuery() {
+        return searchIndex.search("ch4242", 10);
+    }
+
+    @Benchmark
+    public List<UserSuggestionDto> noMatch() {
+        return searchIndex.search("nobody", 10);
+    }
+}
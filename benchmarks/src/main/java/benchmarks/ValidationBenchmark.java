@@ -0,0 +1,76 @@
+package benchmarks;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import ru.kata.spring.boot_security.demo.dto.UserDto;
+import web.dto.UserRequestDto;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate Validator на DTO форм: корректный объект (только проверки)
+ * и некорректный (проверки плюс интерполяция сообщений).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private ValidatorFactory factory;
+    private Validator validator;
+
+    private UserRequestDto validRequest;
+    private UserRequestDto invalidRequest;
+    private UserDto validDto;
+    private UserDto invalidDto;
+
+    @Setup
+    public void setUp() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+
+        validRequest = new UserRequestDto();
+        validRequest.setName("Ivan Petrov");
+        validRequest.setEmail("ivan.petrov@example.com");
+        invalidRequest = new UserRequestDto();
+        invalidRequest.setName("I");
+        invalidRequest.setEmail("not-an-email");
+
+        validDto = new UserDto(null, "Ivan", "Petrov", 35, "ivan", "ivan.petrov@example.com",
+                "password", new String[]{"USER"}, null);
+        invalidDto = new UserDto(null, "", "Petrov", -1, "ivan", "broken",
+                "123", new String[0], null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequestDto>> crudRequestValid() {
+        return validator.validate(validRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequestDto>> crudRequestInvalid() {
+        return validator.validate(invalidRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserDto>> securityDtoValid() {
+        return validator.validate(validDto);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserDto>> securityDtoInvalid() {
+        return validator.validate(invalidDto);
+    }
+}
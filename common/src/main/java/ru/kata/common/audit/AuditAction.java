@@ -0,0 +1,31 @@
+package ru.kata.common.audit;
+
+/**
+ * Вид изменения в журнале аудита; код хранится в записи, коды не переиспользуются.
+ */
+public enum AuditAction {
+
+    CREATE(1),
+    UPDATE(2),
+    DELETE(3),
+    ROLES_CHANGED(4);
+
+    private final byte code;
+
+    AuditAction(int code) {
+        this.code = (byte) code;
+    }
+
+    byte code() {
+        return code;
+    }
+
+    static AuditAction fromCode(byte code) {
+        for (AuditAction action : values()) {
+            if (action.code == code) {
+                return action;
+            }
+        }
+        throw new IllegalArgumentException("Unknown audit action code: " + code);
+    }
+}
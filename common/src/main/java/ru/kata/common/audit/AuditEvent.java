@@ -0,0 +1,17 @@
+package ru.kata.common.audit;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала аудита.
+ *
+ * @param sequence  сквозной номер записи в журнале; {@code 0}, пока событие не записано
+ * @param timestamp момент коммита изменения (с точностью до миллисекунд)
+ * @param action    вид изменения
+ * @param userId    id пользователя
+ * @param actor     имя пользователя, выполнившего изменение; {@code null} - вне HTTP-запроса
+ * @param details   изменённые значения в виде {@code ключ=значение, ...}
+ */
+public record AuditEvent(long sequence, Instant timestamp, AuditAction action, long userId, String actor,
+                         String details) {
+}
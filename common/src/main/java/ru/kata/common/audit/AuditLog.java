@@ -0,0 +1,202 @@
+package ru.kata.common.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.unit.DataSize;
+import ru.kata.common.tx.AfterCommit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Журнал аудита изменений пользователей (write-behind).
+ * <p>
+ * record() после коммита кладёт событие в неблокирующую очередь - в потоке запроса нет I/O.
+ * Поток audit-writer пишет пачками (audit.batch-size) в mmap-сегменты AuditSegmentWriter,
+ * fsync - раз в audit.fsync-interval, сжатие и удаление по audit.retention - раз в
+ * audit.compaction-interval. При переполнении очереди (audit.queue-capacity) события
+ * отбрасываются. Метрики - {@code audit.events{result}} и {@code audit.queue.size}.
+ * <p>
+ * Бин объявляет приложение: оно задаёт настройки {@code audit.*} и источник имени того,
+ * кто вносит изменение (actor).
+ */
+@Slf4j
+public class AuditLog implements SmartLifecycle {
+
+    private static final int MAX_DETAILS_LENGTH = 4096;
+    private static final int MAX_ACTOR_LENGTH = 255;
+
+    private final Path dir;
+    private final int segmentSize;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long fsyncIntervalNanos;
+    private final long compactionIntervalNanos;
+    private final Duration retention;
+    private final Supplier<String> actor;
+
+    private final Queue<AuditEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Counter written;
+    private final Counter dropped;
+
+    private volatile boolean running;
+    private volatile Thread writerThread;
+
+    /**
+     * @param actor имя того, кто вносит изменение, в потоке вызова {@link #record}; {@code null} - неизвестно
+     */
+    public AuditLog(MeterRegistry meterRegistry, Path dir, DataSize segmentSize, int queueCapacity, int batchSize,
+                    Duration flushInterval, Duration fsyncInterval, Duration compactionInterval, Duration retention,
+                    Supplier<String> actor) {
+        this.dir = dir;
+        this.segmentSize = (int) Math.min(Math.max(segmentSize.toBytes(), 64 * 1024), Integer.MAX_VALUE);
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.compactionIntervalNanos = compactionInterval.toNanos();
+        this.retention = retention;
+        this.actor = actor;
+        this.written = Counter.builder("audit.events").tag("result", "written").register(meterRegistry);
+        this.dropped = Counter.builder("audit.events").tag("result", "dropped").register(meterRegistry);
+        Gauge.builder("audit.queue.size", pending, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Регистрирует изменение пользователя от имени текущего actor:
+     * событие встанет в очередь после коммита транзакции (откаченные изменения в журнал
+     * не попадают), без транзакции - сразу.
+     */
+    public void record(AuditAction action, Long userId, String details) {
+        String name = truncate(actor.get(), MAX_ACTOR_LENGTH);
+        AfterCommit.run(() -> enqueue(new AuditEvent(0, Instant.now(), action, userId, name,
+                truncate(details, MAX_DETAILS_LENGTH))));
+    }
+
+    private void enqueue(AuditEvent event) {
+        if (!running) {
+            dropped.increment();
+            return;
+        }
+        if (pending.incrementAndGet() > queueCapacity) {
+            pending.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.offer(event);
+        if (pending.get() >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    @Override
+    public void start() {
+        AuditSegmentWriter writer;
+        try {
+            writer = new AuditSegmentWriter(dir, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open audit log in " + dir.toAbsolutePath(), e);
+        }
+        running = true;
+        Thread thread = new Thread(() -> writeLoop(writer), "audit-writer");
+        thread.setDaemon(true);
+        writerThread = thread;
+        thread.start();
+        log.info("Audit log started in {}, next sequence {}", dir.toAbsolutePath(), writer.nextSequence());
+    }
+
+    /** Дописывает оставшиеся в очереди события и сбрасывает сегмент на диск. */
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = writerThread;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(Duration.ofSeconds(10).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return writerThread != null;
+    }
+
+    /** Останавливается после веб-сервера, чтобы записать события последних запросов. */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void writeLoop(AuditSegmentWriter writer) {
+        long nextFsync = System.nanoTime() + fsyncIntervalNanos;
+        long nextCompaction = System.nanoTime();
+        boolean dirty = false;
+        while (running || pending.get() > 0) {
+            int drained = 0;
+            try {
+                drained = drain(writer);
+                dirty |= drained > 0;
+                long now = System.nanoTime();
+                if (dirty && now - nextFsync >= 0) {
+                    writer.force();
+                    dirty = false;
+                    nextFsync = now + fsyncIntervalNanos;
+                }
+                if (now - nextCompaction >= 0) {
+                    nextCompaction = now + compactionIntervalNanos;
+                    int deleted = writer.compact(retention, Instant.now());
+                    if (deleted > 0) {
+                        log.info("Audit log compaction removed {} expired segments", deleted);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Audit log write failed", e);
+            }
+            if (drained < batchSize && running) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        }
+        writer.close();
+        log.info("Audit log stopped, next sequence {}", writer.nextSequence());
+    }
+
+    private int drain(AuditSegmentWriter writer) throws IOException {
+        int drained = 0;
+        AuditEvent event;
+        while (drained < batchSize && (event = queue.poll()) != null) {
+            pending.decrementAndGet();
+            drained++;
+            try {
+                writer.append(event);
+                written.increment();
+            } catch (IOException | RuntimeException e) {
+                dropped.increment();
+                throw e;
+            }
+        }
+        return drained;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
@@ -0,0 +1,146 @@
+package ru.kata.common.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Формат сегмента: файл audit-<номер первой записи>.log, заголовок (magic, версия), записи подряд.
+ * <p>
+ * Запись: int длина, int CRC32 тела; тело - long номер, long время (epoch ms), long id пользователя,
+ * byte код действия, short длина + UTF-8 actor, int длина + UTF-8 details. Длина пишется последней:
+ * нулевая длина или неверный CRC - конец данных (в том числе оборванная при падении запись).
+ */
+final class AuditLogFormat {
+
+    static final int MAGIC = 0x41554431;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".log";
+    private static final int FIXED_BODY_SIZE = 8 + 8 + 8 + 1 + 2 + 4;
+
+    private AuditLogFormat() {
+    }
+
+    static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX);
+    }
+
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /** Сегменты каталога в порядке записи. */
+    static List<Path> segments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /** Размер записи с actor и details заданной длины в байтах. */
+    static int recordSize(int actorLength, int detailsLength) {
+        return 4 + 4 + FIXED_BODY_SIZE + actorLength + detailsLength;
+    }
+
+    static void writeHeader(ByteBuffer segment) {
+        segment.putInt(0, MAGIC);
+        segment.putInt(4, VERSION);
+    }
+
+    /**
+     * Пишет запись с позиции {@code at}; длина записывается после тела и CRC.
+     *
+     * @return позиция сразу за записью
+     */
+    static int write(ByteBuffer segment, int at, long sequence, AuditEvent event, byte[] actor, byte[] details) {
+        int bodyAt = at + 8;
+        segment.putLong(bodyAt, sequence);
+        segment.putLong(bodyAt + 8, event.timestamp().toEpochMilli());
+        segment.putLong(bodyAt + 16, event.userId());
+        segment.put(bodyAt + 24, event.action().code());
+        segment.putShort(bodyAt + 25, (short) actor.length);
+        segment.put(bodyAt + 27, actor);
+        segment.putInt(bodyAt + 27 + actor.length, details.length);
+        segment.put(bodyAt + FIXED_BODY_SIZE + actor.length, details);
+        int bodySize = FIXED_BODY_SIZE + actor.length + details.length;
+        segment.putInt(at + 4, crc(segment, bodyAt, bodySize));
+        segment.putInt(at, 4 + bodySize);
+        return at + 8 + bodySize;
+    }
+
+    /**
+     * Читает записи сегмента по порядку до конца данных.
+     *
+     * @return позиция за последней целой записью
+     * @throws IOException если файл не является сегментом журнала
+     */
+    static int scan(ByteBuffer segment, Consumer<AuditEvent> consumer) throws IOException {
+        if (segment.limit() < HEADER_SIZE) {
+            return segment.limit();
+        }
+        int magic = segment.getInt(0);
+        if (magic == 0) {
+            return 0;
+        }
+        if (magic != MAGIC || segment.getInt(4) != VERSION) {
+            throw new IOException("Not an audit log segment (magic " + Integer.toHexString(magic) + ")");
+        }
+        int at = HEADER_SIZE;
+        while (at + 8 <= segment.limit()) {
+            int length = segment.getInt(at);
+            int bodySize = length - 4;
+            if (bodySize < FIXED_BODY_SIZE || at + 8L + bodySize > segment.limit()) {
+                break;
+            }
+            int bodyAt = at + 8;
+            if (segment.getInt(at + 4) != crc(segment, bodyAt, bodySize)) {
+                break;
+            }
+            int actorLength = Short.toUnsignedInt(segment.getShort(bodyAt + 25));
+            if (actorLength > bodySize - FIXED_BODY_SIZE) {
+                break;
+            }
+            int detailsLength = segment.getInt(bodyAt + 27 + actorLength);
+            if (detailsLength != bodySize - FIXED_BODY_SIZE - actorLength) {
+                break;
+            }
+            byte[] actor = new byte[actorLength];
+            segment.get(bodyAt + 27, actor);
+            byte[] details = new byte[detailsLength];
+            segment.get(bodyAt + FIXED_BODY_SIZE + actorLength, details);
+            consumer.accept(new AuditEvent(
+                    segment.getLong(bodyAt),
+                    Instant.ofEpochMilli(segment.getLong(bodyAt + 8)),
+                    AuditAction.fromCode(segment.get(bodyAt + 24)),
+                    segment.getLong(bodyAt + 16),
+                    actorLength == 0 ? null : new String(actor, StandardCharsets.UTF_8),
+                    new String(details, StandardCharsets.UTF_8)));
+            at = bodyAt + bodySize;
+        }
+        return at;
+    }
+
+    private static int crc(ByteBuffer segment, int at, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(segment.slice(at, length));
+        return (int) crc.getValue();
+    }
+}
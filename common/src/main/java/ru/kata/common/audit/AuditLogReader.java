@@ -0,0 +1,109 @@
+package ru.kata.common.audit;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Чтение журнала аудита с фильтром по пользователю и времени; только JDK, можно читать
+ * журнал работающего приложения. CLI, вывод - NDJSON:
+ * <pre>
+ * java -cp common/target/classes ru.kata.common.audit.AuditLogReader audit --user 42 --from 2025-01-01T00:00:00Z
+ * </pre>
+ */
+public final class AuditLogReader {
+
+    private AuditLogReader() {
+    }
+
+    /**
+     * Передаёт {@code consumer} события журнала в порядке записи.
+     *
+     * @param userId только события этого пользователя; {@code null} - все
+     * @param from   не раньше этого момента включительно; {@code null} - без ограничения
+     * @param to     раньше этого момента; {@code null} - без ограничения
+     * @return число переданных событий
+     */
+    public static long replay(Path dir, Long userId, Instant from, Instant to,
+                              Consumer<AuditEvent> consumer) throws IOException {
+        long[] count = {0};
+        for (Path segment : AuditLogFormat.segments(dir)) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                AuditLogFormat.scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), event -> {
+                    if ((userId == null || event.userId() == userId)
+                            && (from == null || !event.timestamp().isBefore(from))
+                            && (to == null || event.timestamp().isBefore(to))) {
+                        count[0]++;
+                        consumer.accept(event);
+                    }
+                });
+            } catch (NoSuchFileException e) {
+                // сегмент удалён сжатием во время чтения
+            }
+        }
+        return count[0];
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args.length % 2 == 0) {
+            usage();
+        }
+        Long userId = null;
+        Instant from = null;
+        Instant to = null;
+        for (int i = 1; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--user" -> userId = Long.parseLong(args[i + 1]);
+                case "--from" -> from = Instant.parse(args[i + 1]);
+                case "--to" -> to = Instant.parse(args[i + 1]);
+                default -> usage();
+            }
+        }
+        PrintStream out = new PrintStream(System.out, false, StandardCharsets.UTF_8);
+        long count = replay(Path.of(args[0]), userId, from, to, event -> out.println(toJson(event)));
+        out.flush();
+        System.err.println(count + " events");
+    }
+
+    static String toJson(AuditEvent event) {
+        return "{\"seq\":" + event.sequence()
+                + ",\"time\":\"" + event.timestamp()
+                + "\",\"action\":\"" + event.action()
+                + "\",\"userId\":" + event.userId()
+                + ",\"actor\":" + (event.actor() == null ? "null" : quote(event.actor()))
+                + ",\"details\":" + quote(event.details()) + "}";
+    }
+
+    private static String quote(String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    private static void usage() {
+        System.err.println("Usage: AuditLogReader <dir> [--user <id>] [--from <ISO-8601>] [--to <ISO-8601>]");
+        System.exit(2);
+    }
+}
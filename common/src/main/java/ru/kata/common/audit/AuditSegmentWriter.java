@@ -0,0 +1,158 @@
+package ru.kata.common.audit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Запись в текущий mmap-сегмент журнала: сегмент выделяется сразу на segmentSize байт,
+ * при переполнении сбрасывается на диск и сменяется следующим. При открытии последний
+ * сегмент дочитывается до последней целой записи - оборванный хвост перезаписывается.
+ * Используется только потоком записи AuditLog.
+ */
+@Slf4j
+final class AuditSegmentWriter implements Closeable {
+
+    private final Path dir;
+    private final int segmentSize;
+    /** Закрытые сегменты: время последней записи, для удаления по сроку хранения. */
+    private final Map<Path, Instant> sealed = new HashMap<>();
+
+    private Path current;
+    private MappedByteBuffer buffer;
+    private int position;
+    private long nextSequence;
+
+    AuditSegmentWriter(Path dir, int segmentSize) throws IOException {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(dir);
+        List<Path> segments = AuditLogFormat.segments(dir);
+        if (segments.isEmpty()) {
+            open(1);
+        } else {
+            recover(segments.get(segments.size() - 1));
+        }
+    }
+
+    /** Номер, который получит следующая запись. */
+    long nextSequence() {
+        return nextSequence;
+    }
+
+    /** Дописывает событие, при нехватке места начиная новый сегмент; возвращает номер записи. */
+    long append(AuditEvent event) throws IOException {
+        byte[] actor = event.actor() == null ? new byte[0] : event.actor().getBytes(StandardCharsets.UTF_8);
+        byte[] details = event.details() == null ? new byte[0] : event.details().getBytes(StandardCharsets.UTF_8);
+        int size = AuditLogFormat.recordSize(actor.length, details.length);
+        if (AuditLogFormat.HEADER_SIZE + size > segmentSize) {
+            throw new IOException("Audit record of " + size + " bytes does not fit a segment of " + segmentSize);
+        }
+        if (position + size > buffer.capacity()) {
+            roll();
+        }
+        long sequence = nextSequence++;
+        position = AuditLogFormat.write(buffer, position, sequence, event, actor, details);
+        return sequence;
+    }
+
+    /** Сбрасывает записанные страницы текущего сегмента на диск. */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Сжимает закрытые сегменты: удаляет те, где последняя запись старше {@code retention},
+     * остальные обрезает до конца данных (место под сегмент выделялось заранее).
+     *
+     * @return число удалённых сегментов
+     */
+    int compact(Duration retention, Instant now) throws IOException {
+        Instant expiry = now.minus(retention);
+        int deleted = 0;
+        for (Path segment : AuditLogFormat.segments(dir)) {
+            if (segment.equals(current)) {
+                continue;
+            }
+            Instant last = sealed.get(segment);
+            if (last == null) {
+                last = trim(segment);
+                sealed.put(segment, last);
+            }
+            if (last.isBefore(expiry)) {
+                Files.deleteIfExists(segment);
+                sealed.remove(segment);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    private void roll() throws IOException {
+        force();
+        log.debug("Audit segment {} is full at {} bytes, rolling", current.getFileName(), position);
+        open(nextSequence);
+    }
+
+    private void open(long firstSequence) throws IOException {
+        current = dir.resolve(AuditLogFormat.segmentName(firstSequence));
+        buffer = map(current, segmentSize);
+        AuditLogFormat.writeHeader(buffer);
+        position = AuditLogFormat.HEADER_SIZE;
+        nextSequence = firstSequence;
+    }
+
+    private void recover(Path segment) throws IOException {
+        current = segment;
+        buffer = map(segment, Math.max(segmentSize, (int) Files.size(segment)));
+        long[] last = {AuditLogFormat.firstSequence(segment) - 1};
+        int end = AuditLogFormat.scan(buffer, event -> last[0] = event.sequence());
+        if (end == 0) {
+            AuditLogFormat.writeHeader(buffer);
+            end = AuditLogFormat.HEADER_SIZE;
+        }
+        if (end + 4 <= buffer.capacity()) {
+            buffer.putInt(end, 0);
+        }
+        position = end;
+        nextSequence = last[0] + 1;
+        log.info("Audit log recovered: segment {}, next sequence {}", segment.getFileName(), nextSequence);
+    }
+
+    /** Обрезает закрытый сегмент до конца данных; возвращает время его последней записи. */
+    private Instant trim(Path segment) throws IOException {
+        Instant[] last = {Instant.EPOCH};
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int end = AuditLogFormat.scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+                    event -> last[0] = event.timestamp());
+            if (end < channel.size()) {
+                channel.truncate(end);
+            }
+        }
+        return last[0];
+    }
+
+    private static MappedByteBuffer map(Path segment, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.kata.common.bloom;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума для строк поверх {@link AtomicLongArray}.
+ * <p>
+ * Потокобезопасен без блокировок; элементы только добавляются. {@link #mightContain}
+ * никогда не отвечает {@code false} для добавленной строки, а для остальных ошибается
+ * с вероятностью около {@code fpp}, пока число добавлений не превышает {@link #capacity()}.
+ * Индексы битов — двойное хеширование ({@code h1 + i·h2}) одного 64‑битного хеша.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final AtomicLong insertions = new AtomicLong();
+
+    public BloomFilter(long expectedInsertions, double fpp) {
+        this.capacity = Math.max(expectedInsertions, 1);
+        long bits = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min((Math.max(bits, 64) + 63) >>> 6, Integer.MAX_VALUE - 8);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+    }
+
+    public void put(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 + 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 + 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Число выполненных {@link #put} (с повторами). */
+    public long insertions() {
+        return insertions.get();
+    }
+
+    /** Число добавлений, на которое рассчитан размер фильтра. */
+    public long capacity() {
+        return capacity;
+    }
+
+    /** FNV‑1a по байтам UTF‑8 с финальным перемешиванием MurmurHash3. */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,36 @@
+package ru.kata.common.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Привязка чтений текущего потока к primary.
+ * <p>
+ * Маршрутизирующий {@code DataSource} приложения проверяет {@link #isPinned()} и не отправляет
+ * такие read‑only транзакции на реплику. Без настроенной реплики привязка ничего не меняет.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<int[]> PINS = ThreadLocal.withInitial(() -> new int[1]);
+
+    private PrimaryReads() {
+    }
+
+    /**
+     * Выполняет {@code action}, читая только с primary. Нужен тем, кто наполняет общие кэши:
+     * результат, прочитанный с отстающей реплики, остался бы в кэше и после того, как она догонит.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        int[] pins = PINS.get();
+        pins[0]++;
+        try {
+            return action.get();
+        } finally {
+            pins[0]--;
+        }
+    }
+
+    /** Поток сейчас внутри {@link #onPrimary(Supplier)}. */
+    public static boolean isPinned() {
+        return PINS.get()[0] > 0;
+    }
+}
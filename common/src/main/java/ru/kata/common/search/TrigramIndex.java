@@ -0,0 +1,308 @@
+package ru.kata.common.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Инвертированный индекс для поиска по подстроке в нескольких текстовых полях документа.
+ * <p>
+ * Совпадения ранжируются: поле целиком, префикс поля, префикс слова, вхождение в середине;
+ * внутри одного класса — по совпавшему тексту (полю или слову) в алфавитном порядке, затем по id.
+ * Поиск идёт проходами в том же порядке, и каждый заканчивается, как только набрано {@code limit}
+ * результатов: префиксы полей и слов читаются из отсортированных словарей, поэтому частый
+ * префикс не заставляет перебирать все документы. Вхождения в середине ищутся только для
+ * запросов от трёх символов и только если префиксных совпадений не хватило: списки документов
+ * триграмм запроса пересекаются, начиная с самого короткого, кандидаты проверяются на настоящее
+ * вхождение подстроки.
+ * <p>
+ * Списки документов — отсортированные массивы внутренних номеров {@code int}; номер документа
+ * сохраняется при обновлении и переиспользуется после удаления. Чтения идут параллельно под
+ * read‑lock, запись блокирует индекс на время правки одного документа.
+ *
+ * @param <T> данные документа, возвращаемые поиском
+ */
+public final class TrigramIndex<T> {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Comparator<Hit<?>> HIT_ORDER = Comparator.<Hit<?>>comparingInt(Hit::score)
+            .thenComparing(Hit::key)
+            .thenComparingLong(Hit::id);
+    private static final int SUBSTRING = 3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> numbers = new HashMap<>();
+    private final List<Doc<T>> docs = new ArrayList<>();
+    private final Deque<Integer> freeNumbers = new ArrayDeque<>();
+    private final NavigableMap<String, Postings> fields = new TreeMap<>();
+    private final NavigableMap<String, Postings> tokens = new TreeMap<>();
+    private final Map<String, Postings> trigrams = new HashMap<>();
+
+    /** Добавляет или заменяет документ {@code id}. */
+    public void put(long id, T payload, String... values) {
+        String[] normalized = Arrays.stream(values).map(TrigramIndex::normalize).toArray(String[]::new);
+        lock.writeLock().lock();
+        try {
+            Integer existing = numbers.get(id);
+            int number;
+            if (existing != null) {
+                unindex(existing);
+                number = existing;
+            } else {
+                number = freeNumbers.isEmpty() ? docs.size() : freeNumbers.pop();
+                numbers.put(id, number);
+            }
+            Doc<T> doc = new Doc<>(id, payload, normalized);
+            if (number == docs.size()) {
+                docs.add(doc);
+            } else {
+                docs.set(number, doc);
+            }
+            for (String field : fieldsOf(normalized)) {
+                fields.computeIfAbsent(field, f -> new Postings()).add(number);
+            }
+            for (String token : tokensOf(normalized)) {
+                tokens.computeIfAbsent(token, t -> new Postings()).add(number);
+            }
+            for (String gram : trigramsOf(normalized)) {
+                trigrams.computeIfAbsent(gram, g -> new Postings()).add(number);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Удаляет документ {@code id}, если он есть. */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer number = numbers.remove(id);
+            if (number != null) {
+                unindex(number);
+                docs.set(number, null);
+                freeNumbers.push(number);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Число документов в индексе. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return numbers.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** До {@code limit} лучших документов, содержащих {@code query}, в порядке ранжирования. */
+    public List<T> search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Hit<T>> best = new PriorityQueue<>(limit, HIT_ORDER.reversed());
+        BitSet seen = new BitSet();
+        lock.readLock().lock();
+        try {
+            boolean full = searchPrefix(fields, q, false, limit, seen, best)
+                    || searchPrefix(tokens, q, true, limit, seen, best);
+            if (!full && q.length() >= 3) {
+                searchSubstring(q, limit, seen, best);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Hit<T>> hits = new ArrayList<>(best);
+        hits.sort(HIT_ORDER);
+        return hits.stream().map(Hit::payload).toList();
+    }
+
+    /**
+     * Документы, у которых ключ словаря начинается с {@code q}. Ключи идут по алфавиту, поэтому
+     * документ впервые встречается под своим лучшим ключом, а после заполнения очереди
+     * следующие ключи уже ничего не улучшат.
+     *
+     * @return {@code true}, если набрано {@code limit} результатов
+     */
+    private boolean searchPrefix(NavigableMap<String, Postings> dictionary, String q, boolean token,
+                                 int limit, BitSet seen, PriorityQueue<Hit<T>> best) {
+        for (Map.Entry<String, Postings> entry : dictionary.subMap(q, true, q + Character.MAX_VALUE, false).entrySet()) {
+            String key = entry.getKey();
+            int score = token ? 2 : key.length() == q.length() ? 0 : 1;
+            Postings postings = entry.getValue();
+            for (int i = 0; i < postings.size; i++) {
+                int number = postings.values[i];
+                if (!seen.get(number)) {
+                    seen.set(number);
+                    offer(docs.get(number), score, key, limit, best);
+                }
+            }
+            if (best.size() >= limit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void searchSubstring(String q, int limit, BitSet seen, PriorityQueue<Hit<T>> best) {
+        List<Postings> lists = new ArrayList<>();
+        for (String gram : trigramsOf(new String[]{q})) {
+            Postings postings = trigrams.get(gram);
+            if (postings == null) {
+                return;
+            }
+            lists.add(postings);
+        }
+        lists.sort(Comparator.comparingInt(p -> p.size));
+        Postings smallest = lists.get(0);
+        candidates:
+        for (int i = 0; i < smallest.size; i++) {
+            int number = smallest.values[i];
+            if (seen.get(number)) {
+                continue;
+            }
+            for (int j = 1; j < lists.size(); j++) {
+                if (!lists.get(j).contains(number)) {
+                    continue candidates;
+                }
+            }
+            Doc<T> doc = docs.get(number);
+            String key = null;
+            for (String field : doc.fields()) {
+                if (field.contains(q) && (key == null || field.compareTo(key) < 0)) {
+                    key = field;
+                }
+            }
+            if (key != null) {
+                offer(doc, SUBSTRING, key, limit, best);
+            }
+        }
+    }
+
+    private void offer(Doc<T> doc, int score, String key, int limit, PriorityQueue<Hit<T>> best) {
+        Hit<T> hit = new Hit<>(score, key, doc.id(), doc.payload());
+        if (best.size() < limit) {
+            best.add(hit);
+        } else if (HIT_ORDER.compare(hit, best.peek()) < 0) {
+            best.poll();
+            best.add(hit);
+        }
+    }
+
+    private void unindex(int number) {
+        String[] values = docs.get(number).fields();
+        for (String field : fieldsOf(values)) {
+            removePosting(fields, field, number);
+        }
+        for (String token : tokensOf(values)) {
+            removePosting(tokens, token, number);
+        }
+        for (String gram : trigramsOf(values)) {
+            removePosting(trigrams, gram, number);
+        }
+    }
+
+    private static void removePosting(Map<String, Postings> map, String key, int number) {
+        Postings postings = map.get(key);
+        if (postings != null && postings.remove(number) && postings.size == 0) {
+            map.remove(key);
+        }
+    }
+
+    private static Set<String> fieldsOf(String[] values) {
+        Set<String> result = new HashSet<>();
+        for (String value : values) {
+            if (!value.isEmpty()) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> tokensOf(String[] values) {
+        Set<String> result = new HashSet<>();
+        for (String value : values) {
+            for (String token : TOKEN_SEPARATOR.split(value)) {
+                if (!token.isEmpty()) {
+                    result.add(token);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> trigramsOf(String[] values) {
+        Set<String> grams = new HashSet<>();
+        for (String value : values) {
+            for (int i = 0; i + 3 <= value.length(); i++) {
+                grams.add(value.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    private record Doc<T>(long id, T payload, String[] fields) {
+    }
+
+    private record Hit<T>(int score, String key, long id, T payload) {
+    }
+
+    /** Отсортированный по возрастанию массив номеров документов. */
+    private static final class Postings {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int number) {
+            int index = size;
+            if (size > 0 && values[size - 1] >= number) {
+                index = Arrays.binarySearch(values, 0, size, number);
+                if (index >= 0) {
+                    return;
+                }
+                index = -index - 1;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = number;
+            size++;
+        }
+
+        boolean remove(int number) {
+            int index = Arrays.binarySearch(values, 0, size, number);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int number) {
+            return Arrays.binarySearch(values, 0, size, number) >= 0;
+        }
+    }
+}
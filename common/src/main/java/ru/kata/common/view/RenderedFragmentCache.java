@@ -0,0 +1,89 @@
+package ru.kata.common.view;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ru.kata.common.datasource.PrimaryReads;
+import ru.kata.common.tx.AfterCommit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Кэш готового HTML фрагментов страниц.
+ * <p>
+ * Ключ записи — версия данных плюс нормализованные параметры страницы. Любая запись данных,
+ * попадающих во фрагменты, увеличивает версию после коммита ({@link #invalidateAfterCommit()}),
+ * поэтому фрагмент, отрендеренный по старым данным, больше не читается.
+ * Размер ограничен {@code maxEntries}: при переполнении кэш очищается целиком.
+ * Попадания и промахи публикуются счётчиком {@code view.fragment.cache}.
+ * Бин объявляет приложение, задавая размер из своих настроек.
+ */
+@Slf4j
+public class RenderedFragmentCache {
+
+    private final AtomicLong version = new AtomicLong();
+    private final Map<String, String> fragments = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public RenderedFragmentCache(MeterRegistry meterRegistry, int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.hits = meterRegistry.counter("view.fragment.cache", "result", "hit");
+        this.misses = meterRegistry.counter("view.fragment.cache", "result", "miss");
+    }
+
+    /** Текущая версия данных. */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Возвращает HTML фрагмента для текущей версии данных, при промахе загружая данные через
+     * {@code loader} и рендеря их {@code renderer}. Рендер идёт без блокировки: два параллельных
+     * промаха по одному ключу отрендерят фрагмент дважды.
+     * Данные читаются с primary ({@link PrimaryReads#onPrimary}): фрагмент по данным
+     * отстающей реплики остался бы в кэше под уже новой версией.
+     * Если {@code cacheable} отклоняет загруженные данные (например, пустая страница за концом
+     * списка), фрагмент отдаётся без сохранения — такие ключи не вытесняют полезные записи.
+     */
+    public <T> String get(String key, Supplier<T> loader, Predicate<T> cacheable, Function<T, String> renderer) {
+        String versionedKey = version.get() + ":" + key;
+        String html = fragments.get(versionedKey);
+        if (html != null) {
+            hits.increment();
+            return html;
+        }
+        misses.increment();
+        T data = PrimaryReads.onPrimary(loader);
+        html = renderer.apply(data);
+        if (!cacheable.test(data)) {
+            return html;
+        }
+        if (fragments.size() >= maxEntries) {
+            fragments.clear();
+        }
+        fragments.put(versionedKey, html);
+        return html;
+    }
+
+    /** Сбрасывает кэш сразу. */
+    public void invalidate() {
+        long next = version.incrementAndGet();
+        fragments.clear();
+        log.debug("Rendered fragments invalidated, data version={}", next);
+    }
+
+    /**
+     * Сбрасывает кэш после коммита текущей транзакции (или сразу, если её нет):
+     * до коммита новая версия могла бы закэшировать ещё не видимые данные.
+     */
+    public void invalidateAfterCommit() {
+        AfterCommit.run(this::invalidate);
+    }
+}
@@ -0,0 +1,72 @@
+package ru.kata.common.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сегменты журнала аудита: смена, восстановление после перезапуска, оборванный хвост, сжатие.
+ */
+class AuditSegmentWriterTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void segmentsRollRecoverAndCompact() throws IOException {
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        AuditSegmentWriter writer = new AuditSegmentWriter(dir, SEGMENT_SIZE);
+        for (int i = 0; i < 3000; i++) {
+            writer.append(new AuditEvent(0, start.plusSeconds(i), AuditAction.UPDATE, i % 10, "admin", "n=" + i));
+        }
+        writer.close();
+        List<Path> segments = AuditLogFormat.segments(dir);
+        assertThat(segments).hasSizeGreaterThan(1);
+
+        // оборванная запись в конце последнего сегмента
+        try (FileChannel channel = FileChannel.open(segments.get(segments.size() - 1), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 60, 1, 2, 3}), endOfData(segments));
+        }
+
+        AuditSegmentWriter reopened = new AuditSegmentWriter(dir, SEGMENT_SIZE);
+        assertThat(reopened.nextSequence()).isEqualTo(3001);
+        reopened.append(new AuditEvent(0, start.plusSeconds(5000), AuditAction.DELETE, 7, null, ""));
+        reopened.close();
+
+        List<AuditEvent> user7 = new ArrayList<>();
+        AuditLogReader.replay(dir, 7L, start.plusSeconds(2000), null, user7::add);
+        assertThat(user7).hasSize(101);
+        assertThat(user7.get(100).sequence()).isEqualTo(3001);
+        assertThat(user7.get(100).actor()).isNull();
+
+        long sealedBefore = Files.size(segments.get(0));
+        assertThat(reopened.compact(Duration.ofDays(1), start.plusSeconds(3000))).isZero();
+        assertThat(Files.size(segments.get(0))).isLessThan(sealedBefore);
+        assertThat(AuditLogReader.replay(dir, null, null, null, e -> { })).isEqualTo(3001);
+
+        assertThat(reopened.compact(Duration.ofDays(1), start.plus(Duration.ofDays(2))))
+                .isEqualTo(segments.size() - 1);
+        assertThat(AuditLogFormat.segments(dir)).containsExactly(segments.get(segments.size() - 1));
+    }
+
+    /** Позиция за последней целой записью последнего сегмента. */
+    private static long endOfData(List<Path> segments) throws IOException {
+        try (FileChannel channel = FileChannel.open(segments.get(segments.size() - 1), StandardOpenOption.READ)) {
+            return AuditLogFormat.scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), e -> { });
+        }
+    }
+}
@@ -2,12 +2,14 @@ package web;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 /**
  * Главный класс приложения, служащий точкой входа для запуска
  * Spring Boot приложения.
  */
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class Application {
 
     public static void main(String[] args) {
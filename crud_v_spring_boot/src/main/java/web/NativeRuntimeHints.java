@@ -0,0 +1,55 @@
+package web;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import web.dto.ImportReportDto;
+import web.dto.UserPageDto;
+import web.dto.UserRequestDto;
+import web.dto.UserResponseDto;
+import web.dto.UserSuggestionDto;
+import web.logging.DebugSamplingTurboFilter;
+import web.model.CacheChange;
+import web.model.OutboxEvent;
+import web.model.ReplicaHeartbeat;
+import web.model.User;
+
+/**
+ * Подсказки для нативного образа (профиль Maven {@code native}), которые Spring AOT
+ * не выводит сам:
+ * <ul>
+ *     <li>DTO: Thymeleaf читает геттеры через SpEL, а импорт и outbox сериализуют их
+ *     {@code ObjectMapper}‑ом напрямую, мимо контроллеров, — AOT таких использований не видит.
+ *     Геттеры и конструкторы генерирует Lombok, поэтому регистрируются методы, а не поля.</li>
+ *     <li>Сущности: Hibernate создаёт их и заполняет поля рефлексией; AOT регистрирует
+ *     управляемые типы, но явная регистрация не зависит от сканирования.</li>
+ *     <li>Turbo‑фильтр Logback создаётся по имени класса из {@code logback-spring.xml}.</li>
+ * </ul>
+ * {@code UserMapper} написан вручную и создаётся сгенерированным AOT‑кодом как обычный бин —
+ * подсказки ему не нужны.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingRegistrar.registerReflectionHints(hints.reflection(),
+                UserResponseDto.class, UserRequestDto.class, UserPageDto.class,
+                UserSuggestionDto.class, ImportReportDto.class, ImportReportDto.RowError.class);
+
+        for (Class<?> entity : new Class<?>[]{User.class, OutboxEvent.class, CacheChange.class, ReplicaHeartbeat.class}) {
+            hints.reflection().registerType(entity,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS,
+                    MemberCategory.DECLARED_FIELDS);
+        }
+
+        hints.reflection().registerType(DebugSamplingTurboFilter.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        hints.resources().registerPattern("templates/**");
+    }
+}
@@ -0,0 +1,21 @@
+package web.coherence;
+
+import web.dto.UserSuggestionDto;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Получатель изменений, сделанных на других узлах.
+ * Все бины с этим интерфейсом вызываются {@link CacheChangePoller} из его потока, вне транзакции.
+ */
+public interface CacheChangeListener {
+
+    /**
+     * Пользователи созданы, изменены или удалены на другом узле.
+     *
+     * @param userIds id затронутых пользователей
+     * @param current их текущее состояние из БД; удалённых пользователей в карте нет
+     */
+    void usersChanged(Set<Long> userIds, Map<Long, UserSuggestionDto> current);
+}
@@ -0,0 +1,75 @@
+package web.coherence;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Запись изменений пользователей в {@code cache_changes}, откуда их забирают
+ * {@link CacheChangePoller} остальных узлов.
+ * <p>
+ * Методы требуют активной транзакции: строка журнала становится видимой вместе
+ * с самим изменением, а откат не оставляет ложной записи. Каждое изменение — отдельная
+ * строка, а не общий счётчик версии: параллельные записи не сериализуются на одной
+ * «горячей» строке. При {@code cache.coherence.enabled=false} (один узел) журнал не пишется.
+ */
+@Component
+public class CacheChangeLog {
+
+    private static final String INSERT_SQL =
+            "insert into cache_changes (node_id, region, entity_id, created_at) values (?, ?, ?, ?)";
+    private static final String INSERT_BY_EMAILS_SQL =
+            "insert into cache_changes (node_id, region, entity_id, created_at) "
+                    + "select :nodeId, :region, id, :createdAt from users where email in (:emails)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheChangeLog(JdbcTemplate jdbcTemplate,
+                          @Value("${cache.coherence.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Идентификатор этого узла в журнале; новый при каждом запуске.
+     */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Пользователь создан, изменён или удалён текущей транзакцией.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void userChanged(Long userId) {
+        if (enabled) {
+            jdbcTemplate.update(INSERT_SQL, nodeId, CacheRegion.USERS.name(), userId, Timestamp.from(Instant.now()));
+        }
+    }
+
+    /**
+     * Пользователи, вставленные в обход JPA (массовый импорт): их id известны только БД,
+     * поэтому строки журнала добавляются одним {@code insert ... select} по email.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void usersImported(Collection<String> emails) {
+        if (enabled && !emails.isEmpty()) {
+            new NamedParameterJdbcTemplate(jdbcTemplate).update(INSERT_BY_EMAILS_SQL, Map.of(
+                    "nodeId", nodeId,
+                    "region", CacheRegion.USERS.name(),
+                    "createdAt", Timestamp.from(Instant.now()),
+                    "emails", emails));
+        }
+    }
+}
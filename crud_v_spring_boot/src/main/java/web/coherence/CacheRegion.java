@@ -0,0 +1,8 @@
+package web.coherence;
+
+/**
+ * Вид изменённых данных: от него зависит, какие кэши сбрасываются на других узлах.
+ */
+public enum CacheRegion {
+    USERS
+}
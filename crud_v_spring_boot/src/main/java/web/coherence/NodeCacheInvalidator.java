@@ -0,0 +1,43 @@
+package web.coherence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.kata.common.view.RenderedFragmentCache;
+import web.dto.UserSuggestionDto;
+import web.search.UserSearchIndex;
+import web.service.UserAvailabilityService;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Применяет изменения, сделанные другими узлами, к кэшам этого узла — так же, как
+ * {@link web.service.UserServiceImpl} применяет свои после коммита. Вызывается вне транзакции,
+ * поэтому методы кэшей «…AfterCommit» выполняются сразу.
+ * <p>
+ * Создан пользователь или изменён, по журналу не видно, поэтому каждое изменение считается
+ * и освобождением старого email: фильтр занятых email перестроится не позже, чем нужно.
+ */
+@Component
+@RequiredArgsConstructor
+public class NodeCacheInvalidator implements CacheChangeListener {
+
+    private final RenderedFragmentCache fragmentCache;
+    private final UserAvailabilityService availabilityService;
+    private final UserSearchIndex searchIndex;
+
+    @Override
+    public void usersChanged(Set<Long> userIds, Map<Long, UserSuggestionDto> current) {
+        for (Long id : userIds) {
+            UserSuggestionDto user = current.get(id);
+            if (user != null) {
+                availabilityService.registerEmail(user.getEmail());
+                searchIndex.indexAfterCommit(id, user.getName(), user.getEmail());
+            } else {
+                searchIndex.removeAfterCommit(id);
+            }
+            availabilityService.registerRemoval();
+        }
+        fragmentCache.invalidate();
+    }
+}
@@ -0,0 +1,115 @@
+package web.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import web.dto.UserSuggestionDto;
+import web.search.UserSearchIndex;
+import web.service.UserAvailabilityService;
+import web.service.UserField;
+import web.service.UserQueryService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JSON API для чтения пользователей другими сервисами (версия 1).
+ * <p>
+ * Во всех методах {@code fields} — список полей через запятую ({@code id,name,email});
+ * без параметра возвращаются все поля, {@code id} возвращается всегда.
+ * <ul>
+ *     <li>{@code GET /api/v1/users/{id}} — один пользователь;</li>
+ *     <li>{@code GET /api/v1/users?ids=1,2,3} или {@code POST /api/v1/users/batch} с массивом id —
+ *     пакетный запрос, ответ {@code {"users": [...], "missing": [...]}};</li>
+ *     <li>{@code GET /api/v1/users} — все пользователи потоковым JSON‑массивом;</li>
+ *     <li>{@code GET /api/v1/users/availability?email=...} — свободен ли email, {@code {"email": true}};</li>
+ *     <li>{@code GET /api/v1/users/search?q=...&limit=...} — type‑ahead поиск по имени и email.</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping(path = "/api/v1/users", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+@Slf4j
+public class UserApiController {
+
+    private final UserQueryService userQueryService;
+    private final UserAvailabilityService availabilityService;
+    private final UserSearchIndex searchIndex;
+
+    /**
+     * Живая проверка email для форм: обычно отвечает из фильтра в памяти, без запроса в БД.
+     */
+    @GetMapping("/availability")
+    public Map<String, Boolean> checkAvailability(@RequestParam String email) {
+        if (email.isBlank()) {
+            throw new IllegalArgumentException("email must not be blank");
+        }
+        return Map.of("email", availabilityService.isEmailAvailable(email));
+    }
+
+    /**
+     * Подсказки для поля поиска: пользователи, у которых имя или email содержат {@code q},
+     * лучшие совпадения первыми. Отвечает из индекса в памяти, без запроса в БД.
+     */
+    @GetMapping("/search")
+    public List<UserSuggestionDto> search(@RequestParam String q,
+                                          @RequestParam(required = false) Integer limit) {
+        return searchIndex.search(q, limit);
+    }
+
+    /**
+     * Один пользователь по id; 404, если его нет.
+     */
+    @GetMapping("/{id}")
+    public Map<String, Object> getUser(@PathVariable Long id,
+                                       @RequestParam(required = false) String fields) {
+        log.debug("GET /api/v1/users/{} - fields={}", id, fields);
+        return userQueryService.getUser(id, UserField.parse(fields));
+    }
+
+    /**
+     * Без {@code ids} — все пользователи потоком, иначе — пакетный запрос по перечисленным id.
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> getUsers(@RequestParam(required = false) List<Long> ids,
+                                                          @RequestParam(required = false) String fields) {
+        Set<UserField> selected = UserField.parse(fields);
+        if (ids == null) {
+            log.debug("GET /api/v1/users - streaming all users, fields={}", fields);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> userQueryService.writeAllUsers(selected, out));
+        }
+        return batch(ids, selected);
+    }
+
+    /**
+     * Пакетный запрос для длинных списков id, не помещающихся в URL: тело — JSON‑массив id.
+     */
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getUsersBatch(@RequestBody List<Long> ids,
+                                                               @RequestParam(required = false) String fields) {
+        return batch(ids, UserField.parse(fields));
+    }
+
+    /**
+     * Список id проверяется до начала ответа, чтобы ошибка пришла статусом 400, а не оборванным телом.
+     */
+    private ResponseEntity<StreamingResponseBody> batch(List<Long> ids, Set<UserField> fields) {
+        List<Long> normalized = userQueryService.normalizeIds(ids);
+        log.debug("/api/v1/users - batch lookup of {} ids, fields={}", normalized.size(), fields);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> userQueryService.writeUsersByIds(normalized, fields, out));
+    }
+}
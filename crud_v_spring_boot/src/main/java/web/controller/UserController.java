@@ -1,5 +1,7 @@
 package web.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,10 +10,16 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import ru.kata.common.view.RenderedFragmentCache;
 import web.dto.UserRequestDto;
 import web.dto.UserResponseDto;
+import web.exception.UserAlreadyExistsException;
 import web.exception.UserNotFoundException;
 import web.service.UserService;
+import web.view.FragmentRenderer;
+import web.view.ViewEtags;
+
+import java.util.Map;
 
 
 /**
@@ -28,14 +36,35 @@ import web.service.UserService;
 public class UserController {
 
     private final UserService userService;
+    private final RenderedFragmentCache fragmentCache;
+    private final FragmentRenderer fragmentRenderer;
+    private final ViewEtags viewEtags;
 
     /**
-     * Показать страницу со списком всех пользователей.
+     * Показать страницу со списком пользователей.
+     * <p>
+     * Список отдаётся постранично: {@code cursor} — токен следующей страницы
+     * из предыдущего ответа, {@code size} — желаемый размер страницы.
+     * Таблица берётся готовым HTML из {@link RenderedFragmentCache}: при попадании
+     * ни запроса в БД, ни рендеринга строк нет. Ключ строится из декодированного курсора
+     * и ограниченного размера страницы; повреждённый курсор не доходит до кэша, а пустая
+     * страница за концом списка не кэшируется. Если данные не менялись с прошлого
+     * ответа клиенту, отдаётся {@code 304} по ETag ({@link ViewEtags#listTag()}).
      */
     @GetMapping
-    public String listUsers(Model model) {
-        log.info("GET /users - displaying list of all users");
-        model.addAttribute("users", userService.getAllUsers());
+    public String listUsers(@RequestParam(required = false) String cursor,
+                            @RequestParam(required = false) Integer size,
+                            Model model, HttpServletRequest request, HttpServletResponse response) {
+        log.debug("GET /users - displaying users page, cursor={}, size={}", cursor, size);
+        if (viewEtags.checkNotModified(viewEtags.listTag(), request, response)) {
+            return null;
+        }
+        String userTable = fragmentCache.get("users/table?" + userService.getUsersPageKey(cursor, size),
+                () -> userService.getUsersPage(cursor, size),
+                page -> cursor == null || cursor.isBlank() || !page.getUsers().isEmpty(),
+                page -> fragmentRenderer.render("users/table",
+                        Map.of("users", page.getUsers(), "page", page), request, response));
+        model.addAttribute("userTable", userTable);
         return "users/list";
     }
 
@@ -44,7 +73,7 @@ public class UserController {
      */
     @GetMapping("/add")
     public String showAddForm(Model model) {
-        log.info("GET /users/add - showing form to create a new user");
+        log.debug("GET /users/add - showing form to create a new user");
         model.addAttribute("userRequest", new UserRequestDto());
         return "users/form";
     }
@@ -53,7 +82,7 @@ public class UserController {
      * Обработать отправку формы создания пользователя.
      * <p>
      * Если валидация проходит штатно, сохраняет пользователя и делает редирект на список.
-     * При ошибке валидации возвращает ту же форму с сообщениями об ошибках.
+     * При ошибке валидации или занятом email возвращает ту же форму с сообщениями об ошибках.
      */
     @PostMapping
     public String createUser(@ModelAttribute("userRequest") @Valid UserRequestDto userRequest,
@@ -62,8 +91,14 @@ public class UserController {
             log.warn("POST /users - validation errors: {}", bindingResult.getAllErrors());
             return "users/form";
         }
-        userService.saveUser(userRequest);
-        log.info("POST /users - successfully created user");
+        try {
+            userService.saveUser(userRequest);
+        } catch (UserAlreadyExistsException e) {
+            log.warn("POST /users - {}", e.getMessage());
+            bindingResult.rejectValue(e.getField(), "duplicate", "Пользователь с таким email уже существует");
+            return "users/form";
+        }
+        log.debug("POST /users - successfully created user");
         redirectAttributes.addFlashAttribute("successMessage", "User added successfully!");
         return "redirect:/users";
     }
@@ -72,17 +107,24 @@ public class UserController {
      * Показать форму редактирования существующего пользователя.
      * <p>
      * Загружает из БД DTO ответа, мапит в DTO запроса и передаёт во view.
+     * Сначала читается только версия строки: если форма у клиента актуальна, отдаётся {@code 304}.
      * При отсутствии пользователя — редирект на список с ошибкой.
      */
     @GetMapping("/edit/{id}")
-    public String showEditForm(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
-        log.info("GET /users/edit/{} - showing form to edit user", id);
+    public String showEditForm(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes,
+                               HttpServletRequest request, HttpServletResponse response) {
+        log.debug("GET /users/edit/{} - showing form to edit user", id);
         try {
+            long version = userService.getUserVersion(id);
+            if (viewEtags.checkNotModified(viewEtags.userTag(id, version), request, response)) {
+                return null;
+            }
             UserResponseDto userResponse = userService.getUserById(id);
             UserRequestDto userRequest = new UserRequestDto();
             userRequest.setId(userResponse.getId());
             userRequest.setName(userResponse.getName());
             userRequest.setEmail(userResponse.getEmail());
+            userRequest.setVersion(userResponse.getVersion());
             model.addAttribute("userRequest", userRequest);
             return "users/form";
         } catch (UserNotFoundException e) {
@@ -107,7 +149,7 @@ public class UserController {
         }
         try {
             userService.updateUser(id, userRequest);
-            log.info("POST /users/update/{} - successfully updated user", id);
+            log.debug("POST /users/update/{} - successfully updated user", id);
             redirectAttributes.addFlashAttribute("successMessage", "User updated successfully!");
         } catch (UserNotFoundException e) {
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
@@ -125,7 +167,7 @@ public class UserController {
     public String deleteUser(@PathVariable Long id, RedirectAttributes redirectAttributes) {
         try {
             userService.deleteUser(id);
-            log.info("GET /users/delete/{} - successfully deleted user", id);
+            log.debug("GET /users/delete/{} - successfully deleted user", id);
             redirectAttributes.addFlashAttribute("successMessage", "User successfully deleted.");
         } catch (UserNotFoundException e) {
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
@@ -0,0 +1,56 @@
+package web.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import web.service.DataFormat;
+import web.service.UserExportService;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * REST‑контроллер потоковой выгрузки пользователей.
+ * <p>
+ * Ответ пишется по мере чтения строк из БД ({@link StreamingResponseBody}),
+ * поэтому размер таблицы не влияет на потребление памяти.
+ */
+@RestController
+@RequestMapping("/users/export")
+@RequiredArgsConstructor
+@Slf4j
+public class UserExportController {
+
+    private final UserExportService userExportService;
+
+    /** Таймаут асинхронного ответа выгрузки; у остальных async-запросов остаётся общий. */
+    @Value("${users.export.timeout:30m}")
+    private Duration exportTimeout;
+
+    /**
+     * Выгрузить всех пользователей: {@code format=csv} (по умолчанию) или {@code format=ndjson}.
+     * Неизвестный формат — 400 ({@link web.exception.ApiExceptionHandler}).
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "csv") String format, HttpServletRequest request) {
+        DataFormat dataFormat = DataFormat.parse(format);
+        log.info("GET /users/export - streaming users as {}", dataFormat);
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+        String fileName = "users." + dataFormat.name().toLowerCase(Locale.ROOT);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(dataFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(out -> userExportService.exportUsers(out, dataFormat));
+    }
+}
@@ -0,0 +1,61 @@
+package web.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import web.dto.ImportReportDto;
+import web.service.DataFormat;
+import web.service.UserImportService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * REST‑контроллер массового импорта пользователей.
+ * <p>
+ * Тело запроса читается потоком прямо из сокета и не буферизуется целиком:
+ * {@code text/csv} — CSV с колонками {@code name,email},
+ * {@code application/x-ndjson} — JSON Lines. В ответ возвращается отчёт по строкам.
+ */
+@RestController
+@RequestMapping("/users/import")
+@RequiredArgsConstructor
+@Slf4j
+public class UserImportController {
+
+    private final UserImportService userImportService;
+
+    /**
+     * Импорт из CSV.
+     */
+    @PostMapping(consumes = "text/csv")
+    public ImportReportDto importCsv(HttpServletRequest request) throws IOException {
+        log.info("POST /users/import - CSV import started");
+        return userImportService.importUsers(bodyReader(request), DataFormat.CSV);
+    }
+
+    /**
+     * Импорт из JSON Lines.
+     */
+    @PostMapping(consumes = {"application/x-ndjson", "application/jsonl"})
+    public ImportReportDto importNdjson(HttpServletRequest request) throws IOException {
+        log.info("POST /users/import - NDJSON import started");
+        return userImportService.importUsers(bodyReader(request), DataFormat.NDJSON);
+    }
+
+    /**
+     * Reader тела запроса; если клиент не указал кодировку — UTF‑8, а не ISO‑8859‑1 по умолчанию сервлета.
+     */
+    private static BufferedReader bodyReader(HttpServletRequest request) throws IOException {
+        Charset charset = request.getCharacterEncoding() != null
+                ? Charset.forName(request.getCharacterEncoding())
+                : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(request.getInputStream(), charset));
+    }
+}
@@ -0,0 +1,60 @@
+package web.datasource;
+
+import ru.kata.common.datasource.PrimaryReads;
+
+/**
+ * Состояние маршрутизации чтений текущего потока для {@link ReadWriteRoutingDataSource}.
+ * <p>
+ * Read‑only транзакция уходит на primary, а не на реплику, если поток «привязан» к primary:
+ * внутри {@link PrimaryReads#onPrimary} или в HTTP‑запросе клиента, который недавно писал сам
+ * ({@link ReadYourWritesFilter}). Без настроенной реплики методы ничего не меняют.
+ */
+final class ReadRouting {
+
+    private static final ThreadLocal<Request> REQUEST = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    static boolean isPinnedToPrimary() {
+        if (PrimaryReads.isPinned()) {
+            return true;
+        }
+        Request request = REQUEST.get();
+        return request != null && request.sticky;
+    }
+
+    /**
+     * Поток начал пишущую транзакцию: остаток запроса читает с primary,
+     * а клиент получает отметку о записи (один раз за запрос).
+     */
+    static void writeStarted() {
+        Request request = REQUEST.get();
+        if (request != null && !request.wrote) {
+            request.wrote = true;
+            request.sticky = true;
+            request.onFirstWrite.run();
+        }
+    }
+
+    static void openRequest(boolean sticky, Runnable onFirstWrite) {
+        Request request = new Request(onFirstWrite);
+        request.sticky = sticky;
+        REQUEST.set(request);
+    }
+
+    static void closeRequest() {
+        REQUEST.remove();
+    }
+
+    private static final class Request {
+
+        private final Runnable onFirstWrite;
+        private boolean sticky;
+        private boolean wrote;
+
+        private Request(Runnable onFirstWrite) {
+            this.onFirstWrite = onFirstWrite;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package web.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Разделение чтения и записи между primary ({@code spring.datasource.*}) и репликой
+ * ({@code datasource.replica.*}). Включается, только если задан {@code datasource.replica.url};
+ * без него приложение работает с одним пулом, как раньше.
+ * <p>
+ * Основной {@link DataSource} приложения (JPA, {@code JdbcTemplate}) — {@link ReadWriteRoutingDataSource}
+ * за {@link LazyConnectionDataSourceProxy}; пулы {@code primary} и {@code replica} — отдельные бины,
+ * поэтому у каждого свои метрики Hikari и проверка здоровья.
+ * <p>
+ * Требует {@code spring.jpa.open-in-view=false}: пул выбирается на первом запросе соединения,
+ * а open‑in‑view держит одно соединение весь HTTP‑запрос — запись после read‑only чтения
+ * ушла бы на реплику. С включённым open‑in‑view приложение не стартует.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.url")
+public class ReadWriteDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${datasource.replica.url}") String url,
+                                              @Value("${datasource.replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${datasource.replica.password:${spring.datasource.password:}}") String password,
+                                              @Value("${datasource.replica.maximum-pool-size:10}") int maximumPoolSize) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primary,
+                                               @Qualifier("replicaDataSource") DataSource replica,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${datasource.replica.heartbeat-interval:500ms}") Duration heartbeatInterval,
+                                               @Value("${datasource.replica.max-lag:2s}") Duration maxLag) {
+        return new ReplicaLagMonitor(primary, replica, meterRegistry, heartbeatInterval, maxLag);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor replicaLagMonitor, MeterRegistry meterRegistry,
+                                 @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (openInView) {
+            throw new IllegalStateException("datasource.replica.url requires spring.jpa.open-in-view=false");
+        }
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, replicaLagMonitor, meterRegistry));
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${datasource.replica.sticky-window:5s}") Duration stickyWindow) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(stickyWindow));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,90 @@
+package web.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Выбор пула по текущей транзакции: read‑only — на реплику, всё остальное — на primary.
+ * <p>
+ * Работает только за {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * JPA берёт соединение в начале транзакции, а признак read‑only выставляется позже —
+ * прокси откладывает выбор пула до первого запроса.
+ * <p>
+ * Read‑only транзакция всё равно идёт на primary, если:
+ * <ul>
+ *     <li>её открыл сам Spring Data (CRUD‑методы репозиториев по умолчанию — {@code readOnly = true}):
+ *     так читают и фоновые компоненты — outbox, журнал сброса кэшей, фильтр занятых email, —
+ *     которым отставание реплики недопустимо; на реплику идут только read‑only транзакции сервисов.
+ *     Запросы вне транзакции тоже идут на primary;</li>
+ *     <li>поток привязан к primary ({@link ReadRouting});</li>
+ *     <li>реплика отстаёт больше допустимого или недоступна ({@link ReplicaLagMonitor}).</li>
+ * </ul>
+ * Решения публикуются счётчиком {@code datasource.routing{target, reason}}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /** Имена транзакций по умолчанию у репозиториев Spring Data. */
+    private static final String SPRING_DATA_TRANSACTION = "org.springframework.data.";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Counter readWrite;
+    private final Counter repository;
+    private final Counter pinned;
+    private final Counter lagging;
+    private final Counter replica;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                      MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+        this.readWrite = decisions(meterRegistry, Target.PRIMARY, "read-write");
+        this.repository = decisions(meterRegistry, Target.PRIMARY, "repository");
+        this.pinned = decisions(meterRegistry, Target.PRIMARY, "pinned");
+        this.lagging = decisions(meterRegistry, Target.PRIMARY, "replica-lag");
+        this.replica = decisions(meterRegistry, Target.REPLICA, "read-only");
+    }
+
+    private static Counter decisions(MeterRegistry registry, Target target, String reason) {
+        return registry.counter("datasource.routing", "target", target.name().toLowerCase(Locale.ROOT), "reason", reason);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Target.PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            ReadRouting.writeStarted();
+            readWrite.increment();
+            return Target.PRIMARY;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (name != null && name.startsWith(SPRING_DATA_TRANSACTION)) {
+            repository.increment();
+            return Target.PRIMARY;
+        }
+        if (ReadRouting.isPinnedToPrimary()) {
+            pinned.increment();
+            return Target.PRIMARY;
+        }
+        if (!lagMonitor.isReplicaUsable()) {
+            lagging.increment();
+            return Target.PRIMARY;
+        }
+        replica.increment();
+        return Target.REPLICA;
+    }
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+}
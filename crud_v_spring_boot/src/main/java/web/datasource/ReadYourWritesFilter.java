@@ -0,0 +1,72 @@
+package web.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Read‑your‑writes: клиент, который только что писал, какое‑то время читает с primary.
+ * <p>
+ * Первая пишущая транзакция запроса ставит cookie {@value #COOKIE} со временем окончания окна
+ * ({@code datasource.replica.sticky-window}); пока оно не истекло, read‑only транзакции запросов
+ * этого клиента идут на primary. Отметка хранится у клиента, а не в памяти узла, поэтому
+ * действует, на какой бы узел балансировщик ни отправил следующий запрос.
+ * Не бин: регистрируется в {@link ReadWriteDataSourceConfig}.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "primary-reads-until";
+
+    private final long windowMillis;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean sticky = stickyUntil(request) > System.currentTimeMillis();
+        ReadRouting.openRequest(sticky, () -> markWrite(request, response));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRouting.closeRequest();
+        }
+    }
+
+    private static long stickyUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private void markWrite(HttpServletRequest request, HttpServletResponse response) {
+        if (response.isCommitted()) {
+            return;
+        }
+        Cookie cookie = new Cookie(COOKIE, Long.toString(System.currentTimeMillis() + windowMillis));
+        String contextPath = request.getContextPath();
+        cookie.setPath(contextPath.isEmpty() ? "/" : contextPath);
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+        response.addCookie(cookie);
+    }
+}
@@ -0,0 +1,36 @@
+package web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Отчёт о массовом импорте пользователей.
+ * <p>
+ * Список ошибок ограничен сверху, чтобы отчёт по «плохому» файлу не рос
+ * вместе с файлом; общее число ошибок всегда есть в {@code failed}.
+ */
+@Data
+@NoArgsConstructor
+public class ImportReportDto {
+
+    private long total;
+    private long imported;
+    private long failed;
+    private boolean errorsTruncated;
+    private List<RowError> errors = new ArrayList<>();
+
+    /**
+     * Ошибка конкретной строки входного файла (нумерация с 1).
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
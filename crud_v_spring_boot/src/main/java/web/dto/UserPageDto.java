@@ -0,0 +1,25 @@
+package web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Одна страница списка пользователей при keyset‑пагинации.
+ * <p>
+ * {@code nextCursor} — непрозрачный токен для запроса следующей страницы,
+ * {@code null}, если страница последняя.
+ */
+@Data
+@AllArgsConstructor
+public class UserPageDto {
+
+    private List<UserResponseDto> users;
+    private int size;
+    private String nextCursor;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -21,4 +21,7 @@ public class UserRequestDto {
     @Email(message = "Неверный формат email")
     @NotBlank(message = "Email не должен быть пустым")
     private String email;
+
+    /** Версия строки, с которой открыта форма редактирования (см. {@link web.model.User#getVersion()}). */
+    private Long version;
 }
\ No newline at end of file
@@ -1,15 +1,22 @@
 package web.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * DTO для отображения информации о пользователе.
  * Используется для передачи данных из бэкенда в представление (view).
+ * <p>
+ * Конструктор со всеми полями используется JPQL‑проекцией {@code select new ...}.
  */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class UserResponseDto {
 
     private Long id;
     private String name;
     private String email;
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Найденный пользователь в ответе type‑ahead поиска {@code /api/v1/users/search}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSuggestionDto {
+
+    private Long id;
+    private String name;
+    private String email;
+}
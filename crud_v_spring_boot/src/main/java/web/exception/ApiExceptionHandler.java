@@ -0,0 +1,48 @@
+package web.exception;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import web.controller.UserApiController;
+import web.controller.UserExportController;
+
+/**
+ * Обработчик исключений JSON API.
+ * <p>
+ * В отличие от {@link GlobalExceptionHandler} не делает редиректов на страницы,
+ * а отвечает {@link ProblemDetail} с HTTP‑статусом. Срабатывает раньше глобального
+ * обработчика и только для {@link UserApiController} и {@link UserExportController}.
+ */
+@RestControllerAdvice(assignableTypes = {UserApiController.class, UserExportController.class})
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(UserNotFoundException.class)
+    public ProblemDetail handleUserNotFound(UserNotFoundException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    /**
+     * Неизвестное поле в {@code fields} или формат выгрузки, пустой или слишком длинный список id, нечитаемые параметры.
+     */
+    @ExceptionHandler({IllegalArgumentException.class, MethodArgumentTypeMismatchException.class,
+            MissingServletRequestParameterException.class, HttpMessageNotReadableException.class})
+    public ProblemDetail handleBadRequest(Exception ex) {
+        log.warn("API bad request: {}", ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ProblemDetail handleGenericException(Exception ex) {
+        log.error("Unhandled API exception", ex);
+        return ProblemDetail.forStatus(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -1,6 +1,7 @@
 package web.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -28,6 +29,29 @@ public class GlobalExceptionHandler {
         return "redirect:/users";
     }
 
+    /**
+     * Обрабатывает исключение {@link InvalidCursorException}.
+     * Повреждённый курсор пагинации — возвращаем пользователя на первую страницу списка.
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public String handleInvalidCursor(InvalidCursorException ex, RedirectAttributes redirectAttributes) {
+        log.warn("Handled InvalidCursorException: {}", ex.getMessage());
+        redirectAttributes.addFlashAttribute("errorMessage", "Некорректная ссылка на страницу списка.");
+        return "redirect:/users";
+    }
+
+    /**
+     * Обрабатывает конфликт оптимистической блокировки: пользователя изменили
+     * после того, как была открыта форма редактирования.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public String handleOptimisticLock(OptimisticLockingFailureException ex, RedirectAttributes redirectAttributes) {
+        log.warn("Handled OptimisticLockingFailureException: {}", ex.getMessage());
+        redirectAttributes.addFlashAttribute("errorMessage",
+                "Пользователь был изменён в другом окне. Откройте форму заново и повторите правку.");
+        return "redirect:/users";
+    }
+
     @ExceptionHandler(Exception.class)
     public String handleGenericException(Exception ex, Model model) {
         log.error("Unhandled exception", ex);
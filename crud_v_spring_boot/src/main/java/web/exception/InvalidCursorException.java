@@ -0,0 +1,11 @@
+package web.exception;
+
+/**
+ * Исключение выбрасывается, если токен курсора пагинации повреждён или подделан.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid page cursor: " + cursor);
+    }
+}
@@ -0,0 +1,17 @@
+package web.exception;
+
+import lombok.Getter;
+
+/**
+ * Исключение выбрасывается, если уникальное поле пользователя (email) уже занято.
+ */
+@Getter
+public class UserAlreadyExistsException extends RuntimeException {
+
+    private final String field;
+
+    public UserAlreadyExistsException(String field, String value) {
+        super("User with " + field + " = " + value + " already exists");
+        this.field = field;
+    }
+}
@@ -0,0 +1,69 @@
+package web.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logback TurboFilter, пропускающий только каждую N‑ю (в среднем) запись
+ * уровня {@code level} и ниже от заданных логгеров.
+ * <p>
+ * Нужен для профиля {@code prod}: построчные debug‑сообщения контроллера и сервиса
+ * остаются включёнными, но в лог попадает лишь выборка, а записи WARN/ERROR
+ * не трогаются никогда. Фильтр вызывается на каждый вызов логгера ещё до проверки
+ * уровня, поэтому проверки в нём дешёвые и без блокировок.
+ * <pre>
+ * &lt;turboFilter class="web.logging.DebugSamplingTurboFilter"&gt;
+ *     &lt;logger&gt;web.controller.UserController&lt;/logger&gt;
+ *     &lt;rate&gt;100&lt;/rate&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class DebugSamplingTurboFilter extends TurboFilter {
+
+    private final List<String> loggers = new ArrayList<>();
+    private Level level = Level.DEBUG;
+    private int rate = 100;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level eventLevel,
+                              String format, Object[] params, Throwable t) {
+        if (!isStarted() || eventLevel == null || eventLevel.toInt() > level.toInt() || rate <= 1) {
+            return FilterReply.NEUTRAL;
+        }
+        if (!matches(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextInt(rate) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean matches(String name) {
+        for (String prefix : loggers) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Добавить логгер (или префикс пакета), к которому применяется выборка. */
+    public void addLogger(String logger) {
+        loggers.add(logger.trim());
+    }
+
+    /** Максимальный уровень, записи которого участвуют в выборке (по умолчанию DEBUG). */
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.DEBUG);
+    }
+
+    /** Пропускать в среднем одну запись из {@code rate}. */
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+}
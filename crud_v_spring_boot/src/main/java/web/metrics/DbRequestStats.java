@@ -0,0 +1,74 @@
+package web.metrics;
+
+/**
+ * Счётчики работы с БД в рамках одного HTTP‑запроса.
+ * <p>
+ * Хранятся в {@link ThreadLocal}: запрос открывается в {@link DbMetricsInterceptor},
+ * а заполняется слушателями Hibernate, которые вызываются в том же потоке.
+ * Вне запроса (фоновые задачи, старт приложения) вызовы {@code on*} ничего не делают.
+ */
+public final class DbRequestStats {
+
+    private static final ThreadLocal<DbRequestStats> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+    private long entitiesLoaded;
+    private long connectionAcquireNanos;
+    private long acquireStartedAt;
+
+    private DbRequestStats() {
+    }
+
+    /** Начать сбор счётчиков для текущего потока. */
+    static void begin() {
+        CURRENT.set(new DbRequestStats());
+    }
+
+    /** Завершить сбор и вернуть накопленные значения (или {@code null}, если сбор не начинался). */
+    static DbRequestStats end() {
+        DbRequestStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    static void onStatementPrepared() {
+        DbRequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+        }
+    }
+
+    static void onEntityLoaded() {
+        DbRequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.entitiesLoaded++;
+        }
+    }
+
+    static void onConnectionAcquireStart() {
+        DbRequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.acquireStartedAt = System.nanoTime();
+        }
+    }
+
+    static void onConnectionAcquireEnd() {
+        DbRequestStats stats = CURRENT.get();
+        if (stats != null && stats.acquireStartedAt != 0) {
+            stats.connectionAcquireNanos += System.nanoTime() - stats.acquireStartedAt;
+            stats.acquireStartedAt = 0;
+        }
+    }
+
+    long getStatements() {
+        return statements;
+    }
+
+    long getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    long getConnectionAcquireNanos() {
+        return connectionAcquireNanos;
+    }
+}
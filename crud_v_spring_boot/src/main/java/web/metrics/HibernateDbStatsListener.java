@@ -0,0 +1,28 @@
+package web.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Слушатель событий сессии Hibernate: считает подготовленные выражения
+ * и время получения соединения из пула для текущего запроса.
+ * <p>
+ * Регистрируется через {@code hibernate.session.events.auto} и создаётся
+ * Hibernate на каждую сессию, поэтому собственного состояния не хранит.
+ */
+public class HibernateDbStatsListener implements SessionEventListener {
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        DbRequestStats.onStatementPrepared();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        DbRequestStats.onConnectionAcquireStart();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        DbRequestStats.onConnectionAcquireEnd();
+    }
+}
@@ -0,0 +1,42 @@
+package web.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import web.coherence.CacheRegion;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала изменений для согласования кэшей между узлами.
+ * Пишется в той же транзакции, что и изменение {@code users}, читается
+ * {@link web.coherence.CacheChangePoller} на каждом узле и удаляется по возрасту.
+ */
+@Entity
+@Table(name = "cache_changes", indexes = @Index(name = "ix_cache_changes_created_at", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Узел, сделавший изменение: свои записи узел пропускает — его кэши уже сброшены после коммита.
+     */
+    @Column(name = "node_id", nullable = false, length = 36)
+    private String nodeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CacheRegion region;
+
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,44 @@
+package web.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import web.outbox.UserChangeType;
+
+import java.time.Instant;
+
+/**
+ * Событие об изменении пользователя, ожидающее доставки (transactional outbox).
+ * Пишется в той же транзакции, что и изменение {@code users}, и удаляется после доставки.
+ */
+@Entity
+@Table(name = "user_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    /**
+     * Порядковый номер события; получатели используют его для отбрасывания повторов.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 32)
+    private UserChangeType type;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * Состояние пользователя после изменения в JSON (для удаления — только id).
+     */
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
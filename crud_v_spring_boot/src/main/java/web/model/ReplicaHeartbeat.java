@@ -0,0 +1,29 @@
+package web.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Отметка времени, которую узлы пишут на primary, а {@link web.datasource.ReplicaLagMonitor}
+ * читает с реплики: разница — отставание репликации. Одна строка с {@code id = 1}.
+ */
+@Entity
+@Table(name = "replica_heartbeat")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicaHeartbeat {
+
+    @Id
+    private Long id;
+
+    @Column(name = "beat_at", nullable = false)
+    private Instant beatAt;
+}
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * JPA-сущность, представляющая пользователя в системе.
@@ -40,4 +41,14 @@ public class User {
     @NotBlank(message = "Email не должен быть пустым")
     @Column(nullable = false, unique = true)
     private String email;
+
+    /**
+     * Версия строки для оптимистической блокировки: Hibernate увеличивает её при каждом
+     * обновлении и проверяет в {@code where}. Значение по умолчанию нужно строкам,
+     * вставленным в обход JPA (массовый импорт).
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 }
@@ -0,0 +1,20 @@
+package web.outbox;
+
+import java.util.List;
+
+/**
+ * Куда {@link OutboxRelay} доставляет события об изменениях пользователей.
+ * <p>
+ * Встроенные реализации выбираются свойством {@code outbox.sink}: {@code in-process}
+ * (события Spring внутри приложения, по умолчанию) и {@code file} (NDJSON‑файл для локальной
+ * проверки). Для брокера сообщений достаточно задать {@code outbox.sink=custom} и объявить
+ * собственный бин этого интерфейса.
+ */
+public interface OutboxSink {
+
+    /**
+     * Доставляет пачку в порядке записи. Исключение означает, что пачка не доставлена:
+     * она будет отправлена целиком повторно, поэтому получатель должен переносить повторы.
+     */
+    void deliver(List<UserChangeEvent> events) throws Exception;
+}
@@ -0,0 +1,15 @@
+package web.outbox;
+
+import java.time.Instant;
+
+/**
+ * Событие об изменении пользователя в том виде, в котором его получает {@link OutboxSink}.
+ *
+ * @param id         порядковый номер события; доставка «хотя бы один раз», повтор узнаётся по id
+ * @param type       вид изменения
+ * @param userId     id пользователя
+ * @param occurredAt момент записи события (в транзакции изменения)
+ * @param payload    состояние пользователя после изменения, JSON
+ */
+public record UserChangeEvent(long id, UserChangeType type, long userId, Instant occurredAt, String payload) {
+}
@@ -0,0 +1,10 @@
+package web.outbox;
+
+/**
+ * Вид изменения пользователя в событии outbox.
+ */
+public enum UserChangeType {
+    USER_CREATED,
+    USER_UPDATED,
+    USER_DELETED
+}
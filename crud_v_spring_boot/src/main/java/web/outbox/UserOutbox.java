@@ -0,0 +1,99 @@
+package web.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.kata.common.tx.AfterCommit;
+import web.dto.UserResponseDto;
+import web.model.OutboxEvent;
+import web.repository.OutboxEventRepository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Запись событий об изменениях пользователей в {@code user_outbox}.
+ * <p>
+ * Методы требуют активной транзакции: событие фиксируется атомарно вместе с изменением
+ * {@code users} — либо есть и то и другое, либо ничего. После коммита {@link OutboxRelay}
+ * будится, чтобы доставить событие без ожидания очередного опроса. Изменения одного
+ * пользователя сериализуются блокировкой его строки, поэтому их события получают
+ * возрастающие id в порядке коммитов.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserOutbox {
+
+    private static final String SELECT_BY_EMAILS_SQL =
+            "select id, name, email, version from users where email in (:emails)";
+    private static final String INSERT_SQL =
+            "insert into user_outbox (event_type, user_id, payload, created_at) values (?, ?, ?, ?)";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxRelay relay;
+
+    /**
+     * Событие о созданном или изменённом пользователе с его состоянием после изменения.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void userChanged(UserChangeType type, UserResponseDto user) {
+        append(type, user.getId(), user);
+    }
+
+    /**
+     * Событие об удалённом пользователе.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void userDeleted(Long id) {
+        append(UserChangeType.USER_DELETED, id, Map.of("id", id));
+    }
+
+    /**
+     * События о пользователях, вставленных в обход JPA (массовый импорт): строки дочитываются
+     * по email и записываются в outbox одним batch‑запросом в той же транзакции.
+     *
+     * @return дочитанные строки — с id, которые выдала БД
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<UserResponseDto> usersImported(Collection<String> emails) {
+        List<UserResponseDto> users = new NamedParameterJdbcTemplate(jdbcTemplate).query(
+                SELECT_BY_EMAILS_SQL, Map.of("emails", emails), (rs, rowNum) ->
+                        new UserResponseDto(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4)));
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, users, users.size(), (ps, user) -> {
+            ps.setString(1, UserChangeType.USER_CREATED.name());
+            ps.setLong(2, user.getId());
+            ps.setString(3, toJson(user));
+            ps.setTimestamp(4, now);
+        });
+        wakeRelayAfterCommit();
+        return users;
+    }
+
+    private void append(UserChangeType type, Long userId, Object payload) {
+        outboxEventRepository.save(new OutboxEvent(null, type, userId, toJson(payload), Instant.now()));
+        wakeRelayAfterCommit();
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload", e);
+        }
+    }
+
+    private void wakeRelayAfterCommit() {
+        AfterCommit.run(relay::wakeUp);
+    }
+}
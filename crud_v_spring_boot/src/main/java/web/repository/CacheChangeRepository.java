@@ -0,0 +1,43 @@
+package web.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import web.model.CacheChange;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий таблицы {@code cache_changes}.
+ */
+@Repository
+public interface CacheChangeRepository extends JpaRepository<CacheChange, Long> {
+
+    /**
+     * Следующая пачка изменений после уже прочитанного id.
+     */
+    List<CacheChange> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Изменения с указанными id — пропуски, закоммиченные позже записей с большими id.
+     */
+    List<CacheChange> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Наибольший id среди записей старше {@code before}; {@code null}, если таких нет.
+     */
+    @Query("select max(c.id) from CacheChange c where c.createdAt < :before")
+    Long findMaxIdCreatedBefore(@Param("before") Instant before);
+
+    /**
+     * Удаляет записи старше {@code before} одним {@code delete}.
+     */
+    @Modifying
+    @Query("delete from CacheChange c where c.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
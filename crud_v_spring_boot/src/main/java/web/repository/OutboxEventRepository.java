@@ -0,0 +1,31 @@
+package web.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import web.model.OutboxEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий таблицы {@code user_outbox}.
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Следующая пачка недоставленных событий в порядке записи.
+     */
+    List<OutboxEvent> findAllByOrderByIdAsc(Limit limit);
+
+    /**
+     * Удаляет доставленные события одним {@code delete}.
+     */
+    @Modifying
+    @Query("delete from OutboxEvent e where e.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -1,9 +1,17 @@
 package web.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import web.dto.UserResponseDto;
 import web.model.User;
 
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Репозиторий для CRUD‑операций над сущностью {@link User}.
  * <p>
@@ -13,4 +21,47 @@ import web.model.User;
  */
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Keyset‑выборка страницы пользователей: все строки с id строго больше {@code afterId},
+     * отсортированные по id. Результат читается сразу в {@link UserResponseDto},
+     * без создания управляемых сущностей в persistence context.
+     *
+     * @param afterId id последней строки предыдущей страницы (0 — с начала таблицы)
+     * @param limit   максимальное количество строк
+     */
+    @Query("select new web.dto.UserResponseDto(u.id, u.name, u.email, u.version) " +
+            "from User u where u.id > :afterId order by u.id asc")
+    List<UserResponseDto> findPageAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Занят ли email: подтверждение положительного ответа фильтра в {@link web.service.UserAvailabilityService}.
+     */
+    boolean existsByEmail(String email);
+
+    /**
+     * Только версия строки — для ETag формы редактирования без загрузки сущности.
+     */
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Обновление имени и email одним запросом с проверкой версии строки.
+     *
+     * @return число обновлённых строк: 0 — пользователя нет или версия устарела
+     */
+    @Modifying
+    @Query("update User u set u.name = :name, u.email = :email, u.version = u.version + 1 " +
+            "where u.id = :id and u.version = :version")
+    int updateIfVersion(@Param("id") Long id, @Param("version") Long version,
+                        @Param("name") String name, @Param("email") String email);
+
+    /**
+     * Удаление одним запросом, без {@code existsById} и загрузки сущности.
+     *
+     * @return число удалённых строк: 0 — пользователя не было
+     */
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(@Param("id") Long id);
+}
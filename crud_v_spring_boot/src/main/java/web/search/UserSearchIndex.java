@@ -0,0 +1,146 @@
+package web.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.kata.common.search.TrigramIndex;
+import ru.kata.common.tx.AfterCommit;
+import web.dto.UserSuggestionDto;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Поисковый индекс пользователей в памяти по {@code name} и {@code email} для type‑ahead.
+ * <p>
+ * Строится при старте одним проходом JDBC‑курсора по {@code users} и дальше ведётся
+ * инкрементально: сервисы записи вызывают {@link #indexAfterCommit} / {@link #removeAfterCommit}.
+ * Поиск не обращается к БД; до окончания первой сборки он возвращает пустой список.
+ * <p>
+ * Пока идёт пересборка, изменения пишутся и в текущий, и в строящийся индекс, а id
+ * изменённых пользователей запоминаются: строка из курсора (снимок на момент начала
+ * прохода) не перезаписывает более позднее изменение. Латентность поиска публикуется
+ * таймером {@code users.search}, размер индекса — {@code users.search.index.size}.
+ */
+@Slf4j
+@Component
+public class UserSearchIndex {
+
+    private static final String SELECT_SQL = "select id, name, email from users";
+    private static final String SELECT_BY_EMAILS_SQL = "select id, name, email from users where email in (:emails)";
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final int maxResults;
+    private final Timer searchTimer;
+
+    private volatile TrigramIndex<UserSuggestionDto> index = new TrigramIndex<>();
+    private volatile TrigramIndex<UserSuggestionDto> building;
+    private final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+    private final Object buildLock = new Object();
+
+    public UserSearchIndex(DataSource dataSource, MeterRegistry meterRegistry,
+                           @Value("${users.export.fetch-size:1000}") int fetchSize,
+                           @Value("${users.search.max-results:20}") int maxResults) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource));
+        this.maxResults = maxResults;
+        this.searchTimer = meterRegistry.timer("users.search");
+        Gauge.builder("users.search.index.size", this, search -> search.index.size()).register(meterRegistry);
+    }
+
+    /**
+     * До {@code limit} пользователей, у которых имя или email содержат {@code query}
+     * (без учёта регистра); лучшие совпадения — первыми.
+     *
+     * @param limit запрошенное число результатов; ограничивается {@code users.search.max-results}
+     */
+    public List<UserSuggestionDto> search(String query, Integer limit) {
+        int k = limit == null ? maxResults : Math.min(Math.max(limit, 1), maxResults);
+        return searchTimer.record(() -> index.search(query, k));
+    }
+
+    /** Пользователь создан или изменён текущей транзакцией: попадёт в индекс после коммита. */
+    public void indexAfterCommit(Long id, String name, String email) {
+        UserSuggestionDto user = new UserSuggestionDto(id, name, email);
+        AfterCommit.run(() -> apply(id, target -> target.put(id, user, name, email)));
+    }
+
+    /** Пользователь удалён текущей транзакцией: уйдёт из индекса после коммита. */
+    public void removeAfterCommit(Long id) {
+        AfterCommit.run(() -> apply(id, target -> target.remove(id)));
+    }
+
+    /**
+     * Дочитывает из БД и индексирует пользователей с указанными email — для строк,
+     * вставленных в обход JPA (массовый импорт не знает сгенерированных id).
+     * Вызывается после коммита вставки.
+     */
+    public void indexByEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        namedJdbcTemplate.query(SELECT_BY_EMAILS_SQL, Map.of("emails", emails), (RowCallbackHandler) rs -> {
+            UserSuggestionDto user = toSuggestion(rs);
+            apply(user.getId(), target -> target.put(user.getId(), user, user.getName(), user.getEmail()));
+        });
+    }
+
+    /** Полная сборка индекса из таблицы {@code users}; при старте — до готовности приложения. */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        TrigramIndex<UserSuggestionDto> next = new TrigramIndex<>();
+        changedDuringBuild.clear();
+        building = next;
+        try {
+            cursorJdbcTemplate.query(SELECT_SQL, (RowCallbackHandler) rs -> {
+                UserSuggestionDto user = toSuggestion(rs);
+                synchronized (buildLock) {
+                    if (!changedDuringBuild.contains(user.getId())) {
+                        next.put(user.getId(), user, user.getName(), user.getEmail());
+                    }
+                }
+            });
+            index = next;
+        } finally {
+            building = null;
+        }
+        log.info("User search index built: {} users", next.size());
+    }
+
+    /**
+     * Применяет изменение к строящемуся (если он есть) и к текущему индексу.
+     * {@code building} читается раньше {@code index}: если пересборка уже закончилась,
+     * изменение попадёт в новый индекс.
+     */
+    private void apply(Long id, Consumer<TrigramIndex<UserSuggestionDto>> change) {
+        TrigramIndex<UserSuggestionDto> next = building;
+        if (next != null) {
+            synchronized (buildLock) {
+                changedDuringBuild.add(id);
+                change.accept(next);
+            }
+        }
+        change.accept(index);
+    }
+
+    private static UserSuggestionDto toSuggestion(ResultSet rs) throws SQLException {
+        return new UserSuggestionDto(rs.getLong(1), rs.getString(2), rs.getString(3));
+    }
+}
@@ -0,0 +1,37 @@
+package web.service;
+
+/**
+ * Построчные форматы обмена пользователями (импорт и экспорт).
+ */
+public enum DataFormat {
+
+    /** CSV с колонками {@code name,email} (при экспорте — ещё {@code id} первой колонкой). */
+    CSV("text/csv"),
+
+    /** JSON Lines: один объект {@code {"name": ..., "email": ...}} на строку. */
+    NDJSON("application/x-ndjson");
+
+    private final String contentType;
+
+    DataFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Формат по имени из параметра запроса, без учёта регистра.
+     *
+     * @throws IllegalArgumentException если формат неизвестен (в API — ответ 400)
+     */
+    public static DataFormat parse(String name) {
+        for (DataFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown format: " + name + ", expected csv or ndjson");
+    }
+}
@@ -0,0 +1,27 @@
+package web.service;
+
+/**
+ * Проверка, свободен ли email, без обращения к БД в типичном случае.
+ * <p>
+ * Занятые email хранятся в фильтре Блума в памяти: отрицательный ответ фильтра
+ * окончателен, положительный подтверждается запросом в БД. Сервисы записи сообщают
+ * об изменениях через {@code register*}; фильтр обновляется после коммита.
+ */
+public interface UserAvailabilityService {
+
+    /**
+     * Свободен ли email.
+     */
+    boolean isEmailAvailable(String email);
+
+    /**
+     * Email занят текущей транзакцией: попадёт в фильтр после её коммита.
+     */
+    void registerEmail(String email);
+
+    /**
+     * Текущая транзакция удалила или изменила пользователя: его прежний email остаётся
+     * в фильтре лишней записью. Когда таких записей много, фильтр перестраивается.
+     */
+    void registerRemoval();
+}
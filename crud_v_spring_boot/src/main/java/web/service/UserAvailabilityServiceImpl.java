@@ -0,0 +1,163 @@
+package web.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import ru.kata.common.bloom.BloomFilter;
+import ru.kata.common.tx.AfterCommit;
+import web.repository.UserRepository;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Реализация {@link UserAvailabilityService} на {@link BloomFilter}.
+ * <p>
+ * Фильтр строится при старте одним проходом JDBC‑курсора по {@code users.email}
+ * и перестраивается в фоне, когда добавлений больше расчётной ёмкости или лишних
+ * (удалённых) записей больше половины. До первой сборки каждая проверка идёт в БД.
+ * Email сравниваются без учёта регистра, как в уникальном индексе MySQL.
+ * <p>
+ * Во время перестройки новые email пишутся и в старый, и в строящийся фильтр;
+ * {@code building} читается раньше {@code emails}, поэтому добавление после коммита
+ * не теряется при подмене фильтра. Результаты проверок публикуются счётчиком
+ * {@code users.availability.checks}.
+ */
+@Slf4j
+@Service
+public class UserAvailabilityServiceImpl implements UserAvailabilityService {
+
+    private static final String COUNT_SQL = "select count(*) from users";
+    private static final String SELECT_EMAILS_SQL = "select email from users";
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final UserRepository userRepository;
+    private final long expectedSize;
+    private final double fpp;
+
+    private volatile BloomFilter emails;
+    private volatile BloomFilter building;
+    private final AtomicLong removals = new AtomicLong();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final Counter filterNegative;
+    private final Counter confirmedFree;
+    private final Counter confirmedTaken;
+
+    public UserAvailabilityServiceImpl(DataSource dataSource, UserRepository userRepository,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${users.export.fetch-size:1000}") int fetchSize,
+                                       @Value("${users.availability.expected-size:100000}") long expectedSize,
+                                       @Value("${users.availability.fpp:0.01}") double fpp) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.userRepository = userRepository;
+        this.expectedSize = expectedSize;
+        this.fpp = fpp;
+        this.filterNegative = checks(meterRegistry, "filter_negative");
+        this.confirmedFree = checks(meterRegistry, "db_free");
+        this.confirmedTaken = checks(meterRegistry, "db_taken");
+    }
+
+    private static Counter checks(MeterRegistry registry, String result) {
+        return registry.counter("users.availability.checks", "field", "email", "result", result);
+    }
+
+    @Override
+    public boolean isEmailAvailable(String email) {
+        BloomFilter filter = emails;
+        if (filter != null && !filter.mightContain(normalize(email))) {
+            filterNegative.increment();
+            return true;
+        }
+        boolean taken = userRepository.existsByEmail(email.trim());
+        (taken ? confirmedTaken : confirmedFree).increment();
+        return !taken;
+    }
+
+    @Override
+    public void registerEmail(String email) {
+        String key = normalize(email);
+        AfterCommit.run(() -> add(key));
+    }
+
+    @Override
+    public void registerRemoval() {
+        AfterCommit.run(() -> {
+            removals.incrementAndGet();
+            rebuildIfDegraded();
+        });
+    }
+
+    /** Сборка фильтра при старте приложения. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        if (rebuilding.compareAndSet(false, true)) {
+            try {
+                rebuild();
+            } finally {
+                rebuilding.set(false);
+            }
+        }
+    }
+
+    private void add(String key) {
+        BloomFilter next = building;
+        BloomFilter current = emails;
+        if (next != null) {
+            next.put(key);
+        }
+        if (current != null) {
+            current.put(key);
+        }
+        rebuildIfDegraded();
+    }
+
+    private void rebuildIfDegraded() {
+        BloomFilter current = emails;
+        if (current == null) {
+            return;
+        }
+        boolean overfilled = current.insertions() > current.capacity();
+        boolean stale = removals.get() > current.insertions() / 2;
+        if ((overfilled || stale) && rebuilding.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    rebuilding.set(false);
+                }
+            }).exceptionally(e -> {
+                log.warn("Email availability filter rebuild failed", e);
+                return null;
+            });
+        }
+    }
+
+    private void rebuild() {
+        Long rows = cursorJdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+        BloomFilter next = new BloomFilter(Math.max(expectedSize, 2 * (rows == null ? 0 : rows)), fpp);
+        removals.set(0);
+        building = next;
+        try {
+            cursorJdbcTemplate.query(SELECT_EMAILS_SQL, (RowCallbackHandler) rs -> next.put(normalize(rs.getString(1))));
+            emails = next;
+        } finally {
+            building = null;
+        }
+        log.info("Email availability filter built: {} rows, capacity {}", rows, next.capacity());
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,53 @@
+package web.service;
+
+import web.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Кодирование/декодирование курсора keyset‑пагинации.
+ * <p>
+ * Курсор — это base64url от id последней строки страницы. Клиент не должен
+ * разбирать его содержимое, поэтому формат можно менять без изменения API.
+ */
+final class UserCursorCodec {
+
+    private static final String PREFIX = "id:";
+
+    private UserCursorCodec() {
+    }
+
+    /**
+     * Кодирует id последней строки в токен курсора.
+     */
+    static String encode(Long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Декодирует токен курсора в id, после которого начинается страница.
+     * Пустой курсор означает первую страницу.
+     *
+     * @throws InvalidCursorException если токен повреждён
+     */
+    static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) {
+                throw new InvalidCursorException(cursor);
+            }
+            long id = Long.parseLong(raw.substring(PREFIX.length()));
+            if (id < 0) {
+                throw new InvalidCursorException(cursor);
+            }
+            return id;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package web.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Сервис потоковой выгрузки всех пользователей.
+ */
+public interface UserExportService {
+
+    /**
+     * Пишет всех пользователей в {@code out} по мере чтения из БД,
+     * не накапливая строки в памяти.
+     *
+     * @param out    поток ответа
+     * @param format формат выгрузки
+     */
+    void exportUsers(OutputStream out, DataFormat format) throws IOException;
+}
@@ -0,0 +1,120 @@
+package web.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Реализация {@link UserExportService}.
+ * <p>
+ * Читает таблицу {@code users} однонаправленным JDBC‑курсором с заданным fetch size
+ * и сразу пишет каждую строку в поток ответа. Сущности и DTO не создаются, поэтому
+ * потребление памяти не зависит от размера таблицы. Connector/J без {@code useCursorFetch}
+ * читает весь результат в память, поэтому для MySQL у этого запроса fetch size
+ * {@link Integer#MIN_VALUE} - построчная потоковая выдача только для выгрузки, остальные
+ * запросы приложения работают как обычно.
+ */
+@Service
+@Slf4j
+public class UserExportServiceImpl implements UserExportService {
+
+    private static final String SELECT_SQL = "select id, name, email from users order by id";
+    private static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public UserExportServiceImpl(DataSource dataSource, ObjectMapper objectMapper,
+                                 @Value("${spring.datasource.url}") String url,
+                                 @Value("${users.export.fetch-size:1000}") int fetchSize) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(url.startsWith("jdbc:mysql:") ? MYSQL_STREAMING_FETCH_SIZE : fetchSize);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void exportUsers(OutputStream out, DataFormat format) throws IOException {
+        log.debug("Service: streaming users export, format={}", format);
+        try {
+            if (format == DataFormat.NDJSON) {
+                exportNdjson(out);
+            } else {
+                exportCsv(out);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void exportCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,name,email\n");
+        cursorJdbcTemplate.query(SELECT_SQL, (ResultSet rs) -> {
+            try {
+                writer.write(Long.toString(rs.getLong(1)));
+                writer.write(',');
+                writeCsvField(writer, rs.getString(2));
+                writer.write(',');
+                writeCsvField(writer, rs.getString(3));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private void exportNdjson(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        cursorJdbcTemplate.query(SELECT_SQL, (ResultSet rs) -> {
+            try {
+                writeJsonRow(generator, rs);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.flush();
+    }
+
+    private static void writeJsonRow(JsonGenerator generator, ResultSet rs) throws IOException, SQLException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", rs.getLong(1));
+        generator.writeStringField("name", rs.getString(2));
+        generator.writeStringField("email", rs.getString(3));
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * Пишет поле CSV, заключая его в кавычки, если оно содержит разделитель, кавычку или перевод строки.
+     */
+    static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
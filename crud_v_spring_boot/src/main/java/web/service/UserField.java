@@ -0,0 +1,65 @@
+package web.service;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Поля пользователя, доступные для выборки в JSON API ({@code fields=name,email}).
+ * <p>
+ * Каждое поле связано с колонкой таблицы {@code users}: SQL строится только
+ * из этого списка, поэтому из БД читаются лишь запрошенные колонки.
+ * {@link #ID} входит в ответ всегда — по нему клиент сопоставляет результаты.
+ */
+public enum UserField {
+
+    ID("id", "id"),
+    NAME("name", "name"),
+    EMAIL("email", "email");
+
+    private final String jsonName;
+    private final String column;
+
+    UserField(String jsonName, String column) {
+        this.jsonName = jsonName;
+        this.column = column;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Разбирает параметр {@code fields}: список имён через запятую.
+     * Пустой параметр означает все поля.
+     *
+     * @throws IllegalArgumentException если встретилось неизвестное поле
+     */
+    public static Set<UserField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(UserField.class);
+        }
+        Set<UserField> result = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            result.add(byJsonName(trimmed));
+        }
+        return result;
+    }
+
+    private static UserField byJsonName(String name) {
+        for (UserField field : values()) {
+            if (field.jsonName.equals(name) || field.name().equals(name.toUpperCase(Locale.ROOT))) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown user field: " + name);
+    }
+}
@@ -0,0 +1,22 @@
+package web.service;
+
+import web.dto.ImportReportDto;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Сервис массового импорта пользователей из потока CSV или JSON Lines.
+ */
+public interface UserImportService {
+
+    /**
+     * Импортирует пользователей построчно, не загружая весь поток в память.
+     * Строки пишутся пачками, каждая пачка коммитится отдельно.
+     *
+     * @param reader поток входных данных
+     * @param format формат потока
+     * @return отчёт с количеством импортированных строк и ошибками по строкам
+     */
+    ImportReportDto importUsers(Reader reader, DataFormat format) throws IOException;
+}
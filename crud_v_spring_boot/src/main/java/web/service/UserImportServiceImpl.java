@@ -0,0 +1,253 @@
+package web.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.kata.common.audit.AuditAction;
+import ru.kata.common.audit.AuditLog;
+import ru.kata.common.view.RenderedFragmentCache;
+import web.coherence.CacheChangeLog;
+import web.dto.ImportReportDto;
+import web.dto.UserRequestDto;
+import web.dto.UserResponseDto;
+import web.outbox.UserOutbox;
+import web.search.UserSearchIndex;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация {@link UserImportService}.
+ * <p>
+ * Вход читается построчно, поля строки обрезаются по краям, и уже обрезанная строка
+ * валидируется теми же ограничениями, что и форма ({@link UserRequestDto}): в БД попадает
+ * ровно то, что прошло проверку. Корректные строки копятся в пачку и пишутся
+ * одним JDBC batch-запросом в отдельной транзакции — в обход Hibernate, которому
+ * {@code GenerationType.IDENTITY} не даёт группировать вставки. Если пачка падает
+ * (например, дубликат email), она повторяется построчно, чтобы указать виновные строки.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final String INSERT_SQL = "insert into users (name, email) values (?, ?)";
+    private static final String CSV_HEADER = "name,email";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final RenderedFragmentCache fragmentCache;
+    private final UserAvailabilityService availabilityService;
+    private final UserSearchIndex searchIndex;
+    private final UserOutbox outbox;
+    private final CacheChangeLog cacheChangeLog;
+    private final AuditLog auditLog;
+
+    @Value("${users.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${users.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Override
+    public ImportReportDto importUsers(Reader reader, DataFormat format) throws IOException {
+        log.debug("Service: starting bulk import, format={}, batchSize={}", format, batchSize);
+        ImportReportDto report = new ImportReportDto();
+        List<PendingRow> chunk = new ArrayList<>(batchSize);
+
+        BufferedReader in = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+        String line;
+        long lineNo = 0;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank() || (format == DataFormat.CSV && lineNo == 1 && isCsvHeader(line))) {
+                continue;
+            }
+            report.setTotal(report.getTotal() + 1);
+
+            UserRequestDto dto;
+            try {
+                dto = parse(line, format);
+            } catch (JsonProcessingException e) {
+                reject(report, lineNo, "Не удалось разобрать строку: " + e.getOriginalMessage());
+                continue;
+            } catch (IllegalArgumentException e) {
+                reject(report, lineNo, "Не удалось разобрать строку: " + e.getMessage());
+                continue;
+            }
+            trim(dto);
+            Set<ConstraintViolation<UserRequestDto>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                reject(report, lineNo, violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                continue;
+            }
+
+            chunk.add(new PendingRow(lineNo, dto.getName(), dto.getEmail()));
+            if (chunk.size() >= batchSize) {
+                flush(chunk, report);
+                chunk.clear();
+            }
+        }
+        flush(chunk, report);
+
+        log.info("Service: bulk import finished, total={}, imported={}, failed={}",
+                report.getTotal(), report.getImported(), report.getFailed());
+        return report;
+    }
+
+    /**
+     * Пишет пачку одним batch-запросом в собственной транзакции, в ней же — события outbox
+     * о созданных пользователях и записи журнала сброса кэшей других узлов. Событие CREATE
+     * в журнал аудита ставится на каждую вставленную строку и пишется после коммита.
+     * Закоммиченная пачка сразу сбрасывает кэш отрендеренного списка и попадает
+     * в фильтр занятых email (строки, не вставленные из‑за ошибки, тоже — это лишь
+     * лишняя проверка в БД, а не пропуск занятого email). Вставленные строки
+     * дочитываются по email в поисковый индекс: их id известны только БД.
+     */
+    private void flush(List<PendingRow> chunk, ImportReportDto report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        long importedBefore = report.getImported();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), (ps, row) -> {
+                    ps.setString(1, row.name());
+                    ps.setString(2, row.email());
+                });
+                List<String> emails = chunk.stream().map(PendingRow::email).toList();
+                audit(outbox.usersImported(emails));
+                cacheChangeLog.usersImported(emails);
+            });
+            report.setImported(report.getImported() + chunk.size());
+        } catch (DataAccessException e) {
+            log.warn("Service: batch of {} rows failed ({}), retrying row by row",
+                    chunk.size(), e.getMostSpecificCause().getMessage());
+            for (PendingRow row : chunk) {
+                insertSingle(row, report);
+            }
+        }
+        if (report.getImported() > importedBefore) {
+            chunk.forEach(row -> availabilityService.registerEmail(row.email()));
+            searchIndex.indexByEmails(chunk.stream().map(PendingRow::email).toList());
+            fragmentCache.invalidate();
+        }
+    }
+
+    private void insertSingle(PendingRow row, ImportReportDto report) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(INSERT_SQL, row.name(), row.email());
+                audit(outbox.usersImported(List.of(row.email())));
+                cacheChangeLog.usersImported(List.of(row.email()));
+            });
+            report.setImported(report.getImported() + 1);
+        } catch (DuplicateKeyException e) {
+            reject(report, row.line(), "Email уже используется: " + row.email());
+        } catch (DataAccessException e) {
+            reject(report, row.line(), e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private void audit(List<UserResponseDto> imported) {
+        for (UserResponseDto user : imported) {
+            auditLog.record(AuditAction.CREATE, user.getId(), "name=" + user.getName() + ", email=" + user.getEmail());
+        }
+    }
+
+    private void reject(ImportReportDto report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxReportedErrors) {
+            report.getErrors().add(new ImportReportDto.RowError(line, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    private UserRequestDto parse(String line, DataFormat format) throws JsonProcessingException {
+        if (format == DataFormat.NDJSON) {
+            return objectMapper.readValue(line, UserRequestDto.class);
+        }
+        List<String> fields = parseCsvLine(line);
+        if (fields.size() != 2) {
+            throw new IllegalArgumentException("ожидается 2 колонки (" + CSV_HEADER + "), получено " + fields.size());
+        }
+        UserRequestDto dto = new UserRequestDto();
+        dto.setName(fields.get(0));
+        dto.setEmail(fields.get(1));
+        return dto;
+    }
+
+    private static void trim(UserRequestDto dto) {
+        if (dto.getName() != null) {
+            dto.setName(dto.getName().trim());
+        }
+        if (dto.getEmail() != null) {
+            dto.setEmail(dto.getEmail().trim());
+        }
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.replace(" ", "").replace("\"", "").equalsIgnoreCase(CSV_HEADER);
+    }
+
+    /**
+     * Разбирает одну строку CSV (RFC 4180 без многострочных полей):
+     * запятая — разделитель, поля могут быть в кавычках, {@code ""} внутри — экранированная кавычка.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("незакрытая кавычка");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    /**
+     * Провалидированная строка, ожидающая записи в пачке.
+     */
+    private record PendingRow(long line, String name, String email) {
+    }
+}
@@ -0,0 +1,46 @@
+package web.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сервис чтения пользователей для JSON API.
+ * <p>
+ * Читает только запрошенные колонки и пишет результат потоковым
+ * Jackson‑генератором, минуя сущности и DTO.
+ */
+public interface UserQueryService {
+
+    /**
+     * Найти одного пользователя.
+     *
+     * @return поля пользователя в порядке {@link UserField}
+     * @throws web.exception.UserNotFoundException если пользователя нет
+     */
+    Map<String, Object> getUser(Long id, Set<UserField> fields);
+
+    /**
+     * Проверить и нормализовать список id для пакетного запроса:
+     * убирает {@code null} и повторы, сохраняя порядок.
+     *
+     * @throws IllegalArgumentException если список пуст или длиннее {@code users.api.max-batch-size}
+     */
+    List<Long> normalizeIds(Collection<Long> ids);
+
+    /**
+     * Пишет {@code {"users": [...], "missing": [...]}} для нормализованного списка id
+     * одним запросом {@code where id in (...)}.
+     *
+     * @param ids результат {@link #normalizeIds(Collection)}
+     */
+    void writeUsersByIds(List<Long> ids, Set<UserField> fields, OutputStream out) throws IOException;
+
+    /**
+     * Пишет JSON‑массив всех пользователей, отсортированных по id, по мере чтения курсора.
+     */
+    void writeAllUsers(Set<UserField> fields, OutputStream out) throws IOException;
+}
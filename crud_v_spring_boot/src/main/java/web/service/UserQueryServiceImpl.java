@@ -0,0 +1,160 @@
+package web.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import web.exception.UserNotFoundException;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация {@link UserQueryService} на JDBC.
+ * <p>
+ * Список колонок собирается из {@link UserField}, так что запрос читает только
+ * нужные поля. Пакетный запрос — один {@code IN} вместо запроса на каждый id;
+ * полная выборка идёт однонаправленным курсором с fetch size, как и выгрузка.
+ */
+@Service
+@Slf4j
+public class UserQueryServiceImpl implements UserQueryService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int maxBatchSize;
+
+    public UserQueryServiceImpl(DataSource dataSource, ObjectMapper objectMapper,
+                                @Value("${users.export.fetch-size:1000}") int fetchSize,
+                                @Value("${users.api.max-batch-size:1000}") int maxBatchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource));
+        this.objectMapper = objectMapper;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public Map<String, Object> getUser(Long id, Set<UserField> fields) {
+        log.debug("Service: API get user id={}, fields={}", id, fields);
+        List<Map<String, Object>> rows = namedJdbcTemplate.query(
+                "select " + columns(fields) + " from users where id = :id",
+                Map.of("id", id),
+                (rs, rowNum) -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    int index = 1;
+                    for (UserField field : fields) {
+                        row.put(field.getJsonName(), rs.getObject(index++));
+                    }
+                    return row;
+                });
+        if (rows.isEmpty()) {
+            throw new UserNotFoundException(id);
+        }
+        return rows.get(0);
+    }
+
+    @Override
+    public List<Long> normalizeIds(Collection<Long> ids) {
+        Set<Long> distinct = new LinkedHashSet<>();
+        if (ids != null) {
+            for (Long id : ids) {
+                if (id != null) {
+                    distinct.add(id);
+                }
+            }
+        }
+        if (distinct.isEmpty()) {
+            throw new IllegalArgumentException("At least one id is required");
+        }
+        if (distinct.size() > maxBatchSize) {
+            throw new IllegalArgumentException(
+                    "Too many ids: " + distinct.size() + ", at most " + maxBatchSize + " per request");
+        }
+        return new ArrayList<>(distinct);
+    }
+
+    @Override
+    public void writeUsersByIds(List<Long> ids, Set<UserField> fields, OutputStream out) throws IOException {
+        log.debug("Service: API batch lookup of {} ids, fields={}", ids.size(), fields);
+        String sql = "select " + columns(fields) + " from users where id in (:ids) order by id";
+        Set<Long> found = new HashSet<>(ids.size() * 2);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        try {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("users");
+            namedJdbcTemplate.query(sql, Map.of("ids", ids), (ResultSet rs) -> {
+                found.add(rs.getLong(1));
+                writeRow(generator, rs, fields);
+            });
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("missing");
+            for (Long id : ids) {
+                if (!found.contains(id)) {
+                    generator.writeNumber(id);
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void writeAllUsers(Set<UserField> fields, OutputStream out) throws IOException {
+        log.debug("Service: API streaming all users, fields={}", fields);
+        String sql = "select " + columns(fields) + " from users order by id";
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        try {
+            generator.writeStartArray();
+            jdbcTemplate.query(sql, (ResultSet rs) -> writeRow(generator, rs, fields));
+            generator.writeEndArray();
+            generator.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Колонки в порядке {@link UserField}; id всегда первой.
+     */
+    private static String columns(Set<UserField> fields) {
+        return fields.stream().map(UserField::getColumn).collect(Collectors.joining(", "));
+    }
+
+    private static void writeRow(JsonGenerator generator, ResultSet rs, Set<UserField> fields) throws SQLException {
+        try {
+            generator.writeStartObject();
+            int index = 1;
+            for (UserField field : fields) {
+                if (field == UserField.ID) {
+                    generator.writeNumberField(field.getJsonName(), rs.getLong(index++));
+                } else {
+                    generator.writeStringField(field.getJsonName(), rs.getString(index++));
+                }
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
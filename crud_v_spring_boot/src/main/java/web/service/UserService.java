@@ -1,5 +1,6 @@
 package web.service;
 
+import web.dto.UserPageDto;
 import web.dto.UserRequestDto;
 import web.dto.UserResponseDto;
 import java.util.List;
@@ -17,18 +18,47 @@ public interface UserService {
      */
     List<UserResponseDto> getAllUsers();
 
+    /**
+     * Получить страницу пользователей, отсортированных по id (keyset‑пагинация).
+     *
+     * @param cursor токен курсора из предыдущей страницы или {@code null} для первой
+     * @param size   запрошенный размер страницы; ограничивается сверху настройками
+     */
+    UserPageDto getUsersPage(String cursor, Integer size);
+
+    /**
+     * Нормализованные параметры страницы для ключа кэша: декодированный id курсора
+     * и размер страницы, приведённый к допустимому диапазону. Разные строки запроса,
+     * означающие одну и ту же страницу, дают один ключ.
+     *
+     * @throws web.exception.InvalidCursorException если токен курсора повреждён
+     */
+    String getUsersPageKey(String cursor, Integer size);
+
     /**
      * Найти пользователя по идентификатору.
      */
     UserResponseDto getUserById(Long id);
 
+    /**
+     * Текущая версия строки пользователя — без загрузки сущности.
+     *
+     * @throws web.exception.UserNotFoundException если пользователь не найден
+     */
+    long getUserVersion(Long id);
+
     /**
      * Сохранить нового пользователя.
+     *
+     * @throws web.exception.UserAlreadyExistsException если email уже занят
      */
     void saveUser(UserRequestDto userDto);
 
     /**
      * Обновить данные существующего пользователя.
+     * <p>
+     * {@code userDto.version} должна совпадать с текущей версией строки, иначе
+     * бросается {@link org.springframework.orm.ObjectOptimisticLockingFailureException}.
      */
     void updateUser(Long id, UserRequestDto userDto);
 
@@ -2,14 +2,26 @@ package web.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.kata.common.audit.AuditAction;
+import ru.kata.common.audit.AuditLog;
+import ru.kata.common.view.RenderedFragmentCache;
+import web.coherence.CacheChangeLog;
 import web.dto.UserMapper;
+import web.dto.UserPageDto;
 import web.dto.UserRequestDto;
 import web.dto.UserResponseDto;
+import web.exception.UserAlreadyExistsException;
 import web.exception.UserNotFoundException;
 import web.model.User;
+import web.outbox.UserChangeType;
+import web.outbox.UserOutbox;
 import web.repository.UserRepository;
+import web.search.UserSearchIndex;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -26,6 +38,18 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final RenderedFragmentCache fragmentCache;
+    private final UserAvailabilityService availabilityService;
+    private final UserSearchIndex searchIndex;
+    private final AuditLog auditLog;
+    private final UserOutbox outbox;
+    private final CacheChangeLog cacheChangeLog;
+
+    @Value("${users.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${users.page.max-size:100}")
+    private int maxPageSize;
 
     /**
      * Получает список всех пользователей в виде DTO.
@@ -39,6 +63,32 @@ public class UserServiceImpl implements UserService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Получает страницу пользователей через keyset‑выборку по id.
+     * <p>
+     * Запрашивается на одну строку больше размера страницы: если она пришла,
+     * значит, есть следующая страница, и курсор указывает на последнюю отданную строку.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public UserPageDto getUsersPage(String cursor, Integer size) {
+        long afterId = UserCursorCodec.decode(cursor);
+        int pageSize = resolvePageSize(size);
+        log.debug("Service: fetching users page after id={} size={}", afterId, pageSize);
+
+        List<UserResponseDto> rows = userRepository.findPageAfter(afterId, Limit.of(pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new UserPageDto(rows, pageSize, null);
+        }
+        List<UserResponseDto> page = rows.subList(0, pageSize);
+        return new UserPageDto(page, pageSize, UserCursorCodec.encode(page.get(pageSize - 1).getId()));
+    }
+
+    @Override
+    public String getUsersPageKey(String cursor, Integer size) {
+        return "after=" + UserCursorCodec.decode(cursor) + "&size=" + resolvePageSize(size);
+    }
+
     /**
      * Получает пользователя по идентификатору и преобразует в DTO.
      *
@@ -57,43 +107,90 @@ public class UserServiceImpl implements UserService {
 
     /**
      * Сохраняет нового пользователя на основе данных из DTO.
+     * <p>
+     * Занятый email отклоняется до вставки по {@link UserAvailabilityService}:
+     * в типичном случае без запроса в БД и без ошибки уникального индекса.
      *
      * @param userDto DTO с данными нового пользователя
+     * @throws UserAlreadyExistsException если email уже занят
      */
     @Override
     @Transactional
     public void saveUser(UserRequestDto userDto) {
         log.debug("Service: mapping DTO and saving new user");
+        if (!availabilityService.isEmailAvailable(userDto.getEmail())) {
+            throw new UserAlreadyExistsException("email", userDto.getEmail());
+        }
         User user = userMapper.toUser(userDto);
         userRepository.save(user);
+        outbox.userChanged(UserChangeType.USER_CREATED, userMapper.toResponseDto(user));
+        cacheChangeLog.userChanged(user.getId());
+        availabilityService.registerEmail(user.getEmail());
+        searchIndex.indexAfterCommit(user.getId(), user.getName(), user.getEmail());
+        auditLog.record(AuditAction.CREATE, user.getId(), "name=" + user.getName() + ", email=" + user.getEmail());
+        fragmentCache.invalidateAfterCommit();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getUserVersion(Long id) {
+        return userRepository.findVersionById(id)
+                .orElseThrow(() -> new UserNotFoundException(id));
     }
 
     /**
      * Обновляет существующего пользователя по ID на основе данных из DTO.
+     * <p>
+     * Один {@code update ... where id = ? and version = ?} без предварительной загрузки сущности:
+     * если пользователя успели изменить после открытия формы, строка не обновится.
+     * Только в этом случае второй запрос различает «пользователя нет» и устаревшую версию.
      */
     @Override
     @Transactional
     public void updateUser(Long id, UserRequestDto userDto) {
-        log.debug("Service: updating user with id {}", id);
-        User existingUser = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException(id));
-
-        existingUser.setName(userDto.getName());
-        existingUser.setEmail(userDto.getEmail());
-
-        userRepository.save(existingUser);
+        log.debug("Service: updating user with id {}, version {}", id, userDto.getVersion());
+        int updated = userRepository.updateIfVersion(id, userDto.getVersion(), userDto.getName(), userDto.getEmail());
+        if (updated == 0) {
+            userRepository.findVersionById(id).orElseThrow(() -> new UserNotFoundException(id));
+            throw new ObjectOptimisticLockingFailureException(User.class, id);
+        }
+        outbox.userChanged(UserChangeType.USER_UPDATED,
+                new UserResponseDto(id, userDto.getName(), userDto.getEmail(), userDto.getVersion() + 1));
+        cacheChangeLog.userChanged(id);
+        availabilityService.registerEmail(userDto.getEmail());
+        availabilityService.registerRemoval();
+        searchIndex.indexAfterCommit(id, userDto.getName(), userDto.getEmail());
+        auditLog.record(AuditAction.UPDATE, id, "name=" + userDto.getName() + ", email=" + userDto.getEmail()
+                + ", version=" + (userDto.getVersion() + 1));
+        fragmentCache.invalidateAfterCommit();
     }
 
     /**
-     * Удаляет пользователя по идентификатору.
+     * Удаляет пользователя по идентификатору одним {@code delete}:
+     * отсутствие пользователя определяется по числу удалённых строк.
      */
     @Override
     @Transactional
     public void deleteUser(Long id) {
         log.debug("Service: deleting user with id={}", id);
-        if (!userRepository.existsById(id)) {
+        if (userRepository.deleteUserById(id) == 0) {
             throw new UserNotFoundException(id);
         }
-        userRepository.deleteById(id);
+        outbox.userDeleted(id);
+        cacheChangeLog.userChanged(id);
+        availabilityService.registerRemoval();
+        searchIndex.removeAfterCommit(id);
+        auditLog.record(AuditAction.DELETE, id, "");
+        fragmentCache.invalidateAfterCommit();
+    }
+
+    /**
+     * Приводит запрошенный размер страницы к допустимому диапазону [1, maxPageSize].
+     */
+    private int resolvePageSize(Integer size) {
+        if (size == null || size < 1) {
+            return defaultPageSize;
+        }
+        return Math.min(size, maxPageSize);
     }
 }
\ No newline at end of file
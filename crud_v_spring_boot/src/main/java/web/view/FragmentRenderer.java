@@ -0,0 +1,37 @@
+package web.view;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.Map;
+
+/**
+ * Рендерит шаблон Thymeleaf в строку в контексте текущего запроса.
+ * <p>
+ * Нужен для кэширования готового HTML фрагментов: ссылки {@code @{/...}}
+ * строятся так же, как при обычном рендеринге view.
+ */
+@Component
+public class FragmentRenderer {
+
+    private final ITemplateEngine templateEngine;
+    private final JakartaServletWebApplication application;
+
+    public FragmentRenderer(ITemplateEngine templateEngine, ServletContext servletContext) {
+        this.templateEngine = templateEngine;
+        this.application = JakartaServletWebApplication.buildApplication(servletContext);
+    }
+
+    public String render(String template, Map<String, Object> variables,
+                         HttpServletRequest request, HttpServletResponse response) {
+        WebContext context = new WebContext(application.buildExchange(request, response),
+                RequestContextUtils.getLocale(request), variables);
+        return templateEngine.process(template, context);
+    }
+}
@@ -0,0 +1,22 @@
+package web.view;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.kata.common.view.RenderedFragmentCache;
+
+/**
+ * Кэш готового HTML фрагментов списка пользователей.
+ * Версию данных увеличивает любая запись в таблицу {@code users}.
+ */
+@Configuration
+public class ViewConfig {
+
+    @Bean
+    public RenderedFragmentCache renderedFragmentCache(
+            MeterRegistry meterRegistry,
+            @Value("${users.view.fragment-cache.max-entries:256}") int maxEntries) {
+        return new RenderedFragmentCache(meterRegistry, maxEntries);
+    }
+}
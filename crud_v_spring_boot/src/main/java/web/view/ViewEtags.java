@@ -0,0 +1,58 @@
+package web.view;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import ru.kata.common.view.RenderedFragmentCache;
+
+/**
+ * Сильные ETag для HTML‑страниц пользователей и условные GET по ним.
+ * <p>
+ * Тег списка строится из версии данных {@link RenderedFragmentCache} (счётчик изменений
+ * таблицы {@code users}), тег формы — из {@code @Version} строки. Оба включают эпоху
+ * запуска приложения: счётчик живёт в памяти, а после перезапуска может смениться
+ * и разметка шаблонов. Совпавший {@code If-None-Match} даёт {@code 304} до рендеринга
+ * и до загрузки сущностей.
+ */
+@Component
+public class ViewEtags {
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final RenderedFragmentCache fragmentCache;
+
+    public ViewEtags(RenderedFragmentCache fragmentCache) {
+        this.fragmentCache = fragmentCache;
+    }
+
+    /** Тег страницы списка: меняется при любой записи в {@code users}. */
+    public String listTag() {
+        return "users-" + epoch + "-" + fragmentCache.version();
+    }
+
+    /** Тег формы редактирования пользователя {@code id} с версией строки {@code version}. */
+    public String userTag(Long id, long version) {
+        return "user-" + id + "-" + epoch + "-" + version;
+    }
+
+    /**
+     * Проверяет {@code If-None-Match} и выставляет {@code ETag} и {@code Cache-Control: private, no-cache}.
+     * <p>
+     * Страница с flash‑сообщением одноразовая: для неё тег не выставляется,
+     * иначе браузер показывал бы сообщение повторно из своего кэша.
+     *
+     * @return {@code true}, если клиенту уже отдан {@code 304} и рендерить страницу не нужно
+     */
+    public boolean checkNotModified(String etag, HttpServletRequest request, HttpServletResponse response) {
+        if (RequestContextUtils.getInputFlashMap(request) != null) {
+            return false;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        return new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+}
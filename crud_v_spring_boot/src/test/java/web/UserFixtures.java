@@ -0,0 +1,21 @@
+package web;
+
+import web.dto.UserRequestDto;
+
+/**
+ * Общие тестовые данные пользователей.
+ */
+public final class UserFixtures {
+
+    private UserFixtures() {
+    }
+
+    /** Форма создания ({@code version == null}) или изменения пользователя. */
+    public static UserRequestDto request(String name, String email, Long version) {
+        UserRequestDto dto = new UserRequestDto();
+        dto.setName(name);
+        dto.setEmail(email);
+        dto.setVersion(version);
+        return dto;
+    }
+}
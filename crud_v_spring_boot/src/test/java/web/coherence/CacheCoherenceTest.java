@@ -0,0 +1,110 @@
+package web.coherence;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.kata.common.view.RenderedFragmentCache;
+import web.Application;
+import web.UserFixtures;
+import web.dto.UserSuggestionDto;
+import web.search.UserSearchIndex;
+import web.service.UserAvailabilityService;
+import web.service.UserService;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Два узла приложения в одной JVM над общей встроенной БД: запись на одном узле
+ * сбрасывает кэши другого через cache_changes, свои изменения узел не применяет повторно,
+ * а строка, закоммиченная после строк с большими id, не теряется даже за длинным пропуском.
+ */
+class CacheCoherenceTest {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("a", "create-drop");
+        nodeB = startNode("b", "none");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    private static ConfigurableApplicationContext startNode(String name, String ddlAuto) {
+        return new SpringApplicationBuilder(Application.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:coherence;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "--server.port=0",
+                "--audit.dir=target/audit-" + name,
+                "--cache.coherence.enabled=true",
+                "--cache.coherence.poll-interval=50ms",
+                "--cache.coherence.batch-size=10");
+    }
+
+    @Test
+    void writesOnOneNodeInvalidateCachesOnTheOther() {
+        UserService users = nodeA.getBean(UserService.class);
+        UserSearchIndex searchB = nodeB.getBean(UserSearchIndex.class);
+        long fragmentsVersion = nodeB.getBean(RenderedFragmentCache.class).version();
+
+        users.saveUser(UserFixtures.request("Coherent", "coherent@example.com", null));
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(searchB.search("coherent", 5)).extracting(UserSuggestionDto::getEmail)
+                    .containsExactly("coherent@example.com");
+            assertThat(nodeB.getBean(RenderedFragmentCache.class).version()).isGreaterThan(fragmentsVersion);
+        });
+        assertThat(nodeB.getBean(UserAvailabilityService.class).isEmailAvailable("coherent@example.com")).isFalse();
+
+        Long id = searchB.search("coherent", 5).get(0).getId();
+        users.updateUser(id, UserFixtures.request("Renamed", "coherent@example.com", users.getUserVersion(id)));
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(searchB.search("renamed", 5)).extracting(UserSuggestionDto::getId).containsExactly(id));
+
+        users.deleteUser(id);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(searchB.search("renamed", 5)).isEmpty());
+
+        assertThat(nodeA.getBean(MeterRegistry.class).counter("cache.coherence.applied").count()).isZero();
+        assertThat(nodeB.getBean(MeterRegistry.class).counter("cache.coherence.applied").count())
+                .isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    void lateCommitBehindGapLongerThanBatchIsApplied() {
+        JdbcTemplate jdbc = nodeA.getBean(JdbcTemplate.class);
+        String nodeAId = nodeA.getBean(CacheChangeLog.class).nodeId();
+        long max = jdbc.queryForObject("select coalesce(max(id), 0) from cache_changes", Long.class);
+        jdbc.execute("alter table cache_changes alter column id restart with " + (max + 100));
+        Counter appliedB = nodeB.getBean(MeterRegistry.class).counter("cache.coherence.applied");
+        double before = appliedB.count();
+
+        insertChange(jdbc, max + 50, nodeAId);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(appliedB.count()).isEqualTo(before + 1));
+
+        insertChange(jdbc, max + 5, nodeAId);
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(appliedB.count()).isEqualTo(before + 2));
+    }
+
+    /** Строка с заданным id - как закоммиченная транзакция, получившая id раньше других. */
+    private static void insertChange(JdbcTemplate jdbc, long id, String nodeId) {
+        jdbc.update("insert into cache_changes (id, node_id, region, entity_id, created_at) values (?, ?, ?, ?, ?)",
+                id, nodeId, CacheRegion.USERS.name(), -id, Timestamp.from(Instant.now()));
+    }
+}
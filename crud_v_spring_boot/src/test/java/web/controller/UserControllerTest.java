@@ -0,0 +1,79 @@
+package web.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.kata.common.view.RenderedFragmentCache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Ключ кэша фрагментов списка: строится из нормализованных параметров страницы,
+ * повреждённые курсоры и пустые страницы за концом списка не занимают места в кэше.
+ */
+@SpringBootTest(properties = "users.page.max-size=100")
+@AutoConfigureMockMvc
+class UserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RenderedFragmentCache fragmentCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter misses;
+
+    @BeforeEach
+    void setUp() {
+        fragmentCache.invalidate();
+        misses = meterRegistry.counter("view.fragment.cache", "result", "miss");
+    }
+
+    @Test
+    void equivalentPageParametersShareOneEntry() throws Exception {
+        double before = misses.count();
+
+        mockMvc.perform(get("/users").param("size", "100")).andExpect(status().isOk());
+        mockMvc.perform(get("/users").param("size", "5000")).andExpect(status().isOk());
+        mockMvc.perform(get("/users").param("size", "100").param("cursor", "")).andExpect(status().isOk());
+
+        assertThat(misses.count()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void invalidCursorIsRedirectedWithoutRendering() throws Exception {
+        double before = misses.count();
+
+        mockMvc.perform(get("/users").param("cursor", "not-a-cursor"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/users"));
+
+        assertThat(misses.count()).isEqualTo(before);
+    }
+
+    @Test
+    void pageBeyondTheEndIsNotCached() throws Exception {
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("id:999999999".getBytes(StandardCharsets.US_ASCII));
+        double before = misses.count();
+
+        mockMvc.perform(get("/users").param("cursor", cursor)).andExpect(status().isOk());
+        mockMvc.perform(get("/users").param("cursor", cursor)).andExpect(status().isOk());
+
+        assertThat(misses.count()).isEqualTo(before + 2);
+    }
+}
@@ -0,0 +1,51 @@
+package web.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Параметр {@code format} выгрузки: регистр не важен, неизвестный формат - 400, а не страница ошибки.
+ * Таймаут асинхронного ответа задаётся только для выгрузки.
+ */
+@SpringBootTest(properties = "users.export.timeout=45s")
+@AutoConfigureMockMvc
+class UserExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void unknownFormatIsBadRequest() throws Exception {
+        mockMvc.perform(get("/users/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value("Unknown format: xml, expected csv or ndjson"));
+
+        mockMvc.perform(get("/users/export").param("format", "NDJSON"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void exportUsesItsOwnAsyncTimeout() throws Exception {
+        MvcResult result = mockMvc.perform(get("/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(45_000L);
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("id,name,email")));
+    }
+}
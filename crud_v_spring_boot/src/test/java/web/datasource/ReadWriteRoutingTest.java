@@ -0,0 +1,146 @@
+package web.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import ru.kata.common.datasource.PrimaryReads;
+import web.UserFixtures;
+import web.dto.UserResponseDto;
+import web.model.User;
+import web.repository.UserRepository;
+import web.service.UserService;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Маршрутизация на двух встроенных БД: реплика - копия primary через SCRIPT, после копирования
+ * имя пользователя на реплике меняется, и по нему видно, откуда прочитаны данные.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rw_primary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "datasource.replica.url=jdbc:h2:mem:rw_replica;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "datasource.replica.heartbeat-interval=50ms",
+        "datasource.replica.max-lag=1h"
+})
+class ReadWriteRoutingTest {
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private Long id;
+
+    @BeforeEach
+    void setUp() {
+        userService.saveUser(UserFixtures.request("Ivan", "routed@example.com", null));
+        id = userRepository.findAll().get(0).getId();
+        replicate();
+        new JdbcTemplate(replica).update("update users set name = 'Replica' where id = ?", id);
+        await().atMost(Duration.ofSeconds(5)).until(lagMonitor::isReplicaUsable);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void readOnlyServiceTransactionsReadReplica() {
+        assertThat(userService.getUserById(id).getName()).isEqualTo("Replica");
+        assertThat(userService.getAllUsers()).extracting(UserResponseDto::getName).containsExactly("Replica");
+        assertThat(userService.getUsersPage(null, 10).getUsers()).extracting(UserResponseDto::getName)
+                .containsExactly("Replica");
+
+        // Транзакции Spring Data по умолчанию и запросы вне транзакции - на primary
+        assertThat(userRepository.findAll()).extracting(User::getName).containsExactly("Ivan");
+        assertThat(PrimaryReads.onPrimary(() -> userService.getUserById(id).getName())).isEqualTo("Ivan");
+    }
+
+    @Test
+    void clientReadsItsOwnWritesFromPrimary() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofMinutes(1));
+        AtomicReference<String> read = new AtomicReference<>();
+
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(), writeResponse, (req, res) -> {
+            userService.updateUser(id,
+                    UserFixtures.request("Renamed", "routed@example.com", userService.getUserVersion(id)));
+            read.set(userService.getUserById(id).getName());
+        });
+        assertThat(read).hasValue("Renamed");
+        Cookie cookie = writeResponse.getCookie(ReadYourWritesFilter.COOKIE);
+        assertThat(cookie).isNotNull();
+
+        MockHttpServletRequest sticky = new MockHttpServletRequest();
+        sticky.setCookies(cookie);
+        filter.doFilter(sticky, new MockHttpServletResponse(),
+                (req, res) -> read.set(userService.getUserById(id).getName()));
+        assertThat(read).hasValue("Renamed");
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                (req, res) -> read.set(userService.getUserById(id).getName()));
+        assertThat(read).hasValue("Replica");
+    }
+
+    @Test
+    void openInViewIsDisabled() {
+        // Иначе соединение, выбранное первым read-only чтением запроса, досталось бы и его записи
+        assertThat(context.getBeanNamesForType(OpenEntityManagerInViewInterceptor.class)).isEmpty();
+    }
+
+    @Test
+    void laggingReplicaIsBypassed() {
+        new JdbcTemplate(replica).update("update replica_heartbeat set beat_at = ? where id = 1",
+                Timestamp.from(Instant.now().minus(Duration.ofHours(2))));
+        await().atMost(Duration.ofSeconds(5)).until(() -> !lagMonitor.isReplicaUsable());
+
+        assertThat(userService.getUserById(id).getName()).isEqualTo("Ivan");
+        assertThat(meterRegistry.counter("datasource.routing", "target", "primary", "reason", "replica-lag").count())
+                .isPositive();
+    }
+
+    /** "Репликация": снимок primary через SCRIPT поверх пустой реплики. */
+    private void replicate() {
+        List<String> script = new JdbcTemplate(primary).queryForList("SCRIPT", String.class);
+        JdbcTemplate target = new JdbcTemplate(replica);
+        target.execute("DROP ALL OBJECTS");
+        script.forEach(target::execute);
+    }
+}
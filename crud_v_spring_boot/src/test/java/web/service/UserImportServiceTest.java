@@ -0,0 +1,95 @@
+package web.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.kata.common.audit.AuditAction;
+import ru.kata.common.audit.AuditEvent;
+import ru.kata.common.audit.AuditLogReader;
+import web.dto.ImportReportDto;
+import web.model.User;
+import web.repository.UserRepository;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Массовый импорт: пачка и построчный повтор после дубликата, событие аудита на каждую вставленную строку,
+ * валидация уже обрезанных полей.
+ */
+@SpringBootTest(properties = {"audit.flush-interval=20ms", "users.import.batch-size=2"})
+class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService importService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void importedRowsAreAuditedAfterCommit() throws Exception {
+        Instant start = Instant.now();
+        String csv = """
+                name,email
+                Anna,anna@example.com
+                Boris,boris@example.com
+                Vera,vera@example.com
+                Anna Again,anna@example.com
+                """;
+
+        ImportReportDto report = importService.importUsers(new StringReader(csv), DataFormat.CSV);
+
+        assertThat(report.getImported()).isEqualTo(3);
+        assertThat(report.getFailed()).isEqualTo(1);
+        List<Long> ids = userRepository.findAll().stream().map(User::getId).toList();
+        List<AuditEvent> events = new ArrayList<>();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            events.clear();
+            AuditLogReader.replay(Path.of("target/audit"), null, start, null, event -> {
+                if (ids.contains(event.userId())) {
+                    events.add(event);
+                }
+            });
+            assertThat(events).hasSize(3);
+        });
+        assertThat(events).extracting(AuditEvent::action).containsOnly(AuditAction.CREATE);
+        assertThat(events).extracting(AuditEvent::details).containsExactlyInAnyOrder(
+                "name=Anna, email=anna@example.com",
+                "name=Boris, email=boris@example.com",
+                "name=Vera, email=vera@example.com");
+    }
+
+    @Test
+    void rowsAreValidatedAfterTrimming() throws Exception {
+        String csv = """
+                name,email
+                " a ",short@example.com
+                "  Gleb  ", gleb@example.com\s
+                """;
+
+        ImportReportDto report = importService.importUsers(new StringReader(csv), DataFormat.CSV);
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(2);
+            assertThat(error.getMessage()).startsWith("name: ");
+        });
+        assertThat(userRepository.findAll()).singleElement().satisfies(user -> {
+            assertThat(user.getName()).isEqualTo("Gleb");
+            assertThat(user.getEmail()).isEqualTo("gleb@example.com");
+        });
+    }
+}